@@ -0,0 +1,141 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.jmh.SyntheticProgram.SyntheticState;
+
+/**
+ * Measures the heap retained per {@link ARGState} for ARGs of the shapes
+ * that are typical for predicate analysis (long paths with few branches,
+ * some states with several parents after merges, and some covered states).
+ *
+ * This is not a JMH benchmark, because JMH does not measure retained memory.
+ * Run it with "ant arg-memory-benchmark" on two revisions to compare the
+ * memory layout of ARGState.
+ * The wrapped states are shared between all ARG nodes,
+ * such that only the overhead of ARGState itself is measured.
+ */
+public final class ARGMemoryBenchmark {
+
+  private static final int NODES = 1000000;
+  private static final int ROUNDS = 5;
+
+  private ARGMemoryBenchmark() { }
+
+  public static void main(String[] args) {
+    int nodes = args.length > 0 ? Integer.parseInt(args[0]) : NODES;
+    SyntheticState wrapped = new SyntheticState(new CFANode("main"), 0);
+
+    for (Shape shape : Shape.values()) {
+      long best = Long.MAX_VALUE;
+      for (int round = 0; round < ROUNDS; round++) {
+        long before = usedHeap();
+        List<ARGState> arg = shape.build(nodes, wrapped, new Random(42));
+        long after = usedHeap();
+        best = Math.min(best, after - before);
+        if (arg.size() != nodes) {
+          throw new AssertionError();
+        }
+      }
+
+      // The list that holds the ARG contributes about 4 or 8 bytes per node.
+      System.out.printf("%-10s %6.1f bytes per node (including one list reference)%n",
+          shape, (double)best / nodes);
+    }
+  }
+
+  private static long usedHeap() {
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+    }
+    return memory.getHeapMemoryUsage().getUsed();
+  }
+
+  private static enum Shape {
+    /** A single long path. */
+    PATH {
+      @Override
+      List<ARGState> build(int pNodes, SyntheticState pWrapped, Random pRandom) {
+        List<ARGState> arg = new ArrayList<>(pNodes);
+        ARGState last = new ARGState(pWrapped, null);
+        arg.add(last);
+        while (arg.size() < pNodes) {
+          last = new ARGState(pWrapped, last);
+          arg.add(last);
+        }
+        return arg;
+      }
+    },
+
+    /** A tree where every fourth state has two children, like after assume edges. */
+    TREE {
+      @Override
+      List<ARGState> build(int pNodes, SyntheticState pWrapped, Random pRandom) {
+        List<ARGState> arg = new ArrayList<>(pNodes);
+        arg.add(new ARGState(pWrapped, null));
+        int next = 0;
+        while (arg.size() < pNodes) {
+          ARGState parent = arg.get(next++);
+          int children = pRandom.nextInt(4) == 0 ? 2 : 1;
+          for (int i = 0; i < children && arg.size() < pNodes; i++) {
+            arg.add(new ARGState(pWrapped, parent));
+          }
+        }
+        return arg;
+      }
+    },
+
+    /** Like TREE, but with additional parents and covered states as produced by merge and stop. */
+    MERGED {
+      @Override
+      List<ARGState> build(int pNodes, SyntheticState pWrapped, Random pRandom) {
+        List<ARGState> arg = TREE.build(pNodes, pWrapped, pRandom);
+        for (int i = 1; i < arg.size(); i++) {
+          ARGState state = arg.get(i);
+          int r = pRandom.nextInt(10);
+          if (r == 0) {
+            state.addParent(arg.get(pRandom.nextInt(i)));
+          } else if (r == 1 && state.getChildren().isEmpty()) {
+            ARGState covering = arg.get(pRandom.nextInt(i));
+            if (covering.mayCover()) {
+              state.setCovered(covering);
+            }
+          }
+        }
+        return arg;
+      }
+    };
+
+    abstract List<ARGState> build(int pNodes, SyntheticState pWrapped, Random pRandom);
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.log.TestLogManager;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.ShutdownNotifier;
+import org.sosy_lab.cpachecker.core.algorithm.CPAAlgorithm;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
+import org.sosy_lab.cpachecker.exceptions.CPAException;
+import org.sosy_lab.cpachecker.jmh.SyntheticProgram.SyntheticCPA;
+
+/**
+ * Complete runs of {@link CPAAlgorithm} with a synthetic CPA,
+ * measuring the overhead of the main loop
+ * (waitlist, precision adjustment, merge, stop, and reached-set operations).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CPAAlgorithmBenchmark {
+
+  @Param({"1000", "10000"})
+  private int nodes;
+
+  @Param({"16"})
+  private int bound;
+
+  @Param({"BFS", "DFS"})
+  private String traversal;
+
+  @Param({"PARTITIONED", "LOCATIONMAPPED", "LOCATIONINDEXED"})
+  private String reachedSetType;
+
+  private CFANode initialLocation;
+  private SyntheticCPA cpa;
+  private CPAAlgorithm algorithm;
+  private ReachedSetFactory reachedSetFactory;
+  private ReachedSet reached;
+
+  @Setup(Level.Trial)
+  public void createAnalysis() throws InvalidConfigurationException {
+    List<CFANode> cfa = SyntheticProgram.createCfa(nodes, 42);
+    initialLocation = cfa.get(0);
+
+    Configuration config = Configuration.builder()
+        .setOption("analysis.traversal.order", traversal)
+        .setOption("analysis.reachedSet", reachedSetType)
+        .build();
+    LogManager logger = TestLogManager.getInstance();
+
+    cpa = new SyntheticCPA(bound);
+    algorithm = CPAAlgorithm.create(cpa, logger, config, ShutdownNotifier.create());
+    reachedSetFactory = new ReachedSetFactory(config, logger);
+  }
+
+  @Setup(Level.Invocation)
+  public void createReachedSet() {
+    reached = reachedSetFactory.create();
+    reached.add(cpa.getInitialState(initialLocation), cpa.getInitialPrecision(initialLocation));
+  }
+
+  @Benchmark
+  public int run() throws CPAException, InterruptedException {
+    algorithm.run(reached);
+    return reached.size();
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
+import org.sosy_lab.cpachecker.core.interfaces.TransferRelation;
+import org.sosy_lab.cpachecker.cpa.composite.CompositePrecision;
+import org.sosy_lab.cpachecker.cpa.composite.CompositeState;
+import org.sosy_lab.cpachecker.cpa.composite.CompositeStopOperator;
+import org.sosy_lab.cpachecker.cpa.composite.CompositeTransferRelation;
+import org.sosy_lab.cpachecker.exceptions.CPAException;
+import org.sosy_lab.cpachecker.jmh.SyntheticProgram.SyntheticCPA;
+import org.sosy_lab.cpachecker.jmh.SyntheticProgram.SyntheticState;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * {@link CompositeTransferRelation} and {@link CompositeStopOperator}
+ * with several synthetic component CPAs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CompositeOperatorsBenchmark {
+
+  @Param({"2", "5"})
+  private int components;
+
+  @Param({"1000"})
+  private int states;
+
+  /** Size of the partition each stop check has to compare against. */
+  @Param({"100"})
+  private int reachedPartitionSize;
+
+  private CompositeTransferRelation transfer;
+  private CompositeStopOperator stop;
+  private CompositePrecision precision;
+
+  private List<CompositeState> input;
+  private List<AbstractState> reachedPartition;
+
+  @Setup(Level.Trial)
+  public void createOperators() throws InvalidConfigurationException {
+    List<CFANode> cfa = SyntheticProgram.createCfa(1000, 42);
+
+    ImmutableList.Builder<TransferRelation> transferRelations = ImmutableList.builder();
+    ImmutableList.Builder<StopOperator> stopOperators = ImmutableList.builder();
+    List<Precision> precisions = new ArrayList<>(components);
+    List<SyntheticCPA> cpas = new ArrayList<>(components);
+    for (int i = 0; i < components; i++) {
+      SyntheticCPA cpa = new SyntheticCPA(16 + i);
+      cpas.add(cpa);
+      transferRelations.add(cpa.getTransferRelation());
+      stopOperators.add(cpa.getStopOperator());
+      precisions.add(cpa.getInitialPrecision(cfa.get(0)));
+    }
+
+    transfer = new CompositeTransferRelation(transferRelations.build(), false,
+        Configuration.defaultConfiguration());
+    stop = new CompositeStopOperator(stopOperators.build());
+    precision = new CompositePrecision(precisions);
+
+    Random random = new Random(42);
+    input = new ArrayList<>(states);
+    for (int i = 0; i < states; i++) {
+      input.add(createState(cfa.get(random.nextInt(cfa.size())), random, components));
+    }
+
+    // all states in the partition have the same location,
+    // but differ in the counter of the last component
+    CFANode location = cfa.get(0);
+    reachedPartition = new ArrayList<>(reachedPartitionSize);
+    for (int i = 0; i < reachedPartitionSize; i++) {
+      List<AbstractState> wrapped = new ArrayList<>(components);
+      for (int c = 0; c < components - 1; c++) {
+        wrapped.add(new SyntheticState(location, 0));
+      }
+      wrapped.add(new SyntheticState(location, i + 1));
+      reachedPartition.add(new CompositeState(wrapped));
+    }
+  }
+
+  private static CompositeState createState(CFANode location, Random random, int components) {
+    List<AbstractState> wrapped = new ArrayList<>(components);
+    for (int c = 0; c < components; c++) {
+      wrapped.add(new SyntheticState(location, random.nextInt(16)));
+    }
+    return new CompositeState(wrapped);
+  }
+
+  @Benchmark
+  public void transfer(Blackhole bh) throws CPAException, InterruptedException {
+    for (CompositeState state : input) {
+      Collection<CompositeState> successors = transfer.getAbstractSuccessors(state, precision);
+      bh.consume(successors);
+    }
+  }
+
+  @Benchmark
+  public void stopNotCovered(Blackhole bh) throws CPAException, InterruptedException {
+    CompositeState state = (CompositeState) reachedPartition.get(0);
+    List<AbstractState> wrapped = new ArrayList<>(state.getWrappedStates());
+    wrapped.set(0, new SyntheticState(((SyntheticState) wrapped.get(0)).getLocationNode(), 1));
+    CompositeState uncovered = new CompositeState(wrapped);
+    for (int i = 0; i < states; i++) {
+      bh.consume(stop.stop(uncovered, reachedPartition, precision));
+    }
+  }
+
+  @Benchmark
+  public void stopCovered(Blackhole bh) throws CPAException, InterruptedException {
+    AbstractState covered = reachedPartition.get(reachedPartition.size() - 1);
+    for (int i = 0; i < states; i++) {
+      bh.consume(stop.stop(covered, reachedPartition, precision));
+    }
+  }
+}
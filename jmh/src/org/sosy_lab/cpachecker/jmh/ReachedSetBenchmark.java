@@ -0,0 +1,136 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.TestLogManager;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
+import org.sosy_lab.cpachecker.jmh.SyntheticProgram.SyntheticState;
+
+/**
+ * The basic operations of all {@link ReachedSet} implementations
+ * (add, getReached, remove).
+ * Comparing LOCATIONINDEXED with LOCATIONMAPPED shows the effect
+ * of the array-based location partitions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ReachedSetBenchmark {
+
+  @Param({"NORMAL", "PARTITIONED", "LOCATIONMAPPED", "LOCATIONINDEXED", "CONCURRENT"})
+  private String reachedSetType;
+
+  @Param({"1000"})
+  private int locations;
+
+  @Param({"50000"})
+  private int states;
+
+  private final Precision precision = SingletonPrecision.getInstance();
+  private ReachedSetFactory factory;
+  private List<AbstractState> input;
+
+  /** A filled reached set for the benchmarks that do not modify it. */
+  private ReachedSet filledReached;
+
+  /** A filled reached set for the removal benchmark, recreated for every invocation. */
+  private ReachedSet reachedForRemoval;
+
+  @Setup(Level.Trial)
+  public void createStates() throws InvalidConfigurationException {
+    factory = new ReachedSetFactory(Configuration.builder()
+        .setOption("analysis.reachedSet", reachedSetType)
+        .build(), TestLogManager.getInstance());
+
+    List<CFANode> cfa = SyntheticProgram.createCfa(locations, 42);
+    Random random = new Random(42);
+    input = new ArrayList<>(states);
+    for (int i = 0; i < states; i++) {
+      input.add(new SyntheticState(cfa.get(random.nextInt(cfa.size())), i));
+    }
+
+    filledReached = createFilledReachedSet();
+  }
+
+  @Setup(Level.Invocation)
+  public void fillReachedSetForRemoval() {
+    reachedForRemoval = createFilledReachedSet();
+  }
+
+  private ReachedSet createFilledReachedSet() {
+    ReachedSet reached = factory.create();
+    for (AbstractState state : input) {
+      reached.add(state, precision);
+    }
+    return reached;
+  }
+
+  @Benchmark
+  public ReachedSet add() {
+    return createFilledReachedSet();
+  }
+
+  @Benchmark
+  public void getReached(Blackhole bh) {
+    for (AbstractState state : input) {
+      bh.consume(filledReached.getReached(state).size());
+    }
+  }
+
+  @Benchmark
+  public ReachedSet remove() {
+    for (AbstractState state : input) {
+      reachedForRemoval.remove(state);
+    }
+    return reachedForRemoval;
+  }
+}
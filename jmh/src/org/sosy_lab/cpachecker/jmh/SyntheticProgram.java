@@ -0,0 +1,232 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+import org.sosy_lab.cpachecker.cfa.CFACreationUtils;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.model.BlankEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.defaults.FlatLatticeDomain;
+import org.sosy_lab.cpachecker.core.defaults.MergeSepOperator;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
+import org.sosy_lab.cpachecker.core.defaults.StaticPrecisionAdjustment;
+import org.sosy_lab.cpachecker.core.defaults.StopSepOperator;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractDomain;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractStateWithLocation;
+import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
+import org.sosy_lab.cpachecker.core.interfaces.MergeOperator;
+import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.PrecisionAdjustment;
+import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
+import org.sosy_lab.cpachecker.core.interfaces.TransferRelation;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A synthetic program (a random CFA without any statements) and a synthetic CPA
+ * that tracks the location and a small counter, such that the benchmarks
+ * measure the overhead of the core data structures and not of any real analysis.
+ */
+final class SyntheticProgram {
+
+  private SyntheticProgram() { }
+
+  /**
+   * Create a random connected CFA with the given number of nodes.
+   * Each node has one or two leaving edges, some of which go backwards,
+   * such that the CFA has loops.
+   */
+  static ImmutableList<CFANode> createCfa(int numberOfNodes, long seed) {
+    Random random = new Random(seed);
+    List<CFANode> nodes = new ArrayList<>(numberOfNodes);
+    for (int i = 0; i < numberOfNodes; i++) {
+      nodes.add(new CFANode("main"));
+    }
+    for (int i = 0; i < numberOfNodes - 1; i++) {
+      addEdge(nodes.get(i), nodes.get(i + 1));
+      if (random.nextInt(4) == 0) {
+        addEdge(nodes.get(i), nodes.get(random.nextInt(numberOfNodes)));
+      }
+    }
+    return ImmutableList.copyOf(nodes);
+  }
+
+  private static void addEdge(CFANode predecessor, CFANode successor) {
+    CFAEdge edge = new BlankEdge("", FileLocation.DUMMY, predecessor, successor, "synthetic");
+    CFACreationUtils.addEdgeUnconditionallyToCFA(edge);
+  }
+
+  /**
+   * State of the synthetic CPA: a location and a counter value.
+   */
+  static final class SyntheticState implements AbstractStateWithLocation, Partitionable {
+
+    private final CFANode location;
+    private final int value;
+
+    SyntheticState(CFANode pLocation, int pValue) {
+      location = pLocation;
+      value = pValue;
+    }
+
+    @Override
+    public CFANode getLocationNode() {
+      return location;
+    }
+
+    int getValue() {
+      return value;
+    }
+
+    @Override
+    public Iterable<CFAEdge> getOutgoingEdges() {
+      List<CFAEdge> edges = new ArrayList<>(location.getNumLeavingEdges());
+      for (int i = 0; i < location.getNumLeavingEdges(); i++) {
+        edges.add(location.getLeavingEdge(i));
+      }
+      return edges;
+    }
+
+    @Override
+    public Object getPartitionKey() {
+      return location;
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      if (this == pObj) {
+        return true;
+      }
+      if (!(pObj instanceof SyntheticState)) {
+        return false;
+      }
+      SyntheticState other = (SyntheticState) pObj;
+      return value == other.value && location.equals(other.location);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(location, value);
+    }
+
+    @Override
+    public String toString() {
+      return location + ": " + value;
+    }
+  }
+
+  /**
+   * CPA that tracks the location and a counter modulo a given bound,
+   * which is updated deterministically along each edge.
+   * The number of reachable states is at most the number of nodes times the bound.
+   */
+  static final class SyntheticCPA implements ConfigurableProgramAnalysis {
+
+    private final int bound;
+    private final AbstractDomain domain = new FlatLatticeDomain();
+
+    private final TransferRelation transfer = new TransferRelation() {
+
+      @Override
+      public Collection<? extends AbstractState> getAbstractSuccessors(AbstractState pState,
+          Precision pPrecision) {
+        SyntheticState state = (SyntheticState) pState;
+        List<SyntheticState> successors = new ArrayList<>(2);
+        for (CFAEdge edge : state.getOutgoingEdges()) {
+          successors.add(successor(state, edge));
+        }
+        return successors;
+      }
+
+      @Override
+      public Collection<? extends AbstractState> getAbstractSuccessorsForEdge(AbstractState pState,
+          Precision pPrecision, CFAEdge pCfaEdge) {
+        SyntheticState state = (SyntheticState) pState;
+        if (!state.location.equals(pCfaEdge.getPredecessor())) {
+          return ImmutableList.of();
+        }
+        return ImmutableList.of(successor(state, pCfaEdge));
+      }
+
+      @Override
+      public Collection<? extends AbstractState> strengthen(AbstractState pState,
+          List<AbstractState> pOtherStates, CFAEdge pCfaEdge, Precision pPrecision) {
+        return null;
+      }
+    };
+
+    SyntheticCPA(int pBound) {
+      bound = pBound;
+    }
+
+    private SyntheticState successor(SyntheticState state, CFAEdge edge) {
+      int value = (state.value * 31 + edge.getSuccessor().getNodeNumber()) % bound;
+      return new SyntheticState(edge.getSuccessor(), value);
+    }
+
+    @Override
+    public AbstractDomain getAbstractDomain() {
+      return domain;
+    }
+
+    @Override
+    public TransferRelation getTransferRelation() {
+      return transfer;
+    }
+
+    @Override
+    public MergeOperator getMergeOperator() {
+      return MergeSepOperator.getInstance();
+    }
+
+    @Override
+    public StopOperator getStopOperator() {
+      return new StopSepOperator(domain);
+    }
+
+    @Override
+    public PrecisionAdjustment getPrecisionAdjustment() {
+      return StaticPrecisionAdjustment.getInstance();
+    }
+
+    @Override
+    public AbstractState getInitialState(CFANode pNode) {
+      return new SyntheticState(pNode, 0);
+    }
+
+    @Override
+    public Precision getInitialPrecision(CFANode pNode) {
+      return SingletonPrecision.getInstance();
+    }
+  }
+}
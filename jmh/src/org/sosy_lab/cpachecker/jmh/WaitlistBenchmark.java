@@ -0,0 +1,97 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.TraversalMethod;
+import org.sosy_lab.cpachecker.jmh.SyntheticProgram.SyntheticState;
+
+/**
+ * Adding and popping states for each {@link TraversalMethod}.
+ * The states are added in batches and popped in between,
+ * similar to the access pattern of the CPA algorithm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class WaitlistBenchmark {
+
+  @Param({"DFS", "BFS", "RAND", "RANDOM_PATH", "CHUNKED_BFS"})
+  private TraversalMethod traversal;
+
+  @Param({"100000"})
+  private int states;
+
+  private List<AbstractState> input;
+
+  @Setup(Level.Trial)
+  public void createStates() {
+    List<CFANode> cfa = SyntheticProgram.createCfa(1000, 42);
+    Random random = new Random(42);
+    input = new ArrayList<>(states);
+    for (int i = 0; i < states; i++) {
+      input.add(new SyntheticState(cfa.get(random.nextInt(cfa.size())), i));
+    }
+  }
+
+  @Benchmark
+  public void addAndPop(Blackhole bh) {
+    Waitlist waitlist = traversal.createWaitlistInstance();
+    int next = 0;
+    while (next < input.size()) {
+      // add two states, pop one
+      waitlist.add(input.get(next++));
+      if (next < input.size()) {
+        waitlist.add(input.get(next++));
+      }
+      bh.consume(waitlist.pop());
+    }
+    while (!waitlist.isEmpty()) {
+      bh.consume(waitlist.pop());
+    }
+  }
+}
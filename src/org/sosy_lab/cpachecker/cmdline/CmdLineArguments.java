@@ -125,6 +125,8 @@ class CmdLineArguments {
           || handleArgument0("-64",      "analysis.machineModel", "Linux64",    arg, properties)
           || handleArgument0("-preprocess",    "parser.usePreprocessor", "true", arg, properties)
           || handleArgument0("-secureMode",    SECURE_MODE_OPTION, "true",      arg, properties)
+          || handleArgument0("-checkpoint",    "checkpoint.write", "true",      arg, properties)
+          || handleArgument1("-resume",        "checkpoint.resumeFrom",   arg, argsIt, properties)
           || handleArgument1("-outputpath",    "output.path",             arg, argsIt, properties)
           || handleArgument1("-logfile",       "log.file",                arg, argsIt, properties)
           || handleArgument1("-entryfunction", "analysis.entryFunction",  arg, argsIt, properties)
@@ -277,6 +279,8 @@ class CmdLineArguments {
     out.println(" -32");
     out.println(" -64");
     out.println(" -secureMode");
+    out.println(" -checkpoint");
+    out.println(" -resume CHECKPOINT_FILE");
     out.println(" -skipRecursion");
     out.println(" -setprop");
     out.println(" -printOptions [-v|-verbose]");
@@ -62,12 +62,17 @@ import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.core.interfaces.Targetable;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSetCheckpointer;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.exceptions.ParserException;
 import org.sosy_lab.cpachecker.util.LoopStructure;
 import org.sosy_lab.cpachecker.util.LoopStructure.Loop;
 import org.sosy_lab.cpachecker.util.automaton.TargetLocationProvider;
 import org.sosy_lab.cpachecker.util.globalinfo.GlobalInfo;
+import org.sosy_lab.cpachecker.util.resources.CacheEvictionRegistry;
+import org.sosy_lab.cpachecker.util.statistics.EventRecorder;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsSnapshotWriter;
 
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
@@ -213,6 +218,10 @@ public class CPAchecker {
 
     MainCPAStatistics stats = null;
     ReachedSet reached = null;
+    ReachedSetCheckpointer checkpointer = null;
+    CacheEvictionRegistry cacheEviction = null;
+    EventRecorder eventRecorder = null;
+    StatisticsSnapshotWriter snapshotWriter = null;
     Result result = Result.NOT_YET_STARTED;
     String violatedPropertyDescription = "";
 
@@ -222,6 +231,20 @@ public class CPAchecker {
     try {
       stats = new MainCPAStatistics(config, logger);
 
+      cacheEviction = new CacheEvictionRegistry(config, logger);
+      if (cacheEviction.isEnabled()) {
+        stats.getSubStatistics().add(cacheEviction);
+        cacheEviction.start();
+      }
+
+      eventRecorder = new EventRecorder(config, logger);
+      if (eventRecorder.isEnabled()) {
+        stats.getSubStatistics().add(eventRecorder);
+        eventRecorder.start();
+      }
+
+      snapshotWriter = new StatisticsSnapshotWriter(config, logger);
+
       // create reached set, cpa, algorithm
       stats.creationTime.start();
       reached = factory.createReachedSet();
@@ -238,14 +261,28 @@ public class CPAchecker {
         GlobalInfo.getInstance().storeCFA(cfa);
         shutdownNotifier.shutdownIfNecessary();
 
+        ReachedSetFactory reachedSetFactory = factory.getReachedSetFactory();
+        if (reachedSetFactory.usesTargetDistances()) {
+          reachedSetFactory.initializeTargetDistances(cfa, config, logger, shutdownNotifier);
+          stats.getSubStatistics().add(reachedSetFactory.getTargetDistances());
+          shutdownNotifier.shutdownIfNecessary();
+        }
+
         ConfigurableProgramAnalysis cpa = factory.createCPA(
             cfa, stats,
             initialStatesFor != InitialStatesFor.TARGET);
         GlobalInfo.getInstance().storeCPA(cpa);
 
-        algorithm = factory.createAlgorithm(cpa, programDenotation, cfa, stats);
+        checkpointer = new ReachedSetCheckpointer(config, logger, programDenotation, cfa);
+        if (checkpointer.isEnabled()) {
+          stats.getSubStatistics().add(checkpointer);
+        }
+
+        algorithm = factory.createAlgorithm(cpa, programDenotation, cfa, stats, checkpointer);
 
-        if (algorithm instanceof ImpactAlgorithm) {
+        if (checkpointer.shouldResume()) {
+          checkpointer.restore(reached);
+        } else if (algorithm instanceof ImpactAlgorithm) {
           ImpactAlgorithm mcmillan = (ImpactAlgorithm)algorithm;
           reached.add(mcmillan.getInitialState(cfa.getMainFunction()), mcmillan.getInitialPrecision(cfa.getMainFunction()));
         } else {
@@ -267,6 +304,8 @@ public class CPAchecker {
       // run analysis
       result = Result.UNKNOWN; // set to unknown so that the result is correct in case of exception
 
+      snapshotWriter.start(stats.getSubStatistics(), reached);
+
       boolean isComplete = runAlgorithm(algorithm, reached, stats);
 
       violatedPropertyDescription = findViolatedProperties(reached);
@@ -303,12 +342,24 @@ public class CPAchecker {
       if (!Strings.isNullOrEmpty(e.getMessage())) {
         logger.logUserException(Level.WARNING, e, "Analysis stopped");
       }
+      if (checkpointer != null && reached != null) {
+        checkpointer.writeCheckpointIfEnabled(reached);
+      }
 
     } catch (CPAException e) {
       logger.logUserException(Level.SEVERE, e, null);
 
     } finally {
       shutdownNotifier.unregister(interruptThreadOnShutdown);
+      if (cacheEviction != null) {
+        cacheEviction.stop();
+      }
+      if (eventRecorder != null) {
+        eventRecorder.stop();
+      }
+      if (snapshotWriter != null) {
+        snapshotWriter.stop();
+      }
     }
     return new CPAcheckerResult(result,
         violatedPropertyDescription, reached, stats);
@@ -48,6 +48,7 @@ import org.sosy_lab.cpachecker.core.algorithm.RestartWithConditionsAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.ResultCheckAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.impact.ImpactAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.testgen.TestGenAlgorithm;
+import org.sosy_lab.cpachecker.core.interfaces.AlgorithmIterationListener;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
 import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
 import org.sosy_lab.cpachecker.core.reachedset.ForwardingReachedSet;
@@ -140,8 +141,32 @@ public class CoreComponentsFactory {
   public Algorithm createAlgorithm(final ConfigurableProgramAnalysis cpa,
       final String programDenotation, final CFA cfa, @Nullable final MainCPAStatistics stats)
       throws InvalidConfigurationException, CPAException {
+    return createAlgorithm(cpa, programDenotation, cfa, stats, null);
+  }
+
+  /**
+   * Create the algorithm, and additionally notify the given listener
+   * after each iteration of the CPA algorithm.
+   */
+  public Algorithm createAlgorithm(final ConfigurableProgramAnalysis cpa,
+      final String programDenotation, final CFA cfa, @Nullable final MainCPAStatistics stats,
+      @Nullable final AlgorithmIterationListener additionalIterationListener)
+      throws InvalidConfigurationException, CPAException {
     logger.log(Level.FINE, "Creating algorithms");
 
+    AlgorithmIterationListener iterationListener = stats;
+    if (additionalIterationListener != null) {
+      iterationListener = new AlgorithmIterationListener() {
+          @Override
+          public void afterAlgorithmIteration(Algorithm pAlg, ReachedSet pReached) {
+            if (stats != null) {
+              stats.afterAlgorithmIteration(pAlg, pReached);
+            }
+            additionalIterationListener.afterAlgorithmIteration(pAlg, pReached);
+          }
+        };
+    }
+
     Algorithm algorithm;
 
     if (useProofCheckAlgorithm) {
@@ -155,7 +180,7 @@ public class CoreComponentsFactory {
       algorithm = new ImpactAlgorithm(config, logger, shutdownNotifier, cpa, cfa);
 
     } else {
-      algorithm = CPAAlgorithm.create(cpa, logger, config, shutdownNotifier, stats);
+      algorithm = CPAAlgorithm.create(cpa, logger, config, shutdownNotifier, iterationListener);
 
       if (usePredicatedAnalysisAlgorithm) {
         algorithm = new PredicatedAnalysisAlgorithm(algorithm, cpa, cfa, logger, config, shutdownNotifier);
@@ -63,6 +63,7 @@ import org.sosy_lab.cpachecker.core.interfaces.AlgorithmIterationListener;
 import org.sosy_lab.cpachecker.core.interfaces.Graphable;
 import org.sosy_lab.cpachecker.core.interfaces.IterationStatistics;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.reachedset.ConcurrentPartitionedReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.ForwardingReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.LocationMappedReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.PartitionedReachedSet;
@@ -420,12 +421,20 @@ class MainCPAStatistics implements Statistics, AlgorithmIterationListener {
       out.println("  Number of reached functions:   " + functions.size() + " (" + StatisticsUtils.toPercent(functions.size(), cfa.getNumberOfFunctions()) + ")");
     }
 
+    int partitions = 0;
+    Map.Entry<Object, Collection<AbstractState>> maxPartition = null;
     if (reached instanceof PartitionedReachedSet) {
       PartitionedReachedSet p = (PartitionedReachedSet)reached;
-      int partitions = p.getNumberOfPartitions();
+      partitions = p.getNumberOfPartitions();
+      maxPartition = p.getMaxPartition();
+    } else if (reached instanceof ConcurrentPartitionedReachedSet) {
+      ConcurrentPartitionedReachedSet p = (ConcurrentPartitionedReachedSet)reached;
+      partitions = p.getNumberOfPartitions();
+      maxPartition = p.getMaxPartition();
+    }
+    if (partitions > 0) {
       out.println("  Number of partitions:          " + partitions);
       out.println("    Avg size of partitions:      " + reachedSize / partitions);
-      Map.Entry<Object, Collection<AbstractState>> maxPartition = p.getMaxPartition();
       out.print  ("    Max size of partitions:      " + maxPartition.getValue().size());
       if (maxPartition.getValue().size() > 1) {
         out.println(" (with key " + maxPartition.getKey() + ")");
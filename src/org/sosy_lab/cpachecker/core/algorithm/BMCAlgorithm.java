@@ -39,17 +39,28 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
 
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
+import org.sosy_lab.common.concurrency.Threads;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.FileOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.io.Path;
 import org.sosy_lab.common.io.PathTemplate;
 import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.TimeSpan;
 import org.sosy_lab.common.time.Timer;
 import org.sosy_lab.cpachecker.cfa.CFA;
 import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
@@ -59,6 +70,7 @@ import org.sosy_lab.cpachecker.cfa.model.c.CFunctionReturnEdge;
 import org.sosy_lab.cpachecker.cfa.postprocessing.global.singleloop.CFASingleLoopTransformation;
 import org.sosy_lab.cpachecker.cfa.types.MachineModel;
 import org.sosy_lab.cpachecker.cfa.types.c.CType;
+import org.sosy_lab.cpachecker.core.CPABuilder;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.CounterexampleInfo;
 import org.sosy_lab.cpachecker.core.ShutdownNotifier;
@@ -116,13 +128,17 @@ import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.base.Throwables;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 
 @Options(prefix="bmc")
 public class BMCAlgorithm implements Algorithm, StatisticsProvider {
 
+  private static final String ERROR_VARIABLE_PREFIX = "__BMC_ERROR_";
+
   private static final Predicate<AbstractState> IS_STOP_STATE =
     Predicates.compose(new Predicate<AssumptionStorageState>() {
                              @Override
@@ -134,20 +150,46 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
 
   private static class BMCStatistics implements Statistics {
 
+    private final Timer unrolling = new Timer();
+    private final Timer formulaCreation = new Timer();
     private final Timer satCheck = new Timer();
     private final Timer errorPathCreation = new Timer();
     private final Timer assertionsCheck = new Timer();
 
     private final Timer inductionPreparation = new Timer();
     private final Timer inductionCheck = new Timer();
-    private Timer invariantGeneration;
+    private List<Timer> invariantGeneration;
     private int inductionCutPoints = 0;
 
+    private final List<RoundStatistics> rounds = new ArrayList<>();
+
+    private void finishRound(int pBound) {
+      rounds.add(new RoundStatistics(pBound,
+          unrolling.getLengthOfLastInterval(),
+          formulaCreation.getLengthOfLastInterval(),
+          satCheck.getLengthOfLastInterval()));
+    }
+
     @Override
     public void printStatistics(PrintStream out, Result pResult, ReachedSet pReached) {
+      if (unrolling.getNumberOfIntervals() > 0) {
+        out.println("Time for unrolling:                  " + unrolling);
+      }
+      if (formulaCreation.getNumberOfIntervals() > 0) {
+        out.println("Time for program formula creation:   " + formulaCreation);
+      }
       if (satCheck.getNumberOfIntervals() > 0) {
         out.println("Time for final sat check:            " + satCheck);
       }
+      if (!rounds.isEmpty()) {
+        out.println("Time per bound (unrolling / formula creation / sat check):");
+        for (RoundStatistics round : rounds) {
+          out.println(String.format("  k=%-4d %s / %s / %s", round.bound,
+              round.unrolling.formatAs(TimeUnit.SECONDS),
+              round.formulaCreation.formatAs(TimeUnit.SECONDS),
+              round.satCheck.formatAs(TimeUnit.SECONDS)));
+        }
+      }
       if (errorPathCreation.getNumberOfIntervals() > 0) {
         out.println("Time for error path creation:        " + errorPathCreation);
       }
@@ -157,8 +199,16 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
       if (inductionCheck.getNumberOfIntervals() > 0) {
         out.println("Number of cut points for induction:  " + inductionCutPoints);
         out.println("Time for induction formula creation: " + inductionPreparation);
-        if (invariantGeneration.getNumberOfIntervals() > 0) {
-          out.println("  Time for invariant generation:     " + invariantGeneration);
+        if (invariantGeneration.size() == 1) {
+          if (invariantGeneration.get(0).getNumberOfIntervals() > 0) {
+            out.println("  Time for invariant generation:     " + invariantGeneration.get(0));
+          }
+        } else {
+          for (int i = 0; i < invariantGeneration.size(); i++) {
+            if (invariantGeneration.get(i).getNumberOfIntervals() > 0) {
+              out.println("  Time for invariant generation " + (i+1) + ":   " + invariantGeneration.get(i));
+            }
+          }
         }
         out.println("Time for induction check:            " + inductionCheck);
       }
@@ -170,6 +220,22 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
     }
   }
 
+  /** The times spent for one bound of the bounded model check. */
+  private static class RoundStatistics {
+
+    private final int bound;
+    private final TimeSpan unrolling;
+    private final TimeSpan formulaCreation;
+    private final TimeSpan satCheck;
+
+    private RoundStatistics(int pBound, TimeSpan pUnrolling, TimeSpan pFormulaCreation, TimeSpan pSatCheck) {
+      bound = pBound;
+      unrolling = pUnrolling;
+      formulaCreation = pFormulaCreation;
+      satCheck = pSatCheck;
+    }
+  }
+
   @Option(secure=true, description = "If BMC did not find a bug, check whether "
       + "the bounding did actually remove parts of the state space "
       + "(this is similar to CBMC's unwinding assertions).")
@@ -181,12 +247,36 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
       + "cpa.predicate.targetStateSatCheck=true.")
   private boolean checkTargetStates = true;
 
+  @Option(secure=true, description="Keep one solver stack for all bounds: the formulas of "
+      + "the newly unrolled target states are added as a definition of a fresh "
+      + "error variable that stays on the stack, and only the error variable "
+      + "of the current bound is checked with push/pop. This lets the solver "
+      + "reuse what it learned for the previous bounds.")
+  private boolean incremental = false;
+
   @Option(secure=true, description="try using induction to verify programs with loops")
   private boolean induction = false;
 
   @Option(secure=true, description="Generate invariants and add them to the induction hypothesis.")
   private boolean useInvariantsForInduction = false;
 
+  @Option(secure=true, description="Configuration files for invariant generators "
+      + "that run concurrently to each other and to the analysis "
+      + "if invariants are used for induction. Each generator publishes its "
+      + "invariants as soon as one of its rounds is finished, and the "
+      + "induction hypothesis is strengthened with the conjunction of all "
+      + "invariants available so far. If empty, a single invariant generator "
+      + "is configured by the options invariantGeneration.*.")
+  @FileOption(FileOption.Type.REQUIRED_INPUT_FILE)
+  private List<Path> invariantGenerationConfigFiles = ImmutableList.of();
+
+  @Option(secure=true, description="Check the inductive step of k-induction in a separate thread, "
+      + "concurrently to the base case. The inductive step runs on an independent "
+      + "copy of the analysis with its own solver context, and the step case "
+      + "for the next bound is started while the base case for the current bound "
+      + "is still being checked.")
+  private boolean parallelInductionStep = false;
+
   @Option(secure=true, description="Generate additional invariants by induction and add them to the induction hypothesis.")
   private boolean addInvariantsByInduction = true;
 
@@ -200,11 +290,11 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
   @FileOption(FileOption.Type.OUTPUT_FILE)
   private PathTemplate dumpCounterexampleFormula = PathTemplate.ofFormatString("ErrorPath.%d.smt2");
 
-  private final BMCStatistics stats = new BMCStatistics();
+  private final BMCStatistics stats;
   private final Algorithm algorithm;
   private final ConfigurableProgramAnalysis cpa;
 
-  private final InvariantGenerator invariantGenerator;
+  private final List<InvariantGenerator> invariantGenerators;
 
   private final FormulaManagerView fmgr;
   private final PathFormulaManager pmgr;
@@ -221,11 +311,35 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
 
   private final BooleanFormulaManagerView bfmgr;
 
+  /** Number of error variables defined so far in the incremental mode. */
+  private int errorVariables = 0;
+
+  /**
+   * The configuration for the independent copy of this algorithm that checks
+   * the inductive step if {@link #parallelInductionStep} is enabled,
+   * {@code null} otherwise.
+   */
+  private final @Nullable Configuration inductionStepConfig;
+
   public BMCAlgorithm(Algorithm pAlgorithm, ConfigurableProgramAnalysis pCpa,
                       Configuration pConfig, LogManager pLogger,
                       ReachedSetFactory pReachedSetFactory,
                       ShutdownNotifier pShutdownNotifier, CFA pCfa)
                       throws InvalidConfigurationException, CPAException {
+    this(pAlgorithm, pCpa, pConfig, pLogger, pReachedSetFactory, pShutdownNotifier, pCfa, null);
+  }
+
+  /**
+   * Creates the algorithm. If a base-case algorithm is given, the new
+   * instance is only used for checking the inductive step on behalf of it
+   * and shares its statistics and invariant generators.
+   */
+  private BMCAlgorithm(Algorithm pAlgorithm, ConfigurableProgramAnalysis pCpa,
+                      Configuration pConfig, LogManager pLogger,
+                      ReachedSetFactory pReachedSetFactory,
+                      ShutdownNotifier pShutdownNotifier, CFA pCfa,
+                      @Nullable BMCAlgorithm pBaseCaseAlgorithm)
+                      throws InvalidConfigurationException, CPAException {
     pConfig.inject(this);
 
     algorithm = pAlgorithm;
@@ -234,13 +348,6 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
     reachedSetFactory = pReachedSetFactory;
     cfa = pCfa;
 
-    if (induction && useInvariantsForInduction) {
-      invariantGenerator = new CPAInvariantGenerator(pConfig, pLogger, reachedSetFactory, pShutdownNotifier, cfa);
-    } else {
-      invariantGenerator = new DoNothingInvariantGenerator(reachedSetFactory);
-    }
-    stats.invariantGeneration = invariantGenerator.getTimeOfExecution();
-
     PredicateCPA predCpa = ((WrapperCPA)cpa).retrieveWrappedCpa(PredicateCPA.class);
     if (predCpa == null) {
       throw new InvalidConfigurationException("PredicateCPA needed for BMCAlgorithm");
@@ -252,6 +359,50 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
     shutdownNotifier = pShutdownNotifier;
     conditionCPAs = CPAs.asIterable(cpa).filter(AdjustableConditionCPA.class).toList();
     machineModel = predCpa.getMachineModel();
+
+    if (pBaseCaseAlgorithm != null) {
+      stats = pBaseCaseAlgorithm.stats;
+      invariantGenerators = pBaseCaseAlgorithm.invariantGenerators;
+      inductionStepConfig = null;
+      return;
+    }
+    stats = new BMCStatistics();
+
+    ImmutableList.Builder<InvariantGenerator> generators = ImmutableList.builder();
+    ImmutableList.Builder<Timer> generatorTimers = ImmutableList.builder();
+    if (induction && useInvariantsForInduction) {
+      if (invariantGenerationConfigFiles.isEmpty()) {
+        generators.add(new CPAInvariantGenerator(pConfig, pLogger, reachedSetFactory, pShutdownNotifier, cfa));
+      } else {
+        for (Path configFile : invariantGenerationConfigFiles) {
+          // each generator runs asynchronously on its own executor thread
+          Configuration generatorConfig = Configuration.builder()
+              .copyFrom(pConfig)
+              .setOption("invariantGeneration.config", configFile.toString())
+              .setOption("invariantGeneration.async", "true")
+              .build();
+          generators.add(new CPAInvariantGenerator(generatorConfig, pLogger, reachedSetFactory, pShutdownNotifier, cfa));
+        }
+      }
+    } else {
+      generators.add(new DoNothingInvariantGenerator(reachedSetFactory));
+    }
+    invariantGenerators = generators.build();
+    for (InvariantGenerator invariantGenerator : invariantGenerators) {
+      generatorTimers.add(invariantGenerator.getTimeOfExecution());
+    }
+    stats.invariantGeneration = generatorTimers.build();
+
+    if (induction && parallelInductionStep) {
+      // The formula manager of the copy is used only internally,
+      // it must not replace the one of this analysis.
+      inductionStepConfig = Configuration.builder()
+          .copyFrom(pConfig)
+          .setOption("cpa.predicate.storeFormulaManagerGlobally", "false")
+          .build();
+    } else {
+      inductionStepConfig = null;
+    }
   }
 
   @Override
@@ -260,7 +411,9 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
 
     CFANode initialLocation = extractLocation(reachedSet.getFirstState());
 
-    invariantGenerator.start(initialLocation);
+    for (InvariantGenerator invariantGenerator : invariantGenerators) {
+      invariantGenerator.start(initialLocation);
+    }
 
     try {
       logger.log(Level.INFO, "Creating formula for program");
@@ -268,12 +421,20 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
 
 
       try (ProverEnvironment prover = solver.newProverEnvironmentWithModelGeneration();
+          ParallelInductionStep parallelStep = induction && inductionStepConfig != null
+              ? new ParallelInductionStep() : null;
           @SuppressWarnings("resource")
-          KInductionProver kInductionProver = induction ? new KInductionProver() : null) {
+          KInductionProver sequentialInductionProver = induction && parallelStep == null
+              ? new KInductionProver() : null) {
+
+        // the prover of the parallel inductive step is closed together with its thread
+        KInductionProver kInductionProver = parallelStep != null
+            ? parallelStep.prover : sequentialInductionProver;
 
         ImmutableSet<BooleanFormula> potentialInvariants = null;
         Set<CFAEdge> relevantAssumeEdges = null;
         ImmutableSet<CFANode> targetLocations = null;
+        int round = 0;
         do {
           shutdownNotifier.shutdownIfNecessary();
 
@@ -283,15 +444,23 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
             }
             if (targetLocations != null && targetLocations.isEmpty()) {
               logger.log(Level.INFO, "Invariant generation found no target states.");
-              invariantGenerator.cancel();
+              cancelInvariantGeneration();
               for (AbstractState waitlistState : new ArrayList<>(pReachedSet.getWaitlist())) {
                 pReachedSet.removeOnlyFromWaitlist(waitlistState);
               }
               return true;
             }
+            if (parallelStep != null) {
+              parallelStep.schedule(round);
+            }
           }
 
-          soundInner = unroll(reachedSet);
+          stats.unrolling.start();
+          try {
+            soundInner = unroll(reachedSet);
+          } finally {
+            stats.unrolling.stop();
+          }
           if (from(reachedSet)
               .skip(1) // first state of reached is always an abstraction state, so skip it
               .transform(toState(PredicateAbstractState.class))
@@ -304,6 +473,9 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
           // first check safety
           boolean safe = checkTargetStates(reachedSet, prover);
           logger.log(Level.FINER, "Program is safe?:", safe);
+          if (checkTargetStates) {
+            stats.finishRound(getCurrentBound(round));
+          }
 
           if (!safe) {
             createErrorPath(reachedSet, prover);
@@ -318,11 +490,20 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
               if (relevantAssumeEdges == null || kInductionProver.haveCurrentPotentialTargetLocationsChanged()) {
                 relevantAssumeEdges = getRelevantAssumeEdges(pReachedSet, targetLocations);
               }
-              if (potentialInvariants != null) {
+              if (potentialInvariants != null && parallelStep == null) {
                 potentialInvariants = from(potentialInvariants).filter(not(in(kInductionProver.knownLoopHeadInvariants))).toSet();
               }
               potentialInvariants = guessLoopHeadInvariants(reachedSet, relevantAssumeEdges, prover, kInductionProver.getLoop(), potentialInvariants);
-              potentialInvariants = kInductionProver.setPotentialLoopHeadInvariants(potentialInvariants);
+              if (parallelStep == null) {
+                potentialInvariants = kInductionProver.setPotentialLoopHeadInvariants(potentialInvariants);
+              } else {
+                // the inductive step uses a different formula manager
+                ImmutableList.Builder<String> dumpedInvariants = ImmutableList.builder();
+                for (BooleanFormula potentialInvariant : potentialInvariants) {
+                  dumpedInvariants.add(fmgr.dumpFormula(potentialInvariant).toString());
+                }
+                kInductionProver.setDumpedPotentialLoopHeadInvariants(dumpedInvariants.build());
+              }
             }
           }
 
@@ -337,19 +518,24 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
 
             // try to prove program safety via induction
             if (induction) {
-              sound = sound || kInductionProver.check();
+              if (parallelStep != null) {
+                sound = sound || parallelStep.getResult(round);
+              } else {
+                sound = sound || kInductionProver.check();
+              }
             }
             if (sound) {
               return true;
             }
           }
+          ++round;
         }
         while (soundInner && adjustConditions());
       }
 
       return false;
     } finally {
-      invariantGenerator.cancel();
+      cancelInvariantGeneration();
       if (reachedSet != pReachedSet) {
         pReachedSet.clear();
         ReachedSetUtils.addReachedStatesToOtherReached(reachedSet, pReachedSet);
@@ -357,6 +543,24 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
     }
   }
 
+  /**
+   * Gets the current loop bound, or the given round number counted from one
+   * if the loop bound is not known.
+   */
+  private int getCurrentBound(int pRound) {
+    LoopstackCPA loopstackCPA = CPAs.retrieveCPA(cpa, LoopstackCPA.class);
+    if (loopstackCPA == null) {
+      return pRound + 1;
+    }
+    return loopstackCPA.getMaxLoopIterations();
+  }
+
+  private void cancelInvariantGeneration() {
+    for (InvariantGenerator invariantGenerator : invariantGenerators) {
+      invariantGenerator.cancel();
+    }
+  }
+
   private ImmutableSet<BooleanFormula> guessLoopHeadInvariants(ReachedSet pReachedSet, final Set<CFAEdge> pAssumeEdges,
       ProverEnvironment pProver, Loop pLoop, ImmutableSet<BooleanFormula> pPreviousLoopHeadInvariants) throws CPAException, InterruptedException {
 
@@ -622,10 +826,19 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
       logger.log(Level.FINER, "Found", targetStates.size(), "potential target states");
 
       // create formula
+      stats.formulaCreation.start();
       BooleanFormula program = createFormulaFor(targetStates);
+      stats.formulaCreation.stop();
 
       logger.log(Level.INFO, "Starting satisfiability check...");
       stats.satCheck.start();
+      if (incremental) {
+        // The definition stays on the stack for all following bounds
+        // and constrains nothing but the fresh error variable.
+        BooleanFormula errorVariable = bfmgr.makeVariable(ERROR_VARIABLE_PREFIX + errorVariables++);
+        prover.push(bfmgr.equivalence(errorVariable, program));
+        program = errorVariable;
+      }
       prover.push(program);
       boolean safe = prover.isUnsat();
       // leave program formula on solver stack
@@ -735,7 +948,17 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
 
     private ProverEnvironment prover = null;
 
-    private UnmodifiableReachedSet invariantsReachedSet;
+    /**
+     * The reached sets of the invariant generators (one per generator) from
+     * which the invariants currently on the prover stack were extracted.
+     */
+    private List<UnmodifiableReachedSet> invariantsReachedSets;
+
+    /**
+     * The reached sets of the invariant generators (one per generator) from
+     * which {@link #currentInvariants} were extracted.
+     */
+    private List<UnmodifiableReachedSet> currentInvariantsReachedSets;
 
     private BooleanFormula currentInvariants = bfmgr.makeBoolean(true);
 
@@ -754,9 +977,16 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
     @GuardedBy("this")
     private ImmutableSet<BooleanFormula> potentialLoopHeadInvariants = ImmutableSet.of();
 
+    /**
+     * Candidate loop-head invariants dumped by a different formula manager
+     * that still need to be parsed, or {@code null} if there are none.
+     */
+    @GuardedBy("this")
+    private ImmutableList<String> dumpedPotentialLoopHeadInvariants = null;
+
     private Set<BooleanFormula> knownLoopHeadInvariants = new HashSet<>();
 
-    private boolean invariantGenerationRunning = true;
+    private final boolean[] invariantGenerationRunning = new boolean[invariantGenerators.size()];
 
     /**
      * Creates an instance of the KInductionProver.
@@ -776,11 +1006,11 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
         // e.g. it is ok if there is only a single loop on each path.
         if (loops.getCount() > 1) {
           logger.log(Level.WARNING, "Could not use induction for proving program safety, program has too many loops");
-          invariantGenerator.cancel();
+          cancelInvariantGeneration();
           trivialResult = false;
         } else if (loops.getCount() == 0) {
           // induction is unnecessary, program has no loops
-          invariantGenerator.cancel();
+          cancelInvariantGeneration();
           trivialResult = true;
         } else {
           stats.inductionPreparation.start();
@@ -805,7 +1035,13 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
           stats.inductionPreparation.stop();
         }
       }
-      invariantsReachedSet = reachedSetFactory.create();
+      List<UnmodifiableReachedSet> emptyReachedSets = new ArrayList<>(invariantGenerators.size());
+      for (int i = 0; i < invariantGenerators.size(); i++) {
+        emptyReachedSets.add(reachedSetFactory.create());
+        invariantGenerationRunning[i] = true;
+      }
+      invariantsReachedSets = Collections.unmodifiableList(emptyReachedSets);
+      currentInvariantsReachedSets = invariantsReachedSets;
       this.reachedSet = reachedSet;
       this.loop = loop;
     }
@@ -816,8 +1052,28 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
       }
     }
 
+    /**
+     * Sets the candidate loop-head invariants from their dumps created by a
+     * different formula manager. The dumps are parsed by the thread that
+     * performs the next check, because the formula manager of this prover
+     * must not be used concurrently.
+     */
+    public void setDumpedPotentialLoopHeadInvariants(ImmutableList<String> pDumpedPotentialLoopHeadInvariants) {
+      synchronized (this) {
+        this.dumpedPotentialLoopHeadInvariants = pDumpedPotentialLoopHeadInvariants;
+      }
+    }
+
     private ImmutableSet<BooleanFormula> getPotentialLoopHeadInvariants() {
       synchronized (this) {
+        if (dumpedPotentialLoopHeadInvariants != null) {
+          ImmutableSet.Builder<BooleanFormula> parsedInvariants = ImmutableSet.builder();
+          for (String dumpedInvariant : dumpedPotentialLoopHeadInvariants) {
+            parsedInvariants.add(fmgr.parse(dumpedInvariant));
+          }
+          dumpedPotentialLoopHeadInvariants = null;
+          setPotentialLoopHeadInvariants(parsedInvariants.build());
+        }
         return this.potentialLoopHeadInvariants;
       }
     }
@@ -899,13 +1155,15 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
      * interrupted.
      */
     private ProverEnvironment getProver() throws CPAException, InterruptedException {
-      UnmodifiableReachedSet currentInvariantsReachedSet = getCurrentInvariantsReachedSet();
-      if (currentInvariantsReachedSet != invariantsReachedSet || !isProverInitialized()) {
+      List<UnmodifiableReachedSet> currentInvariantsReachedSets = getCurrentInvariantsReachedSets();
+      if (haveChanged(invariantsReachedSets, currentInvariantsReachedSets) || !isProverInitialized()) {
         CFANode loopHead = Iterables.getOnlyElement(getLoop().getLoopHeads());
-        invariantsReachedSet = currentInvariantsReachedSet;
+        invariantsReachedSets = currentInvariantsReachedSets;
         // get global invariants
         BooleanFormula invariants = getCurrentInvariants();
-        injectInvariants(currentInvariantsReachedSet, loopHead);
+        for (UnmodifiableReachedSet currentInvariantsReachedSet : currentInvariantsReachedSets) {
+          injectInvariants(currentInvariantsReachedSet, loopHead);
+        }
         if (isProverInitialized()) {
           pop();
         } else {
@@ -918,34 +1176,76 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
       return prover;
     }
 
-    private UnmodifiableReachedSet getCurrentInvariantsReachedSet() {
-      if (!invariantGenerationRunning) {
-        return invariantsReachedSet;
+    /**
+     * Gets the most recent reached set published by each invariant generator.
+     * If a generator has failed, the last reached set it published is kept.
+     *
+     * @return the most recent reached sets, in the order of the generators.
+     */
+    private List<UnmodifiableReachedSet> getCurrentInvariantsReachedSets() {
+      List<UnmodifiableReachedSet> result = new ArrayList<>(invariantGenerators.size());
+      for (int i = 0; i < invariantGenerators.size(); i++) {
+        UnmodifiableReachedSet previous = invariantsReachedSets.get(i);
+        if (!invariantGenerationRunning[i]) {
+          result.add(previous);
+          continue;
+        }
+        try {
+          result.add(invariantGenerators.get(i).get());
+        } catch (CPAException e) {
+          logger.log(Level.FINE, "Invariant generation encountered an exception.", e);
+          invariantGenerationRunning[i] = false;
+          result.add(previous);
+        } catch (InterruptedException e) {
+          logger.log(Level.FINE, "Invariant generation has terminated:", e);
+          invariantGenerationRunning[i] = false;
+          result.add(previous);
+        }
       }
-      try {
-        return invariantGenerator.get();
-      } catch (CPAException e) {
-        logger.log(Level.FINE, "Invariant generation encountered an exception.", e);
-        invariantGenerationRunning = false;
-        return invariantsReachedSet;
-      } catch (InterruptedException e) {
-        logger.log(Level.FINE, "Invariant generation has terminated:", e);
-        invariantGenerationRunning = false;
-        return invariantsReachedSet;
+      return Collections.unmodifiableList(result);
+    }
+
+    private boolean isInvariantGenerationRunning() {
+      for (boolean running : invariantGenerationRunning) {
+        if (running) {
+          return true;
+        }
       }
+      return false;
     }
 
     /**
-     * Gets the most current invariants generated by the invariant generator.
+     * Checks whether any invariant generator published a new reached set.
+     * Reached sets are compared by identity, because each completed round of
+     * a generator publishes a new instance.
+     */
+    private boolean haveChanged(List<UnmodifiableReachedSet> pOld, List<UnmodifiableReachedSet> pNew) {
+      assert pOld.size() == pNew.size();
+      for (int i = 0; i < pOld.size(); i++) {
+        if (pOld.get(i) != pNew.get(i)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Gets the most current invariants generated by the invariant generators,
+     * i.e., the conjunction of the invariants available from each generator.
      *
-     * @return the most current invariants generated by the invariant generator.
+     * @return the most current invariants generated by the invariant generators.
      */
     private BooleanFormula getCurrentInvariants() {
-      if (!bfmgr.isFalse(currentInvariants) && invariantGenerationRunning) {
-        UnmodifiableReachedSet currentInvariantsReachedSet = getCurrentInvariantsReachedSet();
-        if (currentInvariantsReachedSet != invariantsReachedSet || haveCurrentPotentialTargetLocationsChanged()) {
+      if (!bfmgr.isFalse(currentInvariants) && isInvariantGenerationRunning()) {
+        List<UnmodifiableReachedSet> currentReachedSets = getCurrentInvariantsReachedSets();
+        if (haveChanged(currentInvariantsReachedSets, currentReachedSets) || haveCurrentPotentialTargetLocationsChanged()) {
           CFANode loopHead = Iterables.getOnlyElement(getLoop().getLoopHeads());
-          currentInvariants = extractInvariantsAt(currentInvariantsReachedSet, loopHead);
+          BooleanFormula invariants = bfmgr.makeBoolean(true);
+          for (UnmodifiableReachedSet currentReachedSet : currentReachedSets) {
+            invariants = bfmgr.and(invariants, extractInvariantsAt(currentReachedSet, loopHead));
+          }
+          currentInvariants = invariants;
+          currentInvariantsReachedSets = currentReachedSets;
         }
       }
       return currentInvariants;
@@ -1036,7 +1336,7 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
       // Check if the invariant generation was able to prove correctness for the program
       if (targetLocations != null && AbstractStates.filterLocations(pReachedSet, targetLocations).isEmpty()) {
         logger.log(Level.INFO, "Invariant generation found no target states.");
-        invariantGenerator.cancel();
+        cancelInvariantGeneration();
         return bfmgr.makeBoolean(false);
       }
 
@@ -1191,18 +1491,18 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
       push(bfmgr.or(unsafeSuccessor, combinedPotentialLoopHeadInvariantContradiction)); // combined contradiction to successor safety or loop invariant
       boolean sound = prover.isUnsat();
 
-      UnmodifiableReachedSet localInvariantsReachedSet = invariantsReachedSet;
-      UnmodifiableReachedSet currentInvariantsReachedSet = getCurrentInvariantsReachedSet();
+      List<UnmodifiableReachedSet> localInvariantsReachedSets = invariantsReachedSets;
+      List<UnmodifiableReachedSet> currentInvariantsReachedSets = getCurrentInvariantsReachedSets();
 
       int pushed = 0;
-      while (!sound && currentInvariantsReachedSet != localInvariantsReachedSet) {
-        localInvariantsReachedSet = currentInvariantsReachedSet;
+      while (!sound && haveChanged(localInvariantsReachedSets, currentInvariantsReachedSets)) {
+        localInvariantsReachedSets = currentInvariantsReachedSets;
         BooleanFormula invariants = getCurrentInvariants();
         invariants = fmgr.instantiate(invariants, SSAMap.emptySSAMap().withDefault(1));
         push(invariants);
         ++pushed;
         sound = prover.isUnsat();
-        currentInvariantsReachedSet = getCurrentInvariantsReachedSet();
+        currentInvariantsReachedSets = getCurrentInvariantsReachedSets();
       }
 
       pop(); // pop combined contradiction
@@ -1214,15 +1514,15 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
         sound = prover.isUnsat();
 
         getCurrentInvariants();
-        currentInvariantsReachedSet = invariantsReachedSet;
-        while (!sound && currentInvariantsReachedSet != localInvariantsReachedSet) {
-          localInvariantsReachedSet = currentInvariantsReachedSet;
+        currentInvariantsReachedSets = this.currentInvariantsReachedSets;
+        while (!sound && haveChanged(localInvariantsReachedSets, currentInvariantsReachedSets)) {
+          localInvariantsReachedSets = currentInvariantsReachedSets;
           BooleanFormula invariants = getCurrentInvariants();
           invariants = fmgr.instantiate(invariants, SSAMap.emptySSAMap().withDefault(1));
           push(invariants);
           ++pushed;
           sound = prover.isUnsat();
-          currentInvariantsReachedSet = getCurrentInvariantsReachedSet();
+          currentInvariantsReachedSets = getCurrentInvariantsReachedSets();
         }
 
         if (!sound && logger.wouldBeLogged(Level.ALL)) {
@@ -1415,6 +1715,105 @@ public class BMCAlgorithm implements Algorithm, StatisticsProvider {
     return pPrecision;
   }
 
+  /**
+   * Checks the inductive step with a {@link KInductionProver} belonging to
+   * an independent copy of this algorithm on a separate thread.
+   * The copy has its own CPAs (with their own loop bound), its own solver context
+   * (because neither is thread-safe), and its own shutdown notifier,
+   * and is created anew for each run and closed afterwards. Each round of the
+   * base case has a corresponding round of the inductive step, and the round
+   * after the current one is scheduled in advance, so that the step case for
+   * the next bound can already run while the base case is still unrolling.
+   */
+  private class ParallelInductionStep implements AutoCloseable {
+
+    private final ShutdownNotifier stepShutdownNotifier;
+    private final ConfigurableProgramAnalysis stepCpa;
+    private final BMCAlgorithm stepAlgorithm;
+    private final KInductionProver prover;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+        Threads.threadFactoryBuilder().setNameFormat("BMC induction step").setDaemon(true).build());
+
+    private final List<Future<Boolean>> rounds = new ArrayList<>();
+
+    private ParallelInductionStep() throws CPAException {
+      stepShutdownNotifier = ShutdownNotifier.createWithParent(shutdownNotifier);
+      try {
+        stepCpa = new CPABuilder(inductionStepConfig, logger, stepShutdownNotifier, reachedSetFactory).buildCPAs(cfa);
+        try {
+          Algorithm cpaAlgorithm = CPAAlgorithm.create(stepCpa, logger, inductionStepConfig, stepShutdownNotifier);
+          stepAlgorithm = new BMCAlgorithm(cpaAlgorithm, stepCpa, inductionStepConfig, logger,
+              reachedSetFactory, stepShutdownNotifier, cfa, BMCAlgorithm.this);
+        } catch (InvalidConfigurationException | CPAException | RuntimeException e) {
+          CPAs.closeCpaIfPossible(stepCpa, logger);
+          throw e;
+        }
+      } catch (InvalidConfigurationException e) {
+        // the same configuration was already used for the analysis of the base case
+        throw new CPAException("Could not create the analysis for the inductive step", e);
+      }
+      prover = stepAlgorithm.new KInductionProver();
+    }
+
+    /**
+     * Makes sure that the inductive steps up to the round after the given
+     * one are scheduled.
+     */
+    private void schedule(int pRound) {
+      while (rounds.size() <= pRound + 1) {
+        final int round = rounds.size();
+        rounds.add(executor.submit(new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() throws CPAException, InterruptedException {
+            // Mirror the condition adjustments (e.g., the loop bound) that
+            // the base case performs before its corresponding round.
+            if (round > 0 && !stepAlgorithm.adjustConditions()) {
+              return false;
+            }
+            return prover.check();
+          }
+        }));
+      }
+    }
+
+    /**
+     * Waits for the result of the inductive step of the given round.
+     */
+    private boolean getResult(int pRound) throws CPAException, InterruptedException {
+      schedule(pRound);
+      try {
+        return rounds.get(pRound).get();
+      } catch (ExecutionException e) {
+        Throwables.propagateIfPossible(e.getCause(), CPAException.class, InterruptedException.class);
+        throw new UnexpectedCheckedException("inductive step", e.getCause());
+      }
+    }
+
+    @Override
+    public void close() {
+      executor.shutdownNow();
+      for (Future<Boolean> round : rounds) {
+        if (!round.isDone()) {
+          // stop the solver of the inductive step, it is not needed anymore
+          stepShutdownNotifier.requestShutdown("Base case finished");
+          break;
+        }
+      }
+      try {
+        // the prover of the inductive step must only be closed after its thread finished
+        while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+          logger.log(Level.FINE, "Waiting for the inductive step to terminate");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      prover.close();
+      CPAs.closeCpaIfPossible(stepCpa, logger);
+    }
+  }
+
   private static interface CounterexampleStorage {
 
     void addCounterexample(ARGState pTargetState, CounterexampleInfo pCounterexample);
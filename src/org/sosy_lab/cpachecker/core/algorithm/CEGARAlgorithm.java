@@ -40,14 +40,18 @@ import org.sosy_lab.common.Classes;
 import org.sosy_lab.common.Classes.UnexpectedCheckedException;
 import org.sosy_lab.common.configuration.ClassOption;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.common.time.Timer;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
+import org.sosy_lab.cpachecker.core.interfaces.GlobalRefiner;
 import org.sosy_lab.cpachecker.core.interfaces.Refiner;
+import org.sosy_lab.cpachecker.core.interfaces.SnapshotStatistics;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
@@ -55,6 +59,8 @@ import org.sosy_lab.cpachecker.cpa.value.refiner.UnsoundRefiner;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.exceptions.InvalidComponentException;
 import org.sosy_lab.cpachecker.exceptions.RefinementFailedException;
+import org.sosy_lab.cpachecker.util.statistics.EventRecorder;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsSnapshot;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
@@ -64,7 +70,7 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 @Options(prefix="cegar")
 public class CEGARAlgorithm implements Algorithm, StatisticsProvider {
 
-  private static class CEGARStatistics implements Statistics {
+  private static class CEGARStatistics implements SnapshotStatistics {
 
     private final Timer totalTimer = new Timer();
     private final Timer refinementTimer = new Timer();
@@ -79,12 +85,21 @@ public class CEGARAlgorithm implements Algorithm, StatisticsProvider {
     private int maxReachedSizeAfterRefinement = 0;
     private long totalReachedSizeBeforeRefinement = 0;
     private long totalReachedSizeAfterRefinement = 0;
+    private long totalTargetStatesForRefinement = 0;
 
     @Override
     public String getName() {
       return "CEGAR algorithm";
     }
 
+    @Override
+    public void putSnapshotValues(StatisticsSnapshot pSnapshot) {
+      pSnapshot.put("refinements", countRefinements);
+      pSnapshot.put("successfulRefinements", countSuccessfulRefinements);
+      pSnapshot.put("failedRefinements", countFailedRefinements);
+      pSnapshot.put("refinementTime", refinementTimer.getSumTime().asMillis());
+    }
+
     @Override
     public void printStatistics(PrintStream out, Result pResult,
         ReachedSet pReached) {
@@ -98,6 +113,9 @@ public class CEGARAlgorithm implements Algorithm, StatisticsProvider {
         out.println("Max. size of reached set after ref.:  " + maxReachedSizeAfterRefinement);
         out.println("Avg. size of reached set before ref.: " + div(totalReachedSizeBeforeRefinement, countRefinements));
         out.println("Avg. size of reached set after ref.:  " + div(totalReachedSizeAfterRefinement, countSuccessfulRefinements));
+        if (totalTargetStatesForRefinement > 0) {
+          out.println("Avg. target states per refinement:    " + div(totalTargetStatesForRefinement, countRefinements));
+        }
         out.println("");
         out.println("Total time for CEGAR algorithm:   " + totalTimer);
         out.println("Time for refinements:             " + refinementTimer);
@@ -149,6 +167,15 @@ public class CEGARAlgorithm implements Algorithm, StatisticsProvider {
   @Option(secure=true, name="globalRefinement", description="Whether to do refinement immediately after finding an error state, or globally after the ARG has been unrolled completely.")
   private boolean globalRefinement = false;
 
+  @Option(secure=true, description="Continue the exploration after finding an error state "
+      + "until this many error states were found (or the waitlist is empty), "
+      + "and refine all of them in one refinement step. "
+      + "This is only supported by refiners that handle all target states at once "
+      + "(ValueAnalysisRefiner, which can also check them in parallel, "
+      + "cf. cpa.value.refinement.threads, ValueAnalysisImpactRefiner and ImpactGlobalRefiner).")
+  @IntegerOption(min=1)
+  private int counterexamplesPerRefinement = 1;
+
   private final LogManager logger;
   private final Algorithm algorithm;
   private final Refiner mRefiner;
@@ -202,6 +229,7 @@ public class CEGARAlgorithm implements Algorithm, StatisticsProvider {
     this.logger = logger;
 
     mRefiner = createInstance(pCpa);
+    checkRefiner();
     new CEGARMBean(); // don't store it because we wouldn't know when to unregister anyway
   }
 
@@ -221,6 +249,17 @@ public class CEGARAlgorithm implements Algorithm, StatisticsProvider {
     this.algorithm = algorithm;
     this.logger = logger;
     mRefiner = Preconditions.checkNotNull(pRefiner);
+    checkRefiner();
+  }
+
+  private void checkRefiner() throws InvalidConfigurationException {
+    // Other refiners only refine the last state of the reached set,
+    // which is not a target state if the waitlist got empty while collecting target states.
+    if (counterexamplesPerRefinement > 1 && !(mRefiner instanceof GlobalRefiner)) {
+      throw new InvalidConfigurationException(mRefiner.getClass().getSimpleName()
+          + " cannot refine several counterexamples at once,"
+          + " please set cegar.counterexamplesPerRefinement to 1.");
+    }
   }
 
   @Override
@@ -236,6 +275,9 @@ public class CEGARAlgorithm implements Algorithm, StatisticsProvider {
 
         // run algorithm
         isComplete &= algorithm.run(reached);
+        if (counterexamplesPerRefinement > 1) {
+          isComplete &= collectMoreTargetStates(reached);
+        }
 
         // if there is any target state do refinement
         if (refinementNecessary(reached)) {
@@ -268,8 +310,38 @@ public class CEGARAlgorithm implements Algorithm, StatisticsProvider {
     return isComplete;
   }
 
+  /**
+   * Continue the exploration after a target state was found,
+   * until {@link #counterexamplesPerRefinement} target states are reached
+   * or the waitlist is empty.
+   */
+  private boolean collectMoreTargetStates(ReachedSet reached) throws CPAException, InterruptedException {
+    boolean isComplete = true;
+    AbstractState lastState = reached.getLastState();
+    int targetStates = isTargetState(lastState) ? 1 : 0;
+
+    while (targetStates > 0 && targetStates < counterexamplesPerRefinement
+        && reached.hasWaitingState()) {
+      isComplete &= algorithm.run(reached);
+
+      if (reached.getLastState() == lastState) {
+        break; // no progress
+      }
+      lastState = reached.getLastState();
+      if (isTargetState(lastState)) {
+        targetStates++;
+      }
+    }
+
+    if (targetStates > 0) {
+      logger.log(Level.FINE, "Collected", targetStates, "target states for refinement");
+      stats.totalTargetStatesForRefinement += targetStates;
+    }
+    return isComplete;
+  }
+
   private boolean refinementNecessary(ReachedSet reached) {
-    if (globalRefinement) {
+    if (globalRefinement || counterexamplesPerRefinement > 1) {
       // check other states
       return from(reached).anyMatch(IS_TARGET_STATE);
 
@@ -286,6 +358,8 @@ public class CEGARAlgorithm implements Algorithm, StatisticsProvider {
     stats.maxReachedSizeBeforeRefinement = Math.max(stats.maxReachedSizeBeforeRefinement, reached.size());
     sizeOfReachedSetBeforeRefinement = reached.size();
 
+    final AbstractState targetState = reached.getLastState();
+    long eventStart = EventRecorder.begin();
     stats.refinementTimer.start();
     boolean refinementResult;
     try {
@@ -296,6 +370,10 @@ public class CEGARAlgorithm implements Algorithm, StatisticsProvider {
       throw e;
     } finally {
       stats.refinementTimer.stop();
+      if (eventStart != 0) {
+        EventRecorder.end("refinement", eventStart,
+            extractLocation(targetState), mRefiner.getClass().getSimpleName());
+      }
     }
 
     logger.log(Level.FINE, "Refinement successful:", refinementResult);
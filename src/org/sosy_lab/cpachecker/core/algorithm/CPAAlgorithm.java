@@ -53,6 +53,7 @@ import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.core.interfaces.PrecisionAdjustment;
 import org.sosy_lab.cpachecker.core.interfaces.PrecisionAdjustment.Action;
 import org.sosy_lab.cpachecker.core.interfaces.PrecisionAdjustment.PrecisionAdjustmentResult;
+import org.sosy_lab.cpachecker.core.interfaces.SnapshotStatistics;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
 import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
@@ -61,12 +62,14 @@ import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
 import org.sosy_lab.cpachecker.cpa.arg.ARGMergeJoinPredicatedAnalysis;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.statistics.EventRecorder;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsSnapshot;
 
 import com.google.common.collect.Iterables;
 
 public class CPAAlgorithm implements Algorithm, StatisticsProvider {
 
-  private static class CPAStatistics implements Statistics {
+  private static class CPAStatistics implements SnapshotStatistics {
 
     private Timer totalTimer         = new Timer();
     private Timer chooseTimer        = new Timer();
@@ -91,6 +94,16 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
       return "CPA algorithm";
     }
 
+    @Override
+    public void putSnapshotValues(StatisticsSnapshot pSnapshot) {
+      pSnapshot.put("iterations", countIterations);
+      pSnapshot.put("maxWaitlistSize", maxWaitlistSize);
+      pSnapshot.put("successors", countSuccessors);
+      pSnapshot.put("merges", countMerge);
+      pSnapshot.put("stops", countStop);
+      pSnapshot.put("transferTime", transferTimer.getSumTime().asMillis());
+    }
+
     @Override
     public void printStatistics(PrintStream out, Result pResult,
         ReachedSet pReached) {
@@ -201,6 +214,16 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
     this.iterationListener = pIterationListener;
   }
 
+  /**
+   * Record an event for a complete operation of the analysis.
+   * The events of the single components are recorded by the composite operators.
+   */
+  private void recordEvent(String pName, long pStart, AbstractState pState) {
+    if (pStart != 0) {
+      EventRecorder.end(pName, pStart, AbstractStates.extractLocation(pState), "CPAAlgorithm");
+    }
+  }
+
   @Override
   public boolean run(final ReachedSet reachedSet) throws CPAException, InterruptedException {
     stats.totalTimer.start();
@@ -219,12 +242,6 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
   }
 
   private boolean run0(final ReachedSet reachedSet) throws CPAException, InterruptedException {
-    final TransferRelation transferRelation = cpa.getTransferRelation();
-    final MergeOperator mergeOperator = cpa.getMergeOperator();
-    final StopOperator stopOperator = cpa.getStopOperator();
-    final PrecisionAdjustment precisionAdjustment =
-        cpa.getPrecisionAdjustment();
-
     while (reachedSet.hasWaitingState()) {
       shutdownNotifier.shutdownIfNecessary();
 
@@ -238,165 +255,228 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
       }
       stats.countWaitlistSize += size;
 
+      long eventStart = EventRecorder.begin();
       stats.chooseTimer.start();
       final AbstractState state = reachedSet.popFromWaitlist();
       final Precision precision = reachedSet.getPrecision(state);
       stats.chooseTimer.stop();
+      recordEvent("choose", eventStart, state);
 
       logger.log(Level.FINER, "Retrieved state from waitlist");
       logger.log(Level.ALL, "Current state is", state, "with precision",
           precision);
 
-      if (forcedCovering != null) {
-        stats.forcedCoveringTimer.start();
-        try {
-          boolean stop = forcedCovering.tryForcedCovering(state, precision, reachedSet);
-
-          if (stop) {
-            // TODO: remove state from reached set?
-            continue;
-          }
-        } finally {
-          stats.forcedCoveringTimer.stop();
+      try {
+        if (handleState(state, precision, reachedSet)) {
+          return true;
         }
+      } catch (InterruptedException e) {
+        // Keep the reached set consistent (e.g., for checkpoints) if we are interrupted
+        // anywhere in this iteration. Successors that were already added are harmless,
+        // they will just be covered when the state is handled again.
+        reAddIfReached(state, reachedSet);
+        throw e;
       }
 
-      stats.transferTimer.start();
-      Collection<? extends AbstractState> successors;
+      if (iterationListener != null) {
+        iterationListener.afterAlgorithmIteration(this, reachedSet);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Handle a single state that was popped from the waitlist:
+   * forced covering, successor computation and {@link #handleSuccessors}.
+   * @return true if the analysis was requested to stop by {@link Action#BREAK}
+   */
+  private boolean handleState(final AbstractState state, final Precision precision,
+      final ReachedSet reachedSet) throws CPAException, InterruptedException {
+    final TransferRelation transferRelation = cpa.getTransferRelation();
+
+    if (forcedCovering != null) {
+      stats.forcedCoveringTimer.start();
       try {
-        successors = transferRelation.getAbstractSuccessors(state, precision);
+        boolean stop = forcedCovering.tryForcedCovering(state, precision, reachedSet);
+
+        if (stop) {
+          // TODO: remove state from reached set?
+          return false;
+        }
       } finally {
-        stats.transferTimer.stop();
+        stats.forcedCoveringTimer.stop();
       }
-      // TODO When we have a nice way to mark the analysis result as incomplete,
-      // we could continue analysis on a CPATransferException with the next state from waitlist.
+    }
 
-      int numSuccessors = successors.size();
-      logger.log(Level.FINER, "Current state has", numSuccessors,
-          "successors");
-      stats.countSuccessors += numSuccessors;
-      stats.maxSuccessors = Math.max(numSuccessors, stats.maxSuccessors);
+    long eventStart = EventRecorder.begin();
+    stats.transferTimer.start();
+    Collection<? extends AbstractState> successors;
+    try {
+      successors = transferRelation.getAbstractSuccessors(state, precision);
+    } finally {
+      stats.transferTimer.stop();
+      recordEvent("transfer", eventStart, state);
+    }
+    // TODO When we have a nice way to mark the analysis result as incomplete,
+    // we could continue analysis on a CPATransferException with the next state from waitlist.
 
-      for (AbstractState successor : Iterables.consumingIterable(successors)) {
-        logger.log(Level.FINER, "Considering successor of current state");
-        logger.log(Level.ALL, "Successor of", state, "\nis", successor);
+    int numSuccessors = successors.size();
+    logger.log(Level.FINER, "Current state has", numSuccessors,
+        "successors");
+    stats.countSuccessors += numSuccessors;
+    stats.maxSuccessors = Math.max(numSuccessors, stats.maxSuccessors);
 
-        stats.precisionTimer.start();
-        PrecisionAdjustmentResult precAdjustmentResult;
-        try {
-          precAdjustmentResult = precisionAdjustment.prec(successor, precision, reachedSet, successor);
-        } finally {
-          stats.precisionTimer.stop();
-        }
+    return handleSuccessors(state, precision, successors, reachedSet);
+  }
 
-        successor = precAdjustmentResult.abstractState();
-        Precision successorPrecision = precAdjustmentResult.precision();
-        Action action = precAdjustmentResult.action();
-
-        if (action == Action.BREAK) {
-          stats.stopTimer.start();
-          boolean stop;
-          try {
-            stop = stopOperator.stop(successor, reachedSet.getReached(successor), successorPrecision);
-          } finally {
-            stats.stopTimer.stop();
-          }
+  /**
+   * Put a state whose handling was interrupted back into the waitlist.
+   * The state may have been removed from the reached set by a merge in the meantime,
+   * then the merged state is in the waitlist and covers it.
+   */
+  private static void reAddIfReached(AbstractState state, ReachedSet reachedSet) {
+    if (reachedSet.contains(state)) {
+      reachedSet.reAddToWaitlist(state);
+    }
+  }
 
-          if (AbstractStates.isTargetState(successor) && stop) {
-            // don't signal BREAK for covered states
-            // no need to call merge and stop either, so just ignore this state
-            // and handle next successor
-            stats.countStop++;
-            logger.log(Level.FINER,
-                "Break was signalled but ignored because the state is covered.");
-            continue;
-
-          } else {
-            stats.countBreak++;
-            logger.log(Level.FINER, "Break signalled, CPAAlgorithm will stop.");
-
-            // add the new state
-            reachedSet.add(successor, successorPrecision);
-
-            if (!successors.isEmpty()) {
-              // re-add the old state to the waitlist, there are unhandled
-              // successors left that otherwise would be forgotten
-              reachedSet.reAddToWaitlist(state);
-            }
+  /**
+   * Apply precision adjustment, merge and stop to the successors of a state
+   * and add them to the reached set if necessary.
+   * Successors are removed from the given collection while they are handled.
+   * @return true if the analysis was requested to stop by {@link Action#BREAK}
+   */
+  private boolean handleSuccessors(final AbstractState state, final Precision precision,
+      final Collection<? extends AbstractState> successors, final ReachedSet reachedSet)
+      throws CPAException, InterruptedException {
+    final MergeOperator mergeOperator = cpa.getMergeOperator();
+    final StopOperator stopOperator = cpa.getStopOperator();
+    final PrecisionAdjustment precisionAdjustment =
+        cpa.getPrecisionAdjustment();
 
-            return true;
-          }
-        }
-        assert action == Action.CONTINUE : "Enum Action has unhandled values!";
-
-        Collection<AbstractState> reached = reachedSet.getReached(successor);
-
-        // An optimization, we don't bother merging if we know that the
-        // merge operator won't do anything (i.e., it is merge-sep).
-        if (mergeOperator != MergeSepOperator.getInstance() && !reached.isEmpty()) {
-          stats.mergeTimer.start();
-          try {
-            List<AbstractState> toRemove = new ArrayList<>();
-            List<Pair<AbstractState, Precision>> toAdd = new ArrayList<>();
-
-            logger.log(Level.FINER, "Considering", reached.size(),
-                "states from reached set for merge");
-            for (AbstractState reachedState : reached) {
-              AbstractState mergedState =
-                  mergeOperator.merge(successor, reachedState,
-                      successorPrecision);
-
-              if (!mergedState.equals(reachedState)) {
-                logger.log(Level.FINER,
-                    "Successor was merged with state from reached set");
-                logger.log(Level.ALL, "Merged", successor, "\nand",
-                    reachedState, "\n-->", mergedState);
-                stats.countMerge++;
-
-                toRemove.add(reachedState);
-                toAdd.add(Pair.of(mergedState, successorPrecision));
-              }
-            }
-            reachedSet.removeAll(toRemove);
-            reachedSet.addAll(toAdd);
+    for (AbstractState successor : Iterables.consumingIterable(successors)) {
+      logger.log(Level.FINER, "Considering successor of current state");
+      logger.log(Level.ALL, "Successor of", state, "\nis", successor);
 
-            if (mergeOperator instanceof ARGMergeJoinPredicatedAnalysis) {
-              ((ARGMergeJoinPredicatedAnalysis)mergeOperator).cleanUp(reachedSet);
-            }
+      long eventStart = EventRecorder.begin();
+      stats.precisionTimer.start();
+      PrecisionAdjustmentResult precAdjustmentResult;
+      try {
+        precAdjustmentResult = precisionAdjustment.prec(successor, precision, reachedSet, successor);
+      } finally {
+        stats.precisionTimer.stop();
+        recordEvent("precision adjustment", eventStart, successor);
+      }
 
-          } finally {
-            stats.mergeTimer.stop();
-          }
-        }
+      successor = precAdjustmentResult.abstractState();
+      Precision successorPrecision = precAdjustmentResult.precision();
+      Action action = precAdjustmentResult.action();
 
+      if (action == Action.BREAK) {
+        eventStart = EventRecorder.begin();
         stats.stopTimer.start();
         boolean stop;
         try {
-          stop = stopOperator.stop(successor, reached, successorPrecision);
+          stop = stopOperator.stop(successor, reachedSet.getReached(successor), successorPrecision);
         } finally {
           stats.stopTimer.stop();
+          recordEvent("stop", eventStart, successor);
         }
 
-        if (stop) {
-          logger.log(Level.FINER,
-              "Successor is covered or unreachable, not adding to waitlist");
+        if (AbstractStates.isTargetState(successor) && stop) {
+          // don't signal BREAK for covered states
+          // no need to call merge and stop either, so just ignore this state
+          // and handle next successor
           stats.countStop++;
+          logger.log(Level.FINER,
+              "Break was signalled but ignored because the state is covered.");
+          continue;
 
         } else {
-          logger.log(Level.FINER,
-              "No need to stop, adding successor to waitlist");
+          stats.countBreak++;
+          logger.log(Level.FINER, "Break signalled, CPAAlgorithm will stop.");
 
-          stats.addTimer.start();
+          // add the new state
           reachedSet.add(successor, successorPrecision);
-          stats.addTimer.stop();
+
+          if (!successors.isEmpty()) {
+            // re-add the old state to the waitlist, there are unhandled
+            // successors left that otherwise would be forgotten
+            reachedSet.reAddToWaitlist(state);
+          }
+
+          return true;
         }
       }
+      assert action == Action.CONTINUE : "Enum Action has unhandled values!";
 
-      if (iterationListener != null) {
-        iterationListener.afterAlgorithmIteration(this, reachedSet);
+      Collection<AbstractState> reached = reachedSet.getReached(successor);
+
+      // An optimization, we don't bother merging if we know that the
+      // merge operator won't do anything (i.e., it is merge-sep).
+      if (mergeOperator != MergeSepOperator.getInstance() && !reached.isEmpty()) {
+        eventStart = EventRecorder.begin();
+        stats.mergeTimer.start();
+        try {
+          List<AbstractState> toRemove = new ArrayList<>();
+          List<Pair<AbstractState, Precision>> toAdd = new ArrayList<>();
+
+          logger.log(Level.FINER, "Considering", reached.size(),
+              "states from reached set for merge");
+          for (AbstractState reachedState : reached) {
+            AbstractState mergedState =
+                mergeOperator.merge(successor, reachedState,
+                    successorPrecision);
+
+            if (!mergedState.equals(reachedState)) {
+              logger.log(Level.FINER,
+                  "Successor was merged with state from reached set");
+              logger.log(Level.ALL, "Merged", successor, "\nand",
+                  reachedState, "\n-->", mergedState);
+              stats.countMerge++;
+
+              toRemove.add(reachedState);
+              toAdd.add(Pair.of(mergedState, successorPrecision));
+            }
+          }
+          reachedSet.removeAll(toRemove);
+          reachedSet.addAll(toAdd);
+
+          if (mergeOperator instanceof ARGMergeJoinPredicatedAnalysis) {
+            ((ARGMergeJoinPredicatedAnalysis)mergeOperator).cleanUp(reachedSet);
+          }
+
+        } finally {
+          stats.mergeTimer.stop();
+          recordEvent("merge", eventStart, successor);
+        }
+      }
+
+      eventStart = EventRecorder.begin();
+      stats.stopTimer.start();
+      boolean stop;
+      try {
+        stop = stopOperator.stop(successor, reached, successorPrecision);
+      } finally {
+        stats.stopTimer.stop();
+        recordEvent("stop", eventStart, successor);
+      }
+
+      if (stop) {
+        logger.log(Level.FINER,
+            "Successor is covered or unreachable, not adding to waitlist");
+        stats.countStop++;
+
+      } else {
+        logger.log(Level.FINER,
+            "No need to stop, adding successor to waitlist");
+
+        stats.addTimer.start();
+        reachedSet.add(successor, successorPrecision);
+        stats.addTimer.stop();
       }
     }
-    return true;
+    return false;
   }
 
   @Override
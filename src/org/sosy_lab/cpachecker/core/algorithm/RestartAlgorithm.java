@@ -32,12 +32,23 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import javax.annotation.Nullable;
 
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
 import org.sosy_lab.common.Triple;
+import org.sosy_lab.common.concurrency.Threads;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.ConfigurationBuilder;
 import org.sosy_lab.common.configuration.FileOption;
@@ -61,13 +72,16 @@ import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
 import org.sosy_lab.cpachecker.core.reachedset.ForwardingReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
+import org.sosy_lab.cpachecker.cpa.predicate.PredicateCPA;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.util.AbstractStates;
 import org.sosy_lab.cpachecker.util.CPAs;
+import org.sosy_lab.cpachecker.util.globalinfo.GlobalInfo;
 import org.sosy_lab.cpachecker.util.resources.ResourceLimitChecker;
 
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.PeekingIterator;
 
@@ -76,6 +90,9 @@ public class RestartAlgorithm implements Algorithm, StatisticsProvider {
 
   private static final Splitter CONFIG_FILE_CONDITION_SPLITTER = Splitter.on("::").trimResults().limit(2);
 
+  /** How long to wait for the analyses of a portfolio to stop after a shutdown request. */
+  private static final long PORTFOLIO_TERMINATION_TIMEOUT_SECONDS = 10;
+
   private static class RestartAlgorithmStatistics implements Statistics {
 
     private final int noOfAlgorithms;
@@ -146,6 +163,16 @@ public class RestartAlgorithm implements Algorithm, StatisticsProvider {
   @FileOption(FileOption.Type.OPTIONAL_INPUT_FILE)
   private List<Path> configFiles;
 
+  @Option(secure=true, description = "Run the analyses of all configurations in parallel "
+      + "(as a portfolio) instead of one after another. "
+      + "The first analysis with a conclusive result wins and all other analyses are stopped. "
+      + "Conditions for configuration files are not supported in this mode. "
+      + "The cpu-time limit of each analysis is split equally between all analyses "
+      + "and applied to the main thread of the respective analysis "
+      + "(helper threads are counted only for the limit of the whole process). "
+      + "Memory limits cannot be split and apply to all analyses together.")
+  private boolean portfolio = false;
+
   private final LogManager logger;
   private final ShutdownNotifier shutdownNotifier;
   private final RestartAlgorithmStatistics stats;
@@ -162,6 +189,14 @@ public class RestartAlgorithm implements Algorithm, StatisticsProvider {
     if (configFiles.isEmpty()) {
       throw new InvalidConfigurationException("Need at least one configuration for restart algorithm!");
     }
+    if (portfolio) {
+      for (Path configFile : configFiles) {
+        if (CONFIG_FILE_CONDITION_SPLITTER.splitToList(configFile.toString()).size() > 1) {
+          throw new InvalidConfigurationException("Conditions for configuration files are not supported "
+              + "in portfolio mode of the restart algorithm, remove them from " + configFile);
+        }
+      }
+    }
 
     this.stats = new RestartAlgorithmStatistics(configFiles.size());
     this.logger = pLogger;
@@ -182,6 +217,10 @@ public class RestartAlgorithm implements Algorithm, StatisticsProvider {
     CFANode mainFunction = AbstractStates.extractLocation(pReached.getFirstState());
     assert mainFunction != null : "Location information needed";
 
+    if (portfolio) {
+      return runPortfolio(reached, mainFunction);
+    }
+
     PeekingIterator<Path> configFilesIterator = Iterators.peekingIterator(configFiles.iterator());
 
     while (configFilesIterator.hasNext()) {
@@ -201,7 +240,7 @@ public class RestartAlgorithm implements Algorithm, StatisticsProvider {
         singleConfigFileName = Paths.get(CONFIG_FILE_CONDITION_SPLITTER.split(singleConfigFileName.toString()).iterator().next());
 
         try {
-          Triple<Algorithm, ConfigurableProgramAnalysis, ReachedSet> currentAlg = createNextAlgorithm(singleConfigFileName, mainFunction, singleShutdownNotifier);
+          Triple<Algorithm, ConfigurableProgramAnalysis, ReachedSet> currentAlg = createNextAlgorithm(singleConfigFileName, mainFunction, singleShutdownNotifier, null);
           currentAlgorithm = currentAlg.getFirst();
           currentCpa = currentAlg.getSecond();
           currentReached = currentAlg.getThird();
@@ -322,6 +361,249 @@ public class RestartAlgorithm implements Algorithm, StatisticsProvider {
     return false;
   }
 
+  /**
+   * Result of a single analysis in portfolio mode.
+   */
+  private static class PortfolioResult {
+
+    private final Path configFile;
+    private final Algorithm algorithm;
+    private final @Nullable ConfigurableProgramAnalysis cpa;
+    private final ReachedSet reached;
+    private final boolean sound;
+    private final boolean conclusive;
+
+    private PortfolioResult(Path pConfigFile, Algorithm pAlgorithm, @Nullable ConfigurableProgramAnalysis pCpa,
+        ReachedSet pReached, boolean pSound, boolean pConclusive) {
+      configFile = pConfigFile;
+      algorithm = pAlgorithm;
+      cpa = pCpa;
+      reached = pReached;
+      sound = pSound;
+      conclusive = pConclusive;
+    }
+  }
+
+  /**
+   * Run the analyses of all configurations in parallel,
+   * each with its own CPA, reached set and {@link ShutdownNotifier}.
+   * The first analysis that finishes with a conclusive result
+   * (a target state was found or the state space was completely explored soundly)
+   * determines the result, all other analyses are stopped through their shutdown notifiers.
+   */
+  private boolean runPortfolio(final ForwardingReachedSet reached, final CFANode mainFunction)
+      throws CPAException, InterruptedException {
+
+    final List<ShutdownNotifier> singleShutdownNotifiers = new ArrayList<>(configFiles.size());
+    final List<ResourceLimitChecker> singleLimits = Collections.synchronizedList(
+        new ArrayList<ResourceLimitChecker>(configFiles.size()));
+    final List<PortfolioResult> finishedAnalyses = new ArrayList<>(configFiles.size());
+    PortfolioResult usedResult = null;
+
+    final ExecutorService executor = Executors.newFixedThreadPool(configFiles.size(),
+        Threads.threadFactoryBuilder().setNameFormat("Portfolio analysis %d").build());
+    final CompletionService<PortfolioResult> analyses = new ExecutorCompletionService<>(executor);
+
+    stats.totalTime.start();
+    try {
+      for (final Path configFile : configFiles) {
+        final ShutdownNotifier singleShutdownNotifier = ShutdownNotifier.createWithParent(shutdownNotifier);
+        singleShutdownNotifiers.add(singleShutdownNotifier);
+
+        analyses.submit(new Callable<PortfolioResult>() {
+            @Override
+            public PortfolioResult call() throws CPAException, InterruptedException {
+              return runPortfolioAnalysis(configFile, mainFunction, singleShutdownNotifier, singleLimits);
+            }
+          });
+      }
+
+      CPAException lastException = null;
+      PortfolioResult inconclusiveResult = null;
+
+      for (int i = 0; i < configFiles.size(); i++) {
+        PortfolioResult result;
+        try {
+          result = analyses.take().get();
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof CPAException) {
+            logger.logUserException(Level.WARNING, cause, "Analysis not completed");
+            lastException = (CPAException)cause;
+            continue;
+          }
+          Throwables.propagateIfPossible(cause, InterruptedException.class);
+          throw new UnexpectedCheckedException("portfolio analysis", cause);
+        }
+
+        if (result == null) {
+          // configuration was invalid
+          continue;
+        }
+        finishedAnalyses.add(result);
+
+        if (result.conclusive) {
+          logger.log(Level.INFO, "Analysis with configuration", result.configFile,
+              "finished with a conclusive result, stopping all other analyses.");
+          reached.setDelegate(result.reached);
+          usedResult = result;
+          return result.sound;
+        }
+        if (inconclusiveResult == null) {
+          inconclusiveResult = result;
+        }
+      }
+
+      shutdownNotifier.shutdownIfNecessary();
+
+      if (inconclusiveResult != null) {
+        reached.setDelegate(inconclusiveResult.reached);
+        usedResult = inconclusiveResult;
+      } else if (lastException != null) {
+        // all analyses failed
+        throw lastException;
+      }
+
+      logger.log(Level.INFO, "No analysis of the portfolio finished with a conclusive result.");
+      return false;
+
+    } finally {
+      for (ShutdownNotifier singleShutdownNotifier : singleShutdownNotifiers) {
+        singleShutdownNotifier.requestShutdown("Analysis terminated"); // shutdown any remaining analyses
+      }
+      executor.shutdownNow();
+      try {
+        finishPortfolio(executor, analyses, finishedAnalyses, usedResult, singleLimits);
+      } finally {
+        stats.totalTime.stop();
+      }
+    }
+  }
+
+  /**
+   * Wait until all analyses of the portfolio have stopped,
+   * then clean up after them:
+   * close the CPAs and algorithms of all analyses whose result is not used,
+   * cancel all resource-limit checkers,
+   * and store the objects of the used analysis in {@link GlobalInfo} again.
+   */
+  private void finishPortfolio(ExecutorService executor, CompletionService<PortfolioResult> analyses,
+      List<PortfolioResult> finishedAnalyses, @Nullable PortfolioResult usedResult,
+      List<ResourceLimitChecker> singleLimits) throws InterruptedException {
+    try {
+      // The analyses were requested to shut down, so this should not take long.
+      if (!executor.awaitTermination(PORTFOLIO_TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        logger.log(Level.WARNING, "Some analyses of the portfolio did not stop after shutdown was requested,",
+            "their resources are not released.");
+      }
+
+      // collect the results of the analyses that were stopped
+      Future<PortfolioResult> future;
+      while ((future = analyses.poll()) != null) {
+        try {
+          PortfolioResult result = future.get();
+          if (result != null) {
+            finishedAnalyses.add(result);
+          }
+        } catch (ExecutionException e) {
+          // already logged or irrelevant, the analysis was stopped
+          logger.logDebugException(e.getCause());
+        }
+      }
+
+      for (PortfolioResult result : finishedAnalyses) {
+        if (result != usedResult) {
+          closeAnalysis(result.algorithm, result.cpa);
+        }
+      }
+
+      if (usedResult != null) {
+        restoreGlobalInfo(usedResult.cpa);
+      }
+
+    } finally {
+      synchronized (singleLimits) {
+        for (ResourceLimitChecker limits : singleLimits) {
+          limits.cancel();
+        }
+      }
+    }
+  }
+
+  private void closeAnalysis(Algorithm algorithm, @Nullable ConfigurableProgramAnalysis cpa) {
+    if (cpa != null) {
+      CPAs.closeCpaIfPossible(cpa, logger);
+    }
+    CPAs.closeIfPossible(algorithm, logger);
+  }
+
+  /**
+   * All analyses of the portfolio store their formula manager in {@link GlobalInfo},
+   * so after the analyses have finished the instance of the analysis
+   * whose result is used needs to be stored again.
+   */
+  private void restoreGlobalInfo(@Nullable ConfigurableProgramAnalysis cpa) {
+    if (cpa == null) {
+      return;
+    }
+    PredicateCPA predicateCpa = CPAs.retrieveCPA(cpa, PredicateCPA.class);
+    if (predicateCpa != null) {
+      GlobalInfo.getInstance().storeFormulaManager(predicateCpa.getSolver().getFormulaManager());
+    }
+  }
+
+  /**
+   * Create and run the analysis for one configuration of the portfolio
+   * in the current thread.
+   * If the analysis fails, its CPA and algorithm are closed.
+   * @param singleLimits The resource-limit checker of the analysis is added to this list.
+   * @return The result, or null if the configuration could not be used.
+   */
+  private @Nullable PortfolioResult runPortfolioAnalysis(Path configFile, CFANode mainFunction,
+      ShutdownNotifier singleShutdownNotifier, List<ResourceLimitChecker> singleLimits)
+      throws CPAException, InterruptedException {
+
+    Triple<Algorithm, ConfigurableProgramAnalysis, ReachedSet> analysis;
+    // The creation shares the statistics and the logger numbering,
+    // and the CPAs store some of their objects in the global GlobalInfo instance,
+    // so the analyses are created one at a time.
+    synchronized (stats) {
+      try {
+        analysis = createNextAlgorithm(configFile, mainFunction, singleShutdownNotifier, singleLimits);
+      } catch (InvalidConfigurationException e) {
+        logger.logUserException(Level.WARNING, e, "Skipping one analysis because the configuration file " + configFile.toString() + " is invalid");
+        return null;
+      } catch (IOException e) {
+        logger.logUserException(Level.WARNING, e, "Skipping one analysis because the configuration file " + configFile.toString() + " could not be read");
+        return null;
+      }
+
+      if (analysis.getFirst() instanceof StatisticsProvider) {
+        ((StatisticsProvider)analysis.getFirst()).collectStatistics(stats.getSubStatistics());
+      }
+      stats.noOfAlgorithmsUsed++;
+    }
+
+    Algorithm algorithm = analysis.getFirst();
+    ConfigurableProgramAnalysis cpa = analysis.getSecond();
+    ReachedSet currentReached = analysis.getThird();
+    try {
+      boolean sound = algorithm.run(currentReached);
+
+      boolean conclusive = from(currentReached).anyMatch(IS_TARGET_STATE)
+          || (sound && !currentReached.hasWaitingState());
+      return new PortfolioResult(configFile, algorithm, cpa, currentReached, sound, conclusive);
+
+    } catch (InterruptedException e) {
+      logger.logUserException(Level.FINE, e, "Analysis with configuration " + configFile + " stopped");
+      return new PortfolioResult(configFile, algorithm, cpa, currentReached, false, false);
+
+    } catch (CPAException | RuntimeException | Error e) {
+      closeAnalysis(algorithm, cpa);
+      throw e;
+    }
+  }
+
   @Options
   private static class RestartAlgorithmOptions {
 
@@ -355,7 +637,7 @@ public class RestartAlgorithm implements Algorithm, StatisticsProvider {
 
   }
 
-  private Triple<Algorithm, ConfigurableProgramAnalysis, ReachedSet> createNextAlgorithm(Path singleConfigFileName, CFANode mainFunction, ShutdownNotifier singleShutdownNotifier) throws InvalidConfigurationException, CPAException, InterruptedException, IOException {
+  private Triple<Algorithm, ConfigurableProgramAnalysis, ReachedSet> createNextAlgorithm(Path singleConfigFileName, CFANode mainFunction, ShutdownNotifier singleShutdownNotifier, @Nullable List<ResourceLimitChecker> pPortfolioLimits) throws InvalidConfigurationException, CPAException, InterruptedException, IOException {
 
     ReachedSet reached;
     ConfigurableProgramAnalysis cpa;
@@ -375,7 +657,13 @@ public class RestartAlgorithm implements Algorithm, StatisticsProvider {
     RestartAlgorithmOptions singleOptions = new RestartAlgorithmOptions();
     singleConfig.inject(singleOptions);
 
-    ResourceLimitChecker singleLimits = ResourceLimitChecker.fromConfiguration(singleConfig, singleLogger, singleShutdownNotifier);
+    ResourceLimitChecker singleLimits;
+    if (pPortfolioLimits != null) {
+      singleLimits = ResourceLimitChecker.fromConfigurationForParallelAnalysis(singleConfig, singleLogger, singleShutdownNotifier, configFiles.size());
+      pPortfolioLimits.add(singleLimits);
+    } else {
+      singleLimits = ResourceLimitChecker.fromConfiguration(singleConfig, singleLogger, singleShutdownNotifier);
+    }
     singleLimits.start();
 
     if (singleOptions.runCBMCasExternalTool) {
@@ -384,6 +672,7 @@ public class RestartAlgorithm implements Algorithm, StatisticsProvider {
       reached = new ReachedSetFactory(singleConfig, singleLogger).create();
     } else {
       ReachedSetFactory singleReachedSetFactory = new ReachedSetFactory(singleConfig, singleLogger);
+      singleReachedSetFactory.initializeTargetDistances(cfa, singleConfig, singleLogger, singleShutdownNotifier);
       cpa = createCPA(singleReachedSetFactory, singleConfig, singleLogger, singleShutdownNotifier, stats);
       algorithm = createAlgorithm(cpa, singleConfig, singleLogger, singleShutdownNotifier, stats, singleReachedSetFactory, singleOptions);
       reached = createInitialReachedSetForRestart(cpa, mainFunction, singleReachedSetFactory, singleLogger);
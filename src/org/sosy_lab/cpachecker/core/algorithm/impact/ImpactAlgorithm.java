@@ -145,7 +145,7 @@ public class ImpactAlgorithm implements Algorithm, StatisticsProvider {
     solver = Solver.create(config, pLogger, pShutdownNotifier);
     fmgr = solver.getFormulaManager();
     bfmgr = fmgr.getBooleanFormulaManager();
-    pfmgr = new CachingPathFormulaManager(new PathFormulaManagerImpl(fmgr, config, logger, pShutdownNotifier, cfa, AnalysisDirection.FORWARD));
+    pfmgr = new CachingPathFormulaManager(new PathFormulaManagerImpl(fmgr, config, logger, pShutdownNotifier, cfa, AnalysisDirection.FORWARD), config);
     imgr = new InterpolationManager(pfmgr, solver, config, pShutdownNotifier, logger);
 
     // test code to check if pointer points to struct node
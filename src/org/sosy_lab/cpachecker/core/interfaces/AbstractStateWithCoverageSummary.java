@@ -0,0 +1,51 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.interfaces;
+
+import org.sosy_lab.cpachecker.util.CoverageSummaries;
+
+/**
+ * This interface represents abstract states that can provide a cheap summary
+ * of their content, which allows to rule out coverage between two states
+ * without calling the (possibly expensive) less-or-equal check of the domain.
+ *
+ * The summary is a set of bits (similar to a Bloom filter) that needs to
+ * satisfy the following property:
+ * If state s1 is less or equal than state s2 in the abstract domain
+ * (i.e., s2 covers s1), then all bits that are set in the summary of s2
+ * are also set in the summary of s1.
+ * A summary of 0 is always safe, it never rules out coverage.
+ *
+ * The method {@link CoverageSummaries#mayBeCoveredBy(long, long)}
+ * checks this condition.
+ */
+public interface AbstractStateWithCoverageSummary extends AbstractState {
+
+  /**
+   * Get the coverage summary of this state.
+   * This method is called often and should be fast,
+   * so implementations may want to cache the result.
+   */
+  long getCoverageSummary();
+}
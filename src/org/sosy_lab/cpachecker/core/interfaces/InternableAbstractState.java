@@ -0,0 +1,38 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.interfaces;
+
+/**
+ * Marker interface for abstract states that may be shared between
+ * several composite states (hash-consing),
+ * i.e., one instance may replace all states that are equal to it.
+ *
+ * Implementing classes need to be immutable,
+ * and their {@link Object#equals(Object)} and {@link Object#hashCode()} methods
+ * need to take all fields into account that are observable from the outside.
+ * Two equal instances must be indistinguishable for all users of the states.
+ */
+public interface InternableAbstractState extends AbstractState {
+
+}
@@ -0,0 +1,43 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.interfaces;
+
+import org.sosy_lab.cpachecker.util.statistics.StatisticsSnapshot;
+
+/**
+ * Statistics that can also provide their current values in machine-readable form,
+ * which are written periodically while the analysis is running
+ * (cf. {@link org.sosy_lab.cpachecker.util.statistics.StatisticsSnapshotWriter}).
+ */
+public interface SnapshotStatistics extends Statistics {
+
+  /**
+   * Put the current values of the statistics into the given snapshot.
+   * This method is called from a different thread than the analysis,
+   * so implementations should only read fields that can be safely read
+   * concurrently. Values that are slightly outdated are acceptable.
+   */
+  public void putSnapshotValues(StatisticsSnapshot pSnapshot);
+
+}
@@ -0,0 +1,509 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+import org.sosy_lab.common.Pair;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.waitlist.ConcurrentWaitlist;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.WaitlistFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Striped;
+
+/**
+ * Implementation of a reached set that is partitioned like
+ * {@link PartitionedReachedSet}, but can be accessed by several threads
+ * concurrently.
+ *
+ * All modifications of a partition are guarded by a lock that is selected
+ * by the partition key from a fixed number of lock stripes,
+ * so modifications of different partitions usually do not block each other.
+ * The waitlist is wrapped with {@link ConcurrentWaitlist},
+ * which is lock-free for BFS and DFS.
+ *
+ * The collections returned by {@link #getReached(AbstractState)} are views
+ * of the partition which iterate over a snapshot that is taken when the
+ * iterator is created. The set returned by {@link #asCollection()} is weakly
+ * consistent, it never throws a {@link java.util.ConcurrentModificationException}.
+ * All returned collections keep the order in which the states were added.
+ */
+public class ConcurrentPartitionedReachedSet implements ReachedSet {
+
+  private static final int LOCK_STRIPES = 64;
+
+  /** Precision of a reached state, and the position in the insertion order. */
+  private static final class ReachedEntry {
+    private final long id;
+    private final Precision precision;
+
+    private ReachedEntry(long pId, Precision pPrecision) {
+      id = pId;
+      precision = pPrecision;
+    }
+  }
+
+  private final ConcurrentMap<AbstractState, ReachedEntry> reached = new ConcurrentHashMap<>();
+  private final ConcurrentNavigableMap<Long, AbstractState> insertionOrder = new ConcurrentSkipListMap<>();
+  private final AtomicLong nextId = new AtomicLong(0);
+
+  // partitions are only read and modified while holding the lock for their key,
+  // invariant: all partitions in this map are non-empty
+  private final ConcurrentMap<Object, Set<AbstractState>> partitions = new ConcurrentHashMap<>();
+  private final Striped<Lock> partitionLocks = Striped.lock(LOCK_STRIPES);
+
+  private final Set<AbstractState> unmodifiableReached = new ReachedView();
+  private final Waitlist waitlist;
+
+  private volatile AbstractState firstState = null;
+  private volatile AbstractState lastState = null;
+
+  public ConcurrentPartitionedReachedSet(WaitlistFactory waitlistFactory) {
+    waitlist = ConcurrentWaitlist.factory(waitlistFactory).createWaitlistInstance();
+  }
+
+  protected Object getPartitionKey(AbstractState pState) {
+    assert pState instanceof Partitionable : "Partitionable states necessary for ConcurrentPartitionedReachedSet";
+    return ((Partitionable)pState).getPartitionKey();
+  }
+
+  @Override
+  public void add(AbstractState state, Precision precision) throws IllegalArgumentException {
+    Preconditions.checkNotNull(state);
+    Preconditions.checkNotNull(precision);
+
+    Object key = getPartitionKey(state);
+    Lock lock = partitionLocks.get(key);
+    lock.lock();
+    try {
+      // The initial state is added before the analysis is started,
+      // so this check does not need to be atomic with the insertion.
+      boolean isFirst = reached.isEmpty();
+
+      ReachedEntry entry = new ReachedEntry(nextId.getAndIncrement(), precision);
+      ReachedEntry previous = reached.putIfAbsent(state, entry);
+
+      if (previous == null) {
+        // State wasn't already in the reached set.
+        insertionOrder.put(entry.id, state);
+
+        Set<AbstractState> partition = partitions.get(key);
+        if (partition == null) {
+          partition = new LinkedHashSet<>();
+          partitions.put(key, partition);
+        }
+        partition.add(state);
+
+        if (isFirst) {
+          firstState = state;
+        }
+        lastState = state;
+        waitlist.add(state);
+
+      } else if (!precision.equals(previous.precision)) {
+        // Same semantics as in DefaultReachedSet.
+        throw new IllegalArgumentException("State added to reached set which is already contained, but with a different precision");
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void addAll(Iterable<Pair<AbstractState, Precision>> toAdd) {
+    for (Pair<AbstractState, Precision> pair : toAdd) {
+      add(pair.getFirst(), pair.getSecond());
+    }
+  }
+
+  @Override
+  public void reAddToWaitlist(AbstractState s) {
+    Preconditions.checkNotNull(s);
+    Lock lock = partitionLocks.get(getPartitionKey(s));
+    lock.lock();
+    try {
+      Preconditions.checkArgument(reached.containsKey(s), "State has to be in the reached set");
+
+      if (!waitlist.contains(s)) {
+        waitlist.add(s);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void updatePrecision(AbstractState s, Precision newPrecision) {
+    Preconditions.checkNotNull(s);
+    Preconditions.checkNotNull(newPrecision);
+
+    Lock lock = partitionLocks.get(getPartitionKey(s));
+    lock.lock();
+    try {
+      ReachedEntry oldEntry = reached.get(s);
+      if (oldEntry == null) {
+        throw new IllegalArgumentException("State needs to be in the reached set in order to change the precision.");
+      }
+      reached.put(s, new ReachedEntry(oldEntry.id, newPrecision));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void remove(AbstractState state) {
+    Preconditions.checkNotNull(state);
+
+    Object key = getPartitionKey(state);
+    Lock lock = partitionLocks.get(key);
+    lock.lock();
+    try {
+      ReachedEntry entry = reached.remove(state);
+      if (entry == null) {
+        return;
+      }
+      insertionOrder.remove(entry.id);
+
+      Set<AbstractState> partition = partitions.get(key);
+      partition.remove(state);
+      if (partition.isEmpty()) {
+        partitions.remove(key);
+      }
+
+      waitlist.remove(state);
+
+      if (state.equals(firstState)) {
+        firstState = null;
+      }
+      if (state.equals(lastState)) {
+        lastState = null;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void removeAll(Iterable<? extends AbstractState> toRemove) {
+    for (AbstractState state : toRemove) {
+      remove(state);
+    }
+  }
+
+  @Override
+  public void removeOnlyFromWaitlist(AbstractState state) {
+    checkNotNull(state);
+    Lock lock = partitionLocks.get(getPartitionKey(state));
+    lock.lock();
+    try {
+      waitlist.remove(state);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Removes all states.
+   * This method must not be called concurrently with other modifications.
+   */
+  @Override
+  public void clear() {
+    firstState = null;
+    lastState = null;
+    waitlist.clear();
+    partitions.clear();
+    insertionOrder.clear();
+    reached.clear();
+  }
+
+  @Override
+  public Set<AbstractState> asCollection() {
+    return unmodifiableReached;
+  }
+
+  @Override
+  public Iterator<AbstractState> iterator() {
+    return unmodifiableReached.iterator();
+  }
+
+  @Override
+  public Collection<Precision> getPrecisions() {
+    ImmutableList.Builder<Precision> result = ImmutableList.builder();
+    for (AbstractState state : insertionOrder.values()) {
+      ReachedEntry entry = reached.get(state);
+      if (entry != null) {
+        result.add(entry.precision);
+      }
+    }
+    return result.build();
+  }
+
+  @Override
+  public Collection<AbstractState> getReached(AbstractState state) {
+    return new PartitionView(getPartitionKey(state));
+  }
+
+  @Override
+  public Collection<AbstractState> getReached(CFANode location) {
+    return asCollection();
+  }
+
+  @Override
+  public AbstractState getFirstState() {
+    AbstractState result = firstState;
+    Preconditions.checkState(result != null);
+    return result;
+  }
+
+  @Override
+  public AbstractState getLastState() {
+    return lastState;
+  }
+
+  @Override
+  public boolean hasWaitingState() {
+    return !waitlist.isEmpty();
+  }
+
+  @Override
+  public Collection<AbstractState> getWaitlist() {
+    return new AbstractCollection<AbstractState>() {
+
+      @Override
+      public Iterator<AbstractState> iterator() {
+        return Iterators.unmodifiableIterator(waitlist.iterator());
+      }
+
+      @Override
+      public boolean contains(Object obj) {
+        if (!(obj instanceof AbstractState)) {
+          return false;
+        }
+        return waitlist.contains((AbstractState)obj);
+      }
+
+      @Override
+      public boolean isEmpty() {
+        return waitlist.isEmpty();
+      }
+
+      @Override
+      public int size() {
+        return waitlist.size();
+      }
+
+      @Override
+      public String toString() {
+        return waitlist.toString();
+      }
+    };
+  }
+
+  /**
+   * Returns and removes the next state from the waitlist.
+   * States that are concurrently removed from the reached set are never returned.
+   * @throws NoSuchElementException if the waitlist is empty
+   * (which may happen even after {@link #hasWaitingState()} returned true
+   * if another thread popped the last state in the meantime).
+   */
+  @Override
+  public AbstractState popFromWaitlist() {
+    while (true) {
+      AbstractState state = waitlist.pop();
+      if (state == null) {
+        throw new NoSuchElementException("Waitlist is empty");
+      }
+
+      // remove() deletes the state from the reached map and the waitlist
+      // while holding the lock of its partition, so after acquiring this lock
+      // the state is either completely removed or still in the reached set.
+      Lock lock = partitionLocks.get(getPartitionKey(state));
+      lock.lock();
+      try {
+        if (reached.containsKey(state)) {
+          return state;
+        }
+      } finally {
+        lock.unlock();
+      }
+      // state was removed concurrently, try the next one
+    }
+  }
+
+  @Override
+  public int getWaitlistSize() {
+    return waitlist.size();
+  }
+
+  @Override
+  public Precision getPrecision(AbstractState state) {
+    Preconditions.checkNotNull(state);
+    ReachedEntry entry = reached.get(state);
+    Preconditions.checkArgument(entry != null, "State not in reached set:\n%s", state);
+    return entry.precision;
+  }
+
+  @Override
+  public boolean contains(AbstractState state) {
+    Preconditions.checkNotNull(state);
+    return reached.containsKey(state);
+  }
+
+  @Override
+  public int size() {
+    return reached.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return reached.isEmpty();
+  }
+
+  public int getNumberOfPartitions() {
+    return partitions.size();
+  }
+
+  /**
+   * Returns the largest partition (as a snapshot), or null if the reached set is empty.
+   */
+  public Map.Entry<Object, Collection<AbstractState>> getMaxPartition() {
+    Map.Entry<Object, Collection<AbstractState>> maxPartition = null;
+    int max = 0;
+
+    for (Object key : partitions.keySet()) {
+      Collection<AbstractState> partition = getPartitionSnapshot(key);
+      if (partition.size() > max) {
+        max = partition.size();
+        maxPartition = Maps.immutableEntry(key, partition);
+      }
+    }
+    return maxPartition;
+  }
+
+  private Collection<AbstractState> getPartitionSnapshot(Object key) {
+    Lock lock = partitionLocks.get(key);
+    lock.lock();
+    try {
+      Set<AbstractState> partition = partitions.get(key);
+      if (partition == null) {
+        return ImmutableList.of();
+      }
+      return ImmutableList.copyOf(partition);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return unmodifiableReached.toString();
+  }
+
+  /**
+   * Unmodifiable live view of one partition.
+   */
+  private class PartitionView extends AbstractCollection<AbstractState> {
+
+    private final Object key;
+
+    private PartitionView(Object pKey) {
+      key = pKey;
+    }
+
+    @Override
+    public Iterator<AbstractState> iterator() {
+      return getPartitionSnapshot(key).iterator();
+    }
+
+    @Override
+    public boolean contains(Object pObj) {
+      Lock lock = partitionLocks.get(key);
+      lock.lock();
+      try {
+        Set<AbstractState> partition = partitions.get(key);
+        return partition != null && partition.contains(pObj);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public int size() {
+      Lock lock = partitionLocks.get(key);
+      lock.lock();
+      try {
+        Set<AbstractState> partition = partitions.get(key);
+        return (partition == null) ? 0 : partition.size();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Unmodifiable, weakly consistent live view of all reached states
+   * in insertion order.
+   */
+  private class ReachedView extends AbstractSet<AbstractState> {
+
+    @Override
+    public Iterator<AbstractState> iterator() {
+      return Collections.unmodifiableCollection(insertionOrder.values()).iterator();
+    }
+
+    @Override
+    public boolean contains(Object pObj) {
+      return reached.containsKey(pObj);
+    }
+
+    @Override
+    public int size() {
+      return reached.size();
+    }
+  }
+}
@@ -0,0 +1,214 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.TraversalMethod;
+
+import com.google.common.collect.ImmutableList;
+
+
+public class ConcurrentPartitionedReachedSetTest {
+
+  private static class TestState implements AbstractState, Partitionable {
+
+    private final int partition;
+
+    private TestState(int pPartition) {
+      partition = pPartition;
+    }
+
+    @Override
+    public Object getPartitionKey() {
+      return partition;
+    }
+  }
+
+  private final Precision precision = mock(Precision.class);
+
+  private ConcurrentPartitionedReachedSet reached = null;
+
+  @Before
+  public void setUp() {
+    reached = new ConcurrentPartitionedReachedSet(TraversalMethod.BFS);
+  }
+
+  @Test
+  public void testPartitions() {
+    TestState s1 = new TestState(1);
+    TestState s2 = new TestState(2);
+    TestState s3 = new TestState(1);
+    reached.add(s1, precision);
+    reached.add(s2, precision);
+    reached.add(s3, precision);
+
+    assertEquals(3, reached.size());
+    assertEquals(2, reached.getNumberOfPartitions());
+    assertEquals(ImmutableList.of(s1, s3), ImmutableList.copyOf(reached.getReached(s1)));
+    assertEquals(ImmutableList.of(s1, s2, s3), ImmutableList.copyOf(reached));
+    assertSame(s1, reached.getFirstState());
+    assertSame(s3, reached.getLastState());
+
+    // BFS order
+    assertSame(s1, reached.popFromWaitlist());
+    assertSame(s2, reached.popFromWaitlist());
+  }
+
+  @Test
+  public void testPartitionViewIsLive() {
+    TestState s1 = new TestState(1);
+    TestState s2 = new TestState(1);
+    reached.add(s1, precision);
+    Collection<AbstractState> partition = reached.getReached(s1);
+
+    reached.add(s2, precision);
+    reached.remove(s1);
+
+    assertEquals(ImmutableList.of(s2), ImmutableList.copyOf(partition));
+    assertFalse(reached.contains(s1));
+    assertFalse(reached.getWaitlist().contains(s1));
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testAddWithDifferentPrecision() {
+    TestState s1 = new TestState(1);
+    reached.add(s1, precision);
+    reached.add(s1, mock(Precision.class));
+  }
+
+  @Test
+  public void testConcurrentAddAndRemove() throws Exception {
+    final int threads = 8;
+    final int statesPerThread = 1000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<List<TestState>>> results = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        results.add(executor.submit(new Callable<List<TestState>>() {
+          @Override
+          public List<TestState> call() {
+            List<TestState> kept = new ArrayList<>();
+            for (int i = 0; i < statesPerThread; i++) {
+              TestState state = new TestState(i % 10);
+              reached.add(state, precision);
+              if (i % 2 == 0) {
+                reached.remove(state);
+              } else {
+                kept.add(state);
+              }
+            }
+            return kept;
+          }
+        }));
+      }
+
+      int expectedSize = 0;
+      for (Future<List<TestState>> result : results) {
+        for (TestState state : result.get()) {
+          assertTrue(reached.contains(state));
+          expectedSize++;
+        }
+      }
+      assertEquals(expectedSize, reached.size());
+      assertEquals(expectedSize, reached.getWaitlistSize());
+      assertEquals(expectedSize, ImmutableList.copyOf(reached).size());
+      assertEquals(10, reached.getNumberOfPartitions());
+
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(expected=NoSuchElementException.class)
+  public void testPopFromEmptyWaitlist() {
+    reached.popFromWaitlist();
+  }
+
+  @Test
+  public void testConcurrentPopAndRemove() throws Exception {
+    final int states = 10000;
+    final List<TestState> toRemove = new ArrayList<>();
+    final List<TestState> toKeep = new ArrayList<>();
+    for (int i = 0; i < states; i++) {
+      TestState state = new TestState(i % 10);
+      reached.add(state, precision);
+      if (i % 2 == 0) {
+        toRemove.add(state);
+      } else {
+        toKeep.add(state);
+      }
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<?> remover = executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          reached.removeAll(toRemove);
+        }
+      });
+      Future<Set<AbstractState>> popper = executor.submit(new Callable<Set<AbstractState>>() {
+        @Override
+        public Set<AbstractState> call() {
+          Set<AbstractState> popped = new HashSet<>();
+          while (true) {
+            try {
+              popped.add(checkNotNull(reached.popFromWaitlist()));
+            } catch (NoSuchElementException e) {
+              return popped;
+            }
+          }
+        }
+      });
+
+      remover.get();
+      Set<AbstractState> popped = popper.get();
+      assertTrue(popped.containsAll(toKeep));
+      assertEquals(toKeep.size(), reached.size());
+      assertFalse(reached.hasWaitingState());
+
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
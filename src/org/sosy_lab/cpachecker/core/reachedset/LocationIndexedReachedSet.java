@@ -0,0 +1,208 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.WaitlistFactory;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+/**
+ * Implementation of ReachedSet that groups states by location like
+ * {@link LocationMappedReachedSet}, but stores the partitions in an array
+ * that is indexed by the node number of the location
+ * (cf. {@link CFANode#getNodeNumber()}).
+ * Thus looking up the partition of a state does not need to hash the location.
+ * The array grows as needed, it has as many entries as the highest node number
+ * of all locations seen so far.
+ *
+ * The set returned by {@link #getLocations()} is sorted by node number
+ * instead of by insertion order.
+ */
+public class LocationIndexedReachedSet extends LocationMappedReachedSet {
+
+  private static final class Partition {
+    private final CFANode location;
+    private final Set<AbstractState> states = new LinkedHashSet<>();
+    private final Collection<AbstractState> unmodifiableStates = Collections.unmodifiableSet(states);
+
+    private Partition(CFANode pLocation) {
+      location = pLocation;
+    }
+  }
+
+  // index is the node number, entries are null for unseen locations
+  private final ArrayList<Partition> partitions = new ArrayList<>();
+
+  private int nonEmptyPartitions = 0;
+
+  public LocationIndexedReachedSet(WaitlistFactory waitlistFactory) {
+    // all methods that access the partitions are overridden
+    super(waitlistFactory, false);
+  }
+
+  private @Nullable Partition lookupPartition(CFANode location) {
+    int index = location.getNodeNumber();
+    return (index < partitions.size()) ? partitions.get(index) : null;
+  }
+
+  private Partition getOrCreatePartition(CFANode location) {
+    int index = location.getNodeNumber();
+    while (partitions.size() <= index) {
+      partitions.add(null);
+    }
+
+    Partition partition = partitions.get(index);
+    if (partition == null) {
+      partition = new Partition(location);
+      partitions.set(index, partition);
+    }
+    assert partition.location.equals(location);
+    return partition;
+  }
+
+  @Override
+  protected void addToPartition(Object key, AbstractState pState) {
+    Set<AbstractState> states = getOrCreatePartition((CFANode)key).states;
+    if (states.add(pState) && states.size() == 1) {
+      nonEmptyPartitions++;
+    }
+  }
+
+  @Override
+  protected void removeFromPartition(Object key, AbstractState pState) {
+    Partition partition = lookupPartition((CFANode)key);
+    if (partition == null) {
+      return;
+    }
+    Set<AbstractState> states = partition.states;
+    if (states.remove(pState) && states.isEmpty()) {
+      nonEmptyPartitions--;
+    }
+  }
+
+  @Override
+  protected void clearPartitions() {
+    // Keep the partition objects, because views on them may still be in use.
+    for (Partition partition : partitions) {
+      if (partition != null) {
+        partition.states.clear();
+      }
+    }
+    nonEmptyPartitions = 0;
+  }
+
+  /**
+   * Returns a live view of the partition for the given location.
+   * The view reflects later additions even if the partition is currently empty.
+   */
+  @Override
+  protected Collection<AbstractState> getReachedForKey(Object key) {
+    CFANode location = (CFANode)key;
+    Partition partition = lookupPartition(location);
+    if (partition != null) {
+      return partition.unmodifiableStates;
+    }
+    // Do not create a partition for a read-only lookup.
+    return new UnseenPartitionView(location);
+  }
+
+  /**
+   * Live view of the partition of a location for which no partition exists yet.
+   */
+  private class UnseenPartitionView extends AbstractCollection<AbstractState> {
+
+    private final CFANode location;
+
+    private UnseenPartitionView(CFANode pLocation) {
+      location = pLocation;
+    }
+
+    private Collection<AbstractState> delegate() {
+      Partition partition = lookupPartition(location);
+      return (partition == null) ? ImmutableSet.<AbstractState>of() : partition.unmodifiableStates;
+    }
+
+    @Override
+    public Iterator<AbstractState> iterator() {
+      return delegate().iterator();
+    }
+
+    @Override
+    public boolean contains(Object pO) {
+      return delegate().contains(pO);
+    }
+
+    @Override
+    public int size() {
+      return delegate().size();
+    }
+  }
+
+  @Override
+  protected Set<?> getKeySet() {
+    ImmutableSet.Builder<CFANode> locations = ImmutableSet.builder();
+    for (Partition partition : partitions) {
+      if (partition != null && !partition.states.isEmpty()) {
+        locations.add(partition.location);
+      }
+    }
+    return locations.build();
+  }
+
+  @Override
+  public int getNumberOfPartitions() {
+    return nonEmptyPartitions;
+  }
+
+  @Override
+  public Map.Entry<Object, Collection<AbstractState>> getMaxPartition() {
+    Partition maxPartition = null;
+    for (Partition partition : partitions) {
+      if (partition != null
+          && (maxPartition == null || partition.states.size() > maxPartition.states.size())) {
+        maxPartition = partition;
+      }
+    }
+
+    if (maxPartition == null || maxPartition.states.isEmpty()) {
+      return null;
+    }
+    return Maps.<Object, Collection<AbstractState>>immutableEntry(
+        maxPartition.location, maxPartition.unmodifiableStates);
+  }
+}
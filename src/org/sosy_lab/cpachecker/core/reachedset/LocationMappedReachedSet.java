@@ -42,6 +42,14 @@ public class LocationMappedReachedSet extends PartitionedReachedSet {
     super(waitlistFactory);
   }
 
+  /**
+   * Constructor for sub-classes that store the partitions themselves,
+   * cf. {@link PartitionedReachedSet#PartitionedReachedSet(WaitlistFactory, boolean)}.
+   */
+  protected LocationMappedReachedSet(WaitlistFactory waitlistFactory, boolean pUsePartitionMap) {
+    super(waitlistFactory, pUsePartitionMap);
+  }
+
   @Override
   public Collection<AbstractState> getReached(CFANode location) {
     return getReachedForKey(location);
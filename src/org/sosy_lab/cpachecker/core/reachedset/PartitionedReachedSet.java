@@ -28,6 +28,8 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
@@ -50,34 +52,49 @@ import com.google.common.collect.Multimap;
  * for merging and coverage checks), it will return a subset of the set of all
  * reached states. This subset contains exactly those states, whose partition
  * key is equal to the key of the state given as a parameter.
+ *
+ * Sub-classes may also replace the storage of the partitions by overriding
+ * {@link #addToPartition(Object, AbstractState)} and the other methods
+ * that access the partitions.
  */
 public class PartitionedReachedSet extends DefaultReachedSet {
 
-  private final Multimap<Object, AbstractState> partitionedReached = LinkedHashMultimap.create(100, 1);
+  // null if a sub-class stores the partitions itself
+  private final @Nullable Multimap<Object, AbstractState> partitionedReached;
 
   public PartitionedReachedSet(WaitlistFactory waitlistFactory) {
+    this(waitlistFactory, true);
+  }
+
+  /**
+   * Constructor for sub-classes.
+   * @param pUsePartitionMap If false, no storage for the partitions is allocated,
+   * and the sub-class needs to override all methods that access the partitions.
+   */
+  protected PartitionedReachedSet(WaitlistFactory waitlistFactory, boolean pUsePartitionMap) {
     super(waitlistFactory);
+    partitionedReached = pUsePartitionMap ? LinkedHashMultimap.<Object, AbstractState>create(100, 1) : null;
   }
 
   @Override
   public void add(AbstractState pState, Precision pPrecision) {
     super.add(pState, pPrecision);
 
-    partitionedReached.put(getPartitionKey(pState), pState);
+    addToPartition(getPartitionKey(pState), pState);
   }
 
   @Override
   public void remove(AbstractState pState) {
     super.remove(pState);
 
-    partitionedReached.remove(getPartitionKey(pState), pState);
+    removeFromPartition(getPartitionKey(pState), pState);
   }
 
   @Override
   public void clear() {
     super.clear();
 
-    partitionedReached.clear();
+    clearPartitions();
   }
 
   @Override
@@ -103,6 +120,18 @@ public class PartitionedReachedSet extends DefaultReachedSet {
     return maxPartition;
   }
 
+  protected void addToPartition(Object key, AbstractState pState) {
+    partitionedReached.put(key, pState);
+  }
+
+  protected void removeFromPartition(Object key, AbstractState pState) {
+    partitionedReached.remove(key, pState);
+  }
+
+  protected void clearPartitions() {
+    partitionedReached.clear();
+  }
+
   protected Object getPartitionKey(AbstractState pState) {
     assert pState instanceof Partitionable : "Partitionable states necessary for PartitionedReachedSet";
     return ((Partitionable)pState).getPartitionKey();
@@ -0,0 +1,378 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.Nullable;
+
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.configuration.TimeSpanOption;
+import org.sosy_lab.common.io.Path;
+import org.sosy_lab.common.io.Paths;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.TimeSpan;
+import org.sosy_lab.common.time.Timer;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.algorithm.Algorithm;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.AlgorithmIterationListener;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.util.globalinfo.GlobalInfo;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+
+/**
+ * Writes checkpoints of an in-progress analysis to disk and restores
+ * the reached set from such a checkpoint, such that a long analysis
+ * can be split into several runs.
+ *
+ * A checkpoint contains all states of the reached set (for an ARG this includes the
+ * complete ARGState graph with all wrapped states), their precisions,
+ * the information which states are in the waitlist,
+ * and the helper storages of {@link GlobalInfo},
+ * i.e., the same information that the PCC strategies serialize for a proof.
+ * All states and precisions of the analysis need to be {@link Serializable}.
+ *
+ * Checkpoints are written between two iterations of the {@link AlgorithmIterationListener},
+ * when the reached set is consistent, and when the analysis was interrupted.
+ */
+@Options(prefix="checkpoint")
+public class ReachedSetCheckpointer implements AlgorithmIterationListener, Statistics {
+
+  private static final int MAGIC = 0x43504163; // "CPAc"
+
+  // Serialization of the ARG is recursive along the parent and child relations,
+  // so we need more stack than the default for deep ARGs.
+  private static final long SERIALIZATION_STACK_SIZE = 1024L * 1024L * 1024L;
+
+  @Option(secure=true, name="write",
+      description="write checkpoints of the reached set (including ARG, waitlist and precisions) "
+      + "to a file, such that an interrupted analysis can be resumed later with checkpoint.resumeFrom. "
+      + "All abstract states and precisions of the analysis need to be serializable.")
+  private boolean writeCheckpoints = false;
+
+  @Option(secure=true, name="file",
+      description="file to which checkpoints are written")
+  @FileOption(FileOption.Type.OUTPUT_FILE)
+  private Path checkpointFile = Paths.get("checkpoint.obj.gz");
+
+  @Option(secure=true, name="interval",
+      description="write a checkpoint whenever this much time has passed since the last checkpoint "
+      + "(use seconds or specify a unit; 0 writes checkpoints only when the analysis is interrupted)")
+  @TimeSpanOption(codeUnit=TimeUnit.NANOSECONDS,
+      defaultUserUnit=TimeUnit.SECONDS,
+      min=0)
+  private TimeSpan interval = TimeSpan.ofNanos(0);
+
+  @Option(secure=true, name="resumeFrom",
+      description="resume the analysis from the given checkpoint file instead of starting "
+      + "with the initial states. The program and the configuration need to be the same "
+      + "as for the analysis that wrote the checkpoint.")
+  @FileOption(FileOption.Type.OPTIONAL_INPUT_FILE)
+  private @Nullable Path resumeFile = null;
+
+  private final LogManager logger;
+  private final String programDenotation;
+  private final int numberOfCfaNodes;
+
+  /** Checkpoints are only written from this thread, other threads may be in the middle of an iteration. */
+  private final Thread analysisThread;
+
+  private long lastCheckpoint = System.nanoTime();
+  private boolean disabled = false;
+  private boolean warnedAboutThread = false;
+
+  private final Timer writeTimer = new Timer();
+  private final Timer restoreTimer = new Timer();
+  private int restoredStates = 0;
+  private int lastCheckpointSize = 0;
+
+  public ReachedSetCheckpointer(Configuration config, LogManager pLogger,
+      String pProgramDenotation, CFA pCfa) throws InvalidConfigurationException {
+    config.inject(this);
+    logger = pLogger;
+    programDenotation = pProgramDenotation;
+    numberOfCfaNodes = pCfa.getAllNodes().size();
+    analysisThread = Thread.currentThread();
+
+    if (!writeCheckpoints && interval.asNanos() > 0) {
+      throw new InvalidConfigurationException("checkpoint.interval requires checkpoint.write=true");
+    }
+    if (writeCheckpoints && checkpointFile == null) {
+      throw new InvalidConfigurationException("checkpoint.write requires checkpoint.file to be set");
+    }
+  }
+
+  public boolean isEnabled() {
+    return writeCheckpoints || resumeFile != null;
+  }
+
+  public boolean shouldResume() {
+    return resumeFile != null;
+  }
+
+  /**
+   * Fill the given (empty) reached set with the content of the checkpoint
+   * given by the option checkpoint.resumeFrom.
+   */
+  public void restore(final ReachedSet reached) throws InvalidConfigurationException, InterruptedException {
+    if (resumeFile == null) {
+      throw new IllegalStateException("No checkpoint file given.");
+    }
+    if (!reached.isEmpty()) {
+      throw new IllegalArgumentException("Reached set needs to be empty for restoring a checkpoint.");
+    }
+    logger.log(Level.INFO, "Resuming analysis from checkpoint", resumeFile);
+
+    restoreTimer.start();
+    try {
+      runWithLargeStack("Checkpoint reader", new Callable<Void>() {
+          @Override
+          public Void call() throws IOException, ClassNotFoundException, InvalidConfigurationException {
+            try (InputStream in = new GZIPInputStream(resumeFile.asByteSource().openStream());
+                 ObjectInputStream o = new ObjectInputStream(in)) {
+              readCheckpoint(o, reached);
+            }
+            return null;
+          }
+        });
+
+    } catch (IOException | ClassNotFoundException e) {
+      throw new InvalidConfigurationException("Could not read checkpoint from "
+          + resumeFile + ": " + e.getMessage(), e);
+    } catch (InvalidConfigurationException | InterruptedException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new UnexpectedCheckedException("reading of checkpoint", e);
+    } finally {
+      restoreTimer.stop();
+    }
+
+    restoredStates = reached.size();
+    logger.log(Level.INFO, "Restored", restoredStates, "states, of which",
+        reached.getWaitlistSize(), "are waiting.");
+  }
+
+  private void readCheckpoint(ObjectInputStream o, ReachedSet reached)
+      throws IOException, ClassNotFoundException, InvalidConfigurationException {
+
+    if (o.readInt() != MAGIC) {
+      throw new InvalidConfigurationException(resumeFile + " is not a checkpoint file");
+    }
+    String storedProgram = o.readUTF();
+    int storedNodes = o.readInt();
+    if (!storedProgram.equals(programDenotation) || storedNodes != numberOfCfaNodes) {
+      throw new InvalidConfigurationException("Checkpoint " + resumeFile
+          + " was written for a different program (" + storedProgram + ")");
+    }
+
+    int numberOfStorages = o.readInt();
+    for (int i = 0; i < numberOfStorages; ++i) {
+      GlobalInfo.getInstance().addHelperStorage((Serializable) o.readObject());
+    }
+
+    int size = o.readInt();
+    List<AbstractState> notWaiting = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      AbstractState state = (AbstractState) o.readObject();
+      Precision precision = (Precision) o.readObject();
+      boolean waiting = o.readBoolean();
+
+      reached.add(state, precision);
+      if (!waiting) {
+        notWaiting.add(state);
+      }
+    }
+    for (AbstractState state : notWaiting) {
+      reached.removeOnlyFromWaitlist(state);
+    }
+  }
+
+  @Override
+  public void afterAlgorithmIteration(Algorithm pAlg, ReachedSet pReached) {
+    if (!writeCheckpoints || disabled || interval.asNanos() == 0) {
+      return;
+    }
+    if (Thread.currentThread() != analysisThread) {
+      // e.g., an analysis of a parallel portfolio, the reached set of this thread
+      // is not the one that is written when the analysis is interrupted
+      if (!warnedAboutThread) {
+        logger.log(Level.WARNING, "Periodic checkpoints are only written by the main analysis thread.");
+        warnedAboutThread = true;
+      }
+      return;
+    }
+    if (System.nanoTime() - lastCheckpoint >= interval.asNanos()) {
+      writeCheckpoint(pReached);
+    }
+  }
+
+  /**
+   * Write a checkpoint if this is enabled by the configuration.
+   * Should be called when the analysis was interrupted.
+   */
+  public void writeCheckpointIfEnabled(ReachedSet pReached) {
+    if (writeCheckpoints && !disabled && pReached.hasWaitingState()) {
+      // the analysis thread is usually interrupted on shutdown,
+      // but we still want to wait for the checkpoint to be written
+      boolean interrupted = Thread.interrupted();
+      try {
+        writeCheckpoint(pReached);
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
+  private void writeCheckpoint(final ReachedSet reached) {
+    logger.log(Level.FINE, "Writing checkpoint of", reached.size(), "states to", checkpointFile);
+
+    // write to a temporary file first, such that an old checkpoint stays intact
+    // if we are killed while writing
+    final Path tmpFile = Paths.get(checkpointFile.toString() + ".tmp");
+
+    writeTimer.start();
+    try {
+      runWithLargeStack("Checkpoint writer", new Callable<Void>() {
+          @Override
+          public Void call() throws IOException {
+            Files.createParentDirs(tmpFile.toFile());
+            try (OutputStream out = new GZIPOutputStream(tmpFile.asByteSink().openStream());
+                 ObjectOutputStream o = new ObjectOutputStream(out)) {
+              writeCheckpoint(o, reached);
+            }
+            Files.move(tmpFile.toFile(), checkpointFile.toFile());
+            return null;
+          }
+        });
+      lastCheckpointSize = reached.size();
+
+    } catch (NotSerializableException e) {
+      logger.log(Level.SEVERE, "Checkpoint cannot be written. Class " + e.getMessage()
+          + " does not implement Serializable interface, no further checkpoints will be written.");
+      disabled = true;
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Could not write checkpoint");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.log(Level.WARNING, "Writing of checkpoint was interrupted");
+    } catch (Exception e) {
+      throw new UnexpectedCheckedException("writing of checkpoint", e);
+    } finally {
+      writeTimer.stop();
+      lastCheckpoint = System.nanoTime();
+    }
+  }
+
+  private void writeCheckpoint(ObjectOutputStream o, ReachedSet reached) throws IOException {
+    o.writeInt(MAGIC);
+    o.writeUTF(programDenotation);
+    o.writeInt(numberOfCfaNodes);
+
+    int numberOfStorages = GlobalInfo.getInstance().getNumberOfHelperStorages();
+    o.writeInt(numberOfStorages);
+    for (int i = 0; i < numberOfStorages; ++i) {
+      o.writeObject(GlobalInfo.getInstance().getHelperStorage(i));
+    }
+
+    Set<AbstractState> waiting = ImmutableSet.copyOf(reached.getWaitlist());
+    o.writeInt(reached.size());
+    for (AbstractState state : reached) {
+      o.writeObject(state);
+      o.writeObject(reached.getPrecision(state));
+      o.writeBoolean(waiting.contains(state));
+    }
+  }
+
+  private static void runWithLargeStack(String name, final Callable<Void> task) throws Exception {
+    final Exception[] exception = new Exception[1];
+    final Error[] error = new Error[1];
+    Thread thread = new Thread(null, new Runnable() {
+        @Override
+        public void run() {
+          try {
+            task.call();
+          } catch (Exception e) {
+            exception[0] = e;
+          } catch (Error e) {
+            error[0] = e;
+          }
+        }
+      }, name, SERIALIZATION_STACK_SIZE);
+
+    thread.start();
+    thread.join();
+
+    if (error[0] != null) {
+      throw error[0];
+    }
+    if (exception[0] != null) {
+      throw exception[0];
+    }
+  }
+
+  @Override
+  public String getName() {
+    return "Checkpoints";
+  }
+
+  @Override
+  public void printStatistics(PrintStream out, Result pResult, ReachedSet pReached) {
+    if (resumeFile != null) {
+      out.println("Number of restored states:          " + restoredStates);
+      out.println("Time for restoring checkpoint:      " + restoreTimer);
+    }
+    if (writeCheckpoints) {
+      out.println("Number of checkpoints written:      " + writeTimer.getNumberOfIntervals());
+      out.println("Size of last checkpoint:            " + lastCheckpointSize + " states");
+      out.println("Time for writing checkpoints:       " + writeTimer + " (max: " + writeTimer.getMaxTime().formatAs(TimeUnit.SECONDS) + ")");
+    }
+  }
+}
@@ -28,20 +28,28 @@ import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.ShutdownNotifier;
 import org.sosy_lab.cpachecker.core.waitlist.AutomatonFailedMatchesWaitlist;
 import org.sosy_lab.cpachecker.core.waitlist.AutomatonMatchesWaitlist;
 import org.sosy_lab.cpachecker.core.waitlist.CallstackSortedWaitlist;
 import org.sosy_lab.cpachecker.core.waitlist.ExplicitSortedWaitlist;
 import org.sosy_lab.cpachecker.core.waitlist.PostorderSortedWaitlist;
 import org.sosy_lab.cpachecker.core.waitlist.ReversePostorderSortedWaitlist;
+import org.sosy_lab.cpachecker.core.waitlist.TargetDistanceSortedWaitlist;
+import org.sosy_lab.cpachecker.core.waitlist.TargetDistanceSortedWaitlist.TargetDistances;
 import org.sosy_lab.cpachecker.core.waitlist.Waitlist;
 import org.sosy_lab.cpachecker.core.waitlist.Waitlist.WaitlistFactory;
+import org.sosy_lab.cpachecker.util.automaton.TargetLocationProvider;
+
+import com.google.common.collect.ImmutableSet;
 
 @Options(prefix="analysis")
 public class ReachedSetFactory {
 
   private static enum ReachedSetType {
-    NORMAL, LOCATIONMAPPED, PARTITIONED
+    NORMAL, LOCATIONMAPPED, LOCATIONINDEXED, PARTITIONED, CONCURRENT
   }
 
   @Option(secure=true, name="traversal.order",
@@ -73,16 +81,58 @@ public class ReachedSetFactory {
       description = "handle abstract states with more automaton matches first? (only if AutomatonCPA enabled)")
   boolean useAutomatonInformation = false;
 
+  @Option(secure=true, name = "traversal.useTargetDistance",
+      description = "handle states closer to a target location of the specification first? "
+      + "The distance is the length of the shortest path in the CFA to a target location. "
+      + "The secondary strategy is selected with 'analysis.traversal.order'. "
+      + "Helper analyses (e.g., invariant generation) use only the secondary strategy.")
+  boolean useTargetDistance = false;
+
   @Option(secure=true, name = "reachedSet",
       description = "which reached set implementation to use?"
       + "\nNORMAL: just a simple set"
       + "\nLOCATIONMAPPED: a different set per location "
       + "(faster, states with different locations cannot be merged)"
-      + "\nPARTITIONED: partitioning depending on CPAs (e.g Location, Callstack etc.)")
+      + "\nLOCATIONINDEXED: like LOCATIONMAPPED, but the sets are stored in an array indexed by the location"
+      + "\nPARTITIONED: partitioning depending on CPAs (e.g Location, Callstack etc.)"
+      + "\nCONCURRENT: like PARTITIONED, but safe for concurrent access by several threads")
   ReachedSetType reachedSet = ReachedSetType.PARTITIONED;
 
+  private final TargetDistances targetDistances;
+
   public ReachedSetFactory(Configuration config, LogManager logger) throws InvalidConfigurationException {
     config.inject(this);
+    targetDistances = new TargetDistances(logger);
+  }
+
+  /**
+   * Compute the distances to the target locations of the specification,
+   * if they are needed by the waitlists of this factory.
+   * This needs to be called before states are added to the reached sets
+   * created by this factory, otherwise their waitlists use only the secondary strategy.
+   */
+  public void initializeTargetDistances(CFA cfa, Configuration config, LogManager logger,
+      ShutdownNotifier shutdownNotifier) throws InvalidConfigurationException {
+    if (!useTargetDistance) {
+      return;
+    }
+
+    // search target locations with a reached set that does not depend on the distances
+    ReachedSetFactory plainReachedSetFactory = new ReachedSetFactory(Configuration.defaultConfiguration(), logger);
+    TargetLocationProvider targetLocationProvider
+        = new TargetLocationProvider(plainReachedSetFactory, shutdownNotifier, logger, config, cfa);
+    ImmutableSet<CFANode> targetLocations
+        = targetLocationProvider.tryGetAutomatonTargetLocations(cfa.getMainFunction());
+
+    targetDistances.initialize(cfa, targetLocations);
+  }
+
+  public boolean usesTargetDistances() {
+    return useTargetDistance;
+  }
+
+  public TargetDistances getTargetDistances() {
+    return targetDistances;
   }
 
   public ReachedSet create() {
@@ -104,14 +154,23 @@ public class ReachedSetFactory {
     if (useExplicitInformation) {
       waitlistFactory = ExplicitSortedWaitlist.factory(waitlistFactory);
     }
+    if (useTargetDistance) {
+      waitlistFactory = TargetDistanceSortedWaitlist.factory(waitlistFactory, targetDistances);
+    }
 
     switch (reachedSet) {
     case PARTITIONED:
       return new PartitionedReachedSet(waitlistFactory);
 
+    case CONCURRENT:
+      return new ConcurrentPartitionedReachedSet(waitlistFactory);
+
     case LOCATIONMAPPED:
       return new LocationMappedReachedSet(waitlistFactory);
 
+    case LOCATIONINDEXED:
+      return new LocationIndexedReachedSet(waitlistFactory);
+
     case NORMAL:
     default:
       return new DefaultReachedSet(waitlistFactory);
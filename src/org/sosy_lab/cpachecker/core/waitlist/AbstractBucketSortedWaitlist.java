@@ -0,0 +1,227 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.waitlist;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+
+/**
+ * Implementation of a sorted waitlist for small integer sorting keys
+ * (e.g., callstack depths or reverse-postorder ids of CFA nodes).
+ * It behaves like {@link AbstractSortedWaitlist}, but instead of a sorted map
+ * it uses a bucket queue: an array of secondary waitlists indexed by the key,
+ * and a cursor that points to the bucket with the highest key.
+ * Adding a state and finding the next state to pop do not need any tree
+ * lookups or boxing of the key.
+ *
+ * The array covers the range between the lowest and the highest key that was
+ * ever added, so the keys should be dense and not too far apart.
+ *
+ * The iterators created by this class are unmodifiable.
+ */
+public abstract class AbstractBucketSortedWaitlist implements Waitlist {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  // bounds the memory used for the bucket array if keys are very far apart
+  private static final int MAX_CAPACITY = 1 << 24;
+
+  private final WaitlistFactory wrappedWaitlist;
+
+  // buckets[i] holds the states with key (i + offset), or is null;
+  // empty buckets are kept for reuse
+  private Waitlist[] buckets = new Waitlist[INITIAL_CAPACITY];
+
+  // key of buckets[0], fixed by the first added state
+  private int offset = 0;
+  private boolean hasOffset = false;
+
+  // invariant: all buckets with an index above highest are null or empty,
+  // and highest == -1 iff this waitlist is empty
+  private int highest = -1;
+
+  private int size = 0;
+
+  /**
+   * Constructor that needs a factory for the waitlist implementation that
+   * should be used to store states with the same sorting key.
+   */
+  protected AbstractBucketSortedWaitlist(WaitlistFactory pSecondaryStrategy) {
+    wrappedWaitlist = Preconditions.checkNotNull(pSecondaryStrategy);
+  }
+
+  /**
+   * Method that generates the sorting key for any abstract state.
+   * States with a higher key are popped first.
+   * If this method throws an exception, no guarantees about the state of the
+   * current instance of this class are made.
+   */
+  protected abstract int getSortKey(AbstractState pState);
+
+  @Override
+  public void add(AbstractState pState) {
+    int index = getOrCreateIndex(getSortKey(pState));
+    Waitlist bucket = buckets[index];
+    if (bucket == null) {
+      bucket = wrappedWaitlist.createWaitlistInstance();
+      buckets[index] = bucket;
+    }
+    bucket.add(pState);
+    if (index > highest) {
+      highest = index;
+    }
+    size++;
+  }
+
+  /**
+   * Returns the index of the bucket for the given key,
+   * growing the bucket array if necessary.
+   */
+  private int getOrCreateIndex(int pKey) {
+    if (!hasOffset) {
+      // place the first key in the middle so that the array can grow to both sides
+      offset = pKey - INITIAL_CAPACITY / 2;
+      hasOffset = true;
+    }
+    long index = (long)pKey - offset;
+
+    if (index < 0) {
+      long shift = Math.max(-index, buckets.length);
+      Waitlist[] newBuckets = new Waitlist[checkCapacity(buckets.length + shift)];
+      System.arraycopy(buckets, 0, newBuckets, (int)shift, buckets.length);
+      buckets = newBuckets;
+      offset -= shift;
+      if (highest >= 0) {
+        highest += shift;
+      }
+      index += shift;
+
+    } else if (index >= buckets.length) {
+      buckets = Arrays.copyOf(buckets, checkCapacity(Math.max(index + 1, 2L * buckets.length)));
+    }
+    return (int)index;
+  }
+
+  private static int checkCapacity(long pCapacity) {
+    if (pCapacity > MAX_CAPACITY) {
+      throw new IllegalStateException("Sorting keys of waitlist are too far apart for a bucket queue");
+    }
+    return (int)pCapacity;
+  }
+
+  /**
+   * Returns the bucket for the given key, or null if there is none.
+   */
+  private Waitlist getBucket(int pKey) {
+    long index = (long)pKey - offset;
+    if (index < 0 || index >= buckets.length) {
+      return null;
+    }
+    return buckets[(int)index];
+  }
+
+  @Override
+  public boolean contains(AbstractState pState) {
+    Waitlist bucket = getBucket(getSortKey(pState));
+    return bucket != null && bucket.contains(pState);
+  }
+
+  @Override
+  public void clear() {
+    buckets = new Waitlist[INITIAL_CAPACITY];
+    hasOffset = false;
+    highest = -1;
+    size = 0;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    assert (highest == -1) == (size == 0);
+    return size == 0;
+  }
+
+  @Override
+  public Iterator<AbstractState> iterator() {
+    return Iterators.unmodifiableIterator(
+        Iterables.concat(Iterables.filter(Arrays.asList(buckets), Predicates.notNull())).iterator());
+  }
+
+  @Override
+  public AbstractState pop() {
+    Waitlist bucket = buckets[highest];
+    assert !bucket.isEmpty();
+    AbstractState result = bucket.pop();
+    size--;
+    moveCursor();
+    return result;
+  }
+
+  @Override
+  public boolean remove(AbstractState pState) {
+    Waitlist bucket = getBucket(getSortKey(pState));
+    if (bucket == null) {
+      return false;
+    }
+    boolean result = bucket.remove(pState);
+    if (result) {
+      size--;
+      moveCursor();
+    }
+    return result;
+  }
+
+  /**
+   * Moves the cursor down to the highest non-empty bucket.
+   */
+  private void moveCursor() {
+    while (highest >= 0 && (buckets[highest] == null || buckets[highest].isEmpty())) {
+      highest--;
+    }
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    String separator = "";
+    for (int i = 0; i <= highest; i++) {
+      if (buckets[i] != null && !buckets[i].isEmpty()) {
+        sb.append(separator).append(i + offset).append('=').append(buckets[i]);
+        separator = ", ";
+      }
+    }
+    return sb.append('}').toString();
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.waitlist;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.TraversalMethod;
+
+
+public class AbstractBucketSortedWaitlistTest {
+
+  private static class TestState implements AbstractState {
+
+    private final int key;
+
+    private TestState(int pKey) {
+      key = pKey;
+    }
+  }
+
+  private static Waitlist createBucketWaitlist() {
+    return new AbstractBucketSortedWaitlist(TraversalMethod.DFS) {
+      @Override
+      protected int getSortKey(AbstractState pState) {
+        return ((TestState)pState).key;
+      }
+    };
+  }
+
+  private static Waitlist createTreeWaitlist() {
+    return new AbstractSortedWaitlist<Integer>(TraversalMethod.DFS) {
+      @Override
+      protected Integer getSortKey(AbstractState pState) {
+        return ((TestState)pState).key;
+      }
+    };
+  }
+
+  @Test
+  public void testHighestKeyFirst() {
+    Waitlist waitlist = createBucketWaitlist();
+    TestState low = new TestState(-5);
+    TestState middle1 = new TestState(3);
+    TestState middle2 = new TestState(3);
+    TestState high = new TestState(100);
+    waitlist.add(middle1);
+    waitlist.add(low);
+    waitlist.add(high);
+    waitlist.add(middle2);
+
+    assertThat(waitlist.size()).isEqualTo(4);
+    assertThat(waitlist).containsExactly(low, middle1, middle2, high).inOrder();
+    assertThat(waitlist.pop()).isSameAs(high);
+    assertThat(waitlist.pop()).isSameAs(middle2); // DFS within the same key
+    assertThat(waitlist.pop()).isSameAs(middle1);
+    assertThat(waitlist.pop()).isSameAs(low);
+    assertThat(waitlist.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void testRemoveAndContains() {
+    Waitlist waitlist = createBucketWaitlist();
+    TestState state1 = new TestState(7);
+    TestState state2 = new TestState(2);
+    waitlist.add(state1);
+    waitlist.add(state2);
+
+    assertThat(waitlist.contains(new TestState(7))).isFalse();
+    assertThat(waitlist.contains(new TestState(1000))).isFalse();
+    assertThat(waitlist.remove(state1)).isTrue();
+    assertThat(waitlist.remove(state1)).isFalse();
+    assertThat(waitlist.contains(state1)).isFalse();
+    assertThat(waitlist.pop()).isSameAs(state2);
+    assertThat(waitlist.isEmpty()).isTrue();
+  }
+
+  /**
+   * Compares the bucket queue with the TreeMap-based implementation
+   * on random sequences of operations.
+   */
+  @Test
+  public void testSameBehaviorAsTreeMapWaitlist() {
+    Random random = new Random(0);
+    for (int run = 0; run < 50; run++) {
+      int range = 1 + random.nextInt(run % 2 == 0 ? 10 : 2000);
+      int base = random.nextInt(2001) - 1000;
+      Waitlist expected = createTreeWaitlist();
+      Waitlist actual = createBucketWaitlist();
+      List<TestState> added = new ArrayList<>();
+
+      for (int i = 0; i < 2000; i++) {
+        int operation = random.nextInt(10);
+        if (operation < 5) {
+          TestState state = new TestState(base + random.nextInt(range));
+          expected.add(state);
+          actual.add(state);
+          added.add(state);
+        } else if (operation < 8) {
+          if (!expected.isEmpty()) {
+            assertThat(actual.pop()).isSameAs(expected.pop());
+          }
+        } else if (!added.isEmpty()) {
+          TestState state = added.get(random.nextInt(added.size()));
+          assertThat(actual.remove(state)).isEqualTo(expected.remove(state));
+        }
+        assertThat(actual.size()).isEqualTo(expected.size());
+      }
+      assertThat(actual).containsExactlyElementsIn(expected).inOrder();
+    }
+  }
+}
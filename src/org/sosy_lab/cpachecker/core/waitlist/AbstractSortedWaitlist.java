@@ -113,7 +113,7 @@ public abstract class AbstractSortedWaitlist<K extends Comparable<K>> implements
   }
 
   @Override
-  public final AbstractState pop() {
+  public AbstractState pop() {
     Entry<K, Waitlist> highestEntry = null;
     highestEntry = waitlist.lastEntry();
     Waitlist localWaitlist = highestEntry.getValue();
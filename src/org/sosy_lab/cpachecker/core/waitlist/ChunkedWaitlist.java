@@ -0,0 +1,214 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.waitlist;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+
+/**
+ * Breadth-first waitlist that stores its states in a queue of small fixed-size chunks.
+ *
+ * Compared to {@link SimpleWaitlist}, which is backed by a single array,
+ * this waitlist never needs to copy all its elements into a new array of twice the size
+ * when it grows (which needs three times the memory of the waitlist at this moment,
+ * in one large contiguous block), and it releases memory as soon as it shrinks again.
+ * For very large state spaces explored in BFS order, where the waitlist grows
+ * to millions of states, this avoids the memory peaks of the array growth.
+ * States that are removed with {@link #remove(AbstractState)} leave holes in the chunks,
+ * which are compacted as soon as they make up more than half of the waitlist.
+ *
+ * Note that this affects only the memory for the references to the states:
+ * every state in the waitlist is also contained in the reached set,
+ * so the states themselves cannot be released (or written to disk) by the waitlist.
+ */
+public class ChunkedWaitlist implements Waitlist {
+
+  static final int CHUNK_SIZE = 1024;
+
+  /** Full and partially filled chunks, the head is at {@link #headIndex} of the first chunk. */
+  private final ArrayDeque<AbstractState[]> chunks = new ArrayDeque<>();
+
+  /** Next position to read from in the first chunk. */
+  private int headIndex = 0;
+
+  /** Next position to write to in the last chunk. */
+  private int tailIndex = CHUNK_SIZE;
+
+  /** One empty chunk that is kept for re-use, so that a waitlist that oscillates around a chunk boundary does not allocate. */
+  private AbstractState[] spareChunk = null;
+
+  private int size = 0;
+
+  /** Number of removed states that still occupy a slot in the chunks. */
+  private int holes = 0;
+
+  ChunkedWaitlist() { }
+
+  @Override
+  public void add(AbstractState pState) {
+    if (tailIndex == CHUNK_SIZE) {
+      AbstractState[] chunk = spareChunk;
+      spareChunk = null;
+      if (chunk == null) {
+        chunk = new AbstractState[CHUNK_SIZE];
+      }
+      chunks.addLast(chunk);
+      tailIndex = 0;
+    }
+    chunks.getLast()[tailIndex++] = pState;
+    size++;
+  }
+
+  @Override
+  public AbstractState pop() {
+    while (!chunks.isEmpty()) {
+      AbstractState[] chunk = chunks.getFirst();
+      int end = (chunks.size() == 1) ? tailIndex : CHUNK_SIZE;
+
+      while (headIndex < end) {
+        AbstractState state = chunk[headIndex];
+        chunk[headIndex++] = null;
+        if (state == null) { // removed state
+          holes--;
+        } else {
+          size--;
+          if (size == 0) {
+            clear();
+          }
+          return state;
+        }
+      }
+      if (chunks.size() == 1) {
+        break;
+      }
+      chunks.removeFirst();
+      spareChunk = chunk;
+      headIndex = 0;
+    }
+    throw new NoSuchElementException("Waitlist is empty");
+  }
+
+  @Override
+  public boolean remove(AbstractState pState) {
+    // removal leaves a hole in the chunk, which is skipped by pop()
+    int index = 0;
+    for (AbstractState[] chunk : chunks) {
+      int start = (index == 0) ? headIndex : 0;
+      int end = (index == chunks.size() - 1) ? tailIndex : CHUNK_SIZE;
+      for (int i = start; i < end; i++) {
+        if (chunk[i] != null && chunk[i].equals(pState)) {
+          chunk[i] = null;
+          size--;
+          holes++;
+          if (size == 0) {
+            clear();
+          } else if (holes >= CHUNK_SIZE && holes > size) {
+            compact();
+          }
+          return true;
+        }
+      }
+      index++;
+    }
+    return false;
+  }
+
+  @Override
+  public void clear() {
+    chunks.clear();
+    headIndex = 0;
+    tailIndex = CHUNK_SIZE;
+    size = 0;
+    holes = 0;
+  }
+
+  /**
+   * Copy all states into new chunks without holes.
+   */
+  private void compact() {
+    AbstractState[] states = Iterators.toArray(iterator(), AbstractState.class);
+    clear();
+    for (AbstractState state : states) {
+      add(state);
+    }
+  }
+
+  @Override
+  public boolean contains(AbstractState pState) {
+    return Iterators.contains(iterator(), pState);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Iterator<AbstractState> iterator() {
+    final Iterator<AbstractState[]> chunkIterator = chunks.iterator();
+
+    return new AbstractIterator<AbstractState>() {
+
+      private AbstractState[] chunk = null;
+      private int pos;
+      private int end;
+      private boolean first = true;
+
+      @Override
+      protected AbstractState computeNext() {
+        while (true) {
+          while (chunk != null && pos < end) {
+            AbstractState state = chunk[pos++];
+            if (state != null) {
+              return state;
+            }
+          }
+          if (!chunkIterator.hasNext()) {
+            return endOfData();
+          }
+          chunk = chunkIterator.next();
+          pos = first ? headIndex : 0;
+          end = chunkIterator.hasNext() ? CHUNK_SIZE : tailIndex;
+          first = false;
+        }
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return Iterators.toString(iterator());
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.waitlist;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+
+
+public class ChunkedWaitlistTest {
+
+  private static class TestState implements AbstractState {
+  }
+
+  private static List<AbstractState> createStates(int count) {
+    List<AbstractState> states = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      states.add(new TestState());
+    }
+    return states;
+  }
+
+  @Test
+  public void testFifoOrderAcrossChunks() {
+    Waitlist waitlist = TraversalMethod.CHUNKED_BFS.createWaitlistInstance();
+    List<AbstractState> states = createStates(3 * ChunkedWaitlist.CHUNK_SIZE + 17);
+
+    for (AbstractState state : states) {
+      waitlist.add(state);
+    }
+    assertThat(waitlist.size()).isEqualTo(states.size());
+    assertThat(waitlist).containsExactlyElementsIn(states).inOrder();
+
+    for (AbstractState state : states) {
+      assertThat(waitlist.pop()).isSameAs(state);
+    }
+    assertThat(waitlist.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void testInterleavedAddAndPop() {
+    Waitlist waitlist = TraversalMethod.CHUNKED_BFS.createWaitlistInstance();
+    List<AbstractState> states = createStates(5 * ChunkedWaitlist.CHUNK_SIZE);
+
+    int next = 0;
+    for (int i = 0; i < states.size(); i++) {
+      waitlist.add(states.get(i));
+      if (i % 3 == 0) {
+        assertThat(waitlist.pop()).isSameAs(states.get(next++));
+      }
+    }
+    while (!waitlist.isEmpty()) {
+      assertThat(waitlist.pop()).isSameAs(states.get(next++));
+    }
+    assertThat(next).isEqualTo(states.size());
+  }
+
+  @Test
+  public void testRemove() {
+    Waitlist waitlist = TraversalMethod.CHUNKED_BFS.createWaitlistInstance();
+    List<AbstractState> states = createStates(ChunkedWaitlist.CHUNK_SIZE + 2);
+    for (AbstractState state : states) {
+      waitlist.add(state);
+    }
+
+    AbstractState removed = states.get(ChunkedWaitlist.CHUNK_SIZE);
+    assertThat(waitlist.remove(removed)).isTrue();
+    assertThat(waitlist.remove(removed)).isFalse();
+    assertThat(waitlist.contains(removed)).isFalse();
+    assertThat(waitlist.size()).isEqualTo(states.size() - 1);
+
+    List<AbstractState> popped = new ArrayList<>();
+    while (!waitlist.isEmpty()) {
+      popped.add(waitlist.pop());
+    }
+    states.remove(removed);
+    assertThat(popped).containsExactlyElementsIn(states).inOrder();
+  }
+
+  @Test
+  public void testRemoveManyWithCompaction() {
+    Waitlist waitlist = TraversalMethod.CHUNKED_BFS.createWaitlistInstance();
+    List<AbstractState> states = createStates(4 * ChunkedWaitlist.CHUNK_SIZE);
+    for (AbstractState state : states) {
+      waitlist.add(state);
+    }
+
+    // remove three of four states, which triggers compaction at some point
+    List<AbstractState> kept = new ArrayList<>();
+    for (int i = 0; i < states.size(); i++) {
+      if (i % 4 == 0) {
+        kept.add(states.get(i));
+      } else {
+        assertThat(waitlist.remove(states.get(i))).isTrue();
+      }
+    }
+    assertThat(waitlist.size()).isEqualTo(kept.size());
+    assertThat(waitlist).containsExactlyElementsIn(kept).inOrder();
+
+    AbstractState added = new TestState();
+    waitlist.add(added);
+    kept.add(added);
+
+    List<AbstractState> popped = new ArrayList<>();
+    while (!waitlist.isEmpty()) {
+      popped.add(waitlist.pop());
+    }
+    assertThat(popped).containsExactlyElementsIn(kept).inOrder();
+  }
+
+  @Test(expected=NoSuchElementException.class)
+  public void testPopFromEmptyWaitlist() {
+    Waitlist waitlist = TraversalMethod.CHUNKED_BFS.createWaitlistInstance();
+    waitlist.add(new TestState());
+    waitlist.pop();
+    waitlist.pop();
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.waitlist;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Waitlist implementations that can be accessed by several threads concurrently.
+ *
+ * For the simple strategies BFS and DFS, a lock-free deque is used.
+ * All other strategies are wrapped such that every access is synchronized.
+ *
+ * {@link #pop()} returns null if the waitlist is empty,
+ * because another thread may have removed the last state after a call to
+ * {@link #isEmpty()}.
+ */
+public abstract class ConcurrentWaitlist implements Waitlist {
+
+  private ConcurrentWaitlist() { }
+
+  /**
+   * Create a factory for thread-safe waitlists that use the same strategy
+   * as the given factory.
+   */
+  public static WaitlistFactory factory(final WaitlistFactory pStrategy) {
+    Preconditions.checkNotNull(pStrategy);
+    if (pStrategy == TraversalMethod.BFS || pStrategy == TraversalMethod.DFS) {
+      return new WaitlistFactory() {
+        @Override
+        public Waitlist createWaitlistInstance() {
+          return new LockFreeWaitlist((TraversalMethod)pStrategy);
+        }
+      };
+    }
+
+    return new WaitlistFactory() {
+      @Override
+      public Waitlist createWaitlistInstance() {
+        return new SynchronizedWaitlist(pStrategy.createWaitlistInstance());
+      }
+    };
+  }
+
+  /**
+   * Lock-free waitlist for BFS and DFS.
+   * The size is tracked separately because
+   * {@link ConcurrentLinkedDeque#size()} needs linear time.
+   */
+  private static class LockFreeWaitlist extends ConcurrentWaitlist {
+
+    private final ConcurrentLinkedDeque<AbstractState> waitlist = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger size = new AtomicInteger(0);
+    private final TraversalMethod traversal;
+
+    private LockFreeWaitlist(TraversalMethod pTraversal) {
+      traversal = pTraversal;
+    }
+
+    @Override
+    public void add(AbstractState pState) {
+      waitlist.addLast(pState);
+      size.incrementAndGet();
+    }
+
+    @Override
+    public void clear() {
+      while (waitlist.pollFirst() != null) {
+        size.decrementAndGet();
+      }
+    }
+
+    @Override
+    public boolean contains(AbstractState pState) {
+      return waitlist.contains(pState);
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return waitlist.isEmpty();
+    }
+
+    @Override
+    public AbstractState pop() {
+      AbstractState result = (traversal == TraversalMethod.BFS)
+          ? waitlist.pollFirst()
+          : waitlist.pollLast();
+      if (result != null) {
+        size.decrementAndGet();
+      }
+      return result;
+    }
+
+    @Override
+    public boolean remove(AbstractState pState) {
+      boolean result = waitlist.removeFirstOccurrence(pState);
+      if (result) {
+        size.decrementAndGet();
+      }
+      return result;
+    }
+
+    @Override
+    public int size() {
+      return Math.max(size.get(), 0);
+    }
+
+    @Override
+    public Iterator<AbstractState> iterator() {
+      // weakly consistent, never throws ConcurrentModificationException
+      return waitlist.iterator();
+    }
+
+    @Override
+    public String toString() {
+      return waitlist.toString();
+    }
+  }
+
+  /**
+   * Wrapper that synchronizes all accesses to an arbitrary waitlist.
+   * Iteration is done over a snapshot.
+   */
+  private static class SynchronizedWaitlist extends ConcurrentWaitlist {
+
+    private final Waitlist delegate;
+
+    private SynchronizedWaitlist(Waitlist pDelegate) {
+      delegate = pDelegate;
+    }
+
+    @Override
+    public synchronized void add(AbstractState pState) {
+      delegate.add(pState);
+    }
+
+    @Override
+    public synchronized void clear() {
+      delegate.clear();
+    }
+
+    @Override
+    public synchronized boolean contains(AbstractState pState) {
+      return delegate.contains(pState);
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+      return delegate.isEmpty();
+    }
+
+    @Override
+    public synchronized AbstractState pop() {
+      if (delegate.isEmpty()) {
+        return null;
+      }
+      return delegate.pop();
+    }
+
+    @Override
+    public synchronized boolean remove(AbstractState pState) {
+      return delegate.remove(pState);
+    }
+
+    @Override
+    public synchronized int size() {
+      return delegate.size();
+    }
+
+    @Override
+    public synchronized Iterator<AbstractState> iterator() {
+      return ImmutableList.copyOf(delegate).iterator();
+    }
+
+    @Override
+    public synchronized String toString() {
+      return delegate.toString();
+    }
+  }
+}
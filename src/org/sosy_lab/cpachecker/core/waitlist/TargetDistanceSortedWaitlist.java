@@ -0,0 +1,217 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.waitlist;
+
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+
+import javax.annotation.Nullable;
+
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsUtils;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Waitlist implementation that sorts the abstract states by the length
+ * of the shortest path in the CFA from their location to a target location
+ * of the specification. States closer to a target location are considered first,
+ * states from which no target location is reachable are considered last.
+ * A secondary strategy needs to be given that decides what to do with states
+ * of the same distance.
+ *
+ * The distances are computed once for all waitlists by {@link TargetDistances}.
+ */
+public class TargetDistanceSortedWaitlist extends AbstractSortedWaitlist<Integer> {
+
+  private final TargetDistances distances;
+
+  protected TargetDistanceSortedWaitlist(WaitlistFactory pSecondaryStrategy, TargetDistances pDistances) {
+    super(pSecondaryStrategy);
+    distances = pDistances;
+  }
+
+  @Override
+  protected Integer getSortKey(AbstractState pState) {
+    // negated such that the smallest distance has the highest key
+    return -getDistance(pState);
+  }
+
+  private int getDistance(AbstractState pState) {
+    CFANode location = AbstractStates.extractLocation(pState);
+    assert location != null;
+    return distances.getDistance(location);
+  }
+
+  @Override
+  public AbstractState pop() {
+    AbstractState result = super.pop();
+    distances.recordPop(getDistance(result));
+    return result;
+  }
+
+  public static WaitlistFactory factory(final WaitlistFactory pSecondaryStrategy,
+      final TargetDistances pDistances) {
+    Preconditions.checkNotNull(pDistances);
+    return new WaitlistFactory() {
+
+      @Override
+      public Waitlist createWaitlistInstance() {
+        return new TargetDistanceSortedWaitlist(pSecondaryStrategy, pDistances);
+      }
+    };
+  }
+
+  /**
+   * The backwards distances of all CFA nodes to the target locations,
+   * shared by all waitlists created by one factory,
+   * together with statistics about the order in which states were popped.
+   *
+   * The distances need to be initialized with {@link #initialize(CFA, Iterable)}
+   * before the first state is added to a waitlist.
+   * Otherwise, all locations have the same distance,
+   * such that only the secondary strategy is used.
+   */
+  public static class TargetDistances implements Statistics {
+
+    /** Distance of nodes from which no target location is reachable. */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final LogManager logger;
+
+    private @Nullable ImmutableMap<CFANode, Integer> distances = null;
+    private int numberOfTargets = 0;
+    private boolean warnedAboutMissingDistances = false;
+
+    // statistics about the order quality
+    private int countPops = 0;
+    private long sumPoppedDistance = 0;
+    private int countUnreachablePops = 0;
+    private int countIncreases = 0;
+    private int minPoppedDistance = UNREACHABLE;
+    private int lastPoppedDistance = UNREACHABLE;
+
+    public TargetDistances(LogManager pLogger) {
+      logger = pLogger;
+    }
+
+    /**
+     * Compute the distances by a backwards breadth-first search
+     * from the given target locations (each CFA edge counts as one step).
+     * If targetLocations is null (the target locations are unknown),
+     * all locations get the same distance.
+     */
+    public void initialize(CFA pCfa, @Nullable Iterable<CFANode> pTargetLocations) {
+      Map<CFANode, Integer> result = new HashMap<>();
+
+      if (pTargetLocations == null) {
+        for (CFANode node : pCfa.getAllNodes()) {
+          result.put(node, 0);
+        }
+
+      } else {
+        Deque<CFANode> worklist = new ArrayDeque<>();
+        for (CFANode target : pTargetLocations) {
+          if (!result.containsKey(target)) {
+            result.put(target, 0);
+            worklist.add(target);
+            numberOfTargets++;
+          }
+        }
+
+        while (!worklist.isEmpty()) {
+          CFANode node = worklist.removeFirst();
+          int predecessorDistance = result.get(node) + 1;
+          for (CFANode predecessor : CFAUtils.predecessorsOf(node)) {
+            if (!result.containsKey(predecessor)) {
+              result.put(predecessor, predecessorDistance);
+              worklist.addLast(predecessor);
+            }
+          }
+        }
+      }
+
+      distances = ImmutableMap.copyOf(result);
+    }
+
+    int getDistance(CFANode pLocation) {
+      if (distances == null) {
+        if (!warnedAboutMissingDistances) {
+          logger.log(Level.WARNING, "Distances to target locations are not available for this analysis,",
+              "states are ordered only by the secondary traversal strategy.");
+          warnedAboutMissingDistances = true;
+        }
+        return 0;
+      }
+      Integer distance = distances.get(pLocation);
+      return (distance != null) ? distance : UNREACHABLE;
+    }
+
+    private void recordPop(int pDistance) {
+      countPops++;
+      if (pDistance == UNREACHABLE) {
+        countUnreachablePops++;
+      } else {
+        sumPoppedDistance += pDistance;
+        minPoppedDistance = Math.min(minPoppedDistance, pDistance);
+      }
+      if (pDistance > lastPoppedDistance) {
+        countIncreases++;
+      }
+      lastPoppedDistance = pDistance;
+    }
+
+    @Override
+    public String getName() {
+      return "Target-Distance Waitlist";
+    }
+
+    @Override
+    public void printStatistics(PrintStream out, Result pResult, ReachedSet pReached) {
+      int reachablePops = countPops - countUnreachablePops;
+      out.println("Number of target locations:                     " + numberOfTargets);
+      out.println("Number of locations that can reach a target:    " + (distances == null ? 0 : distances.size()));
+      out.println("Number of states popped from waitlist:          " + countPops);
+      out.println("  with target unreachable:                      " + countUnreachablePops);
+      if (reachablePops > 0) {
+        out.println("  avg. distance to target:                      " + StatisticsUtils.div(sumPoppedDistance, reachablePops));
+        out.println("  min. distance to target:                      " + minPoppedDistance);
+      }
+      out.println("Number of pops farther from target than before: " + countIncreases);
+    }
+  }
+}
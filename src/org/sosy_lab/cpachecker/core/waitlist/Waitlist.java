@@ -106,6 +106,8 @@ public interface Waitlist extends Iterable<AbstractState> {
     BFS     { @Override public Waitlist createWaitlistInstance() { return new SimpleWaitlist(this); } },
     RAND    { @Override public Waitlist createWaitlistInstance() { return new RandomWaitlist();     } },
     RANDOM_PATH { @Override public Waitlist createWaitlistInstance() { return new RandomPathWaitlist(); } },
+    /** BFS with a waitlist of fixed-size chunks, for very large state spaces */
+    CHUNKED_BFS { @Override public Waitlist createWaitlistInstance() { return new ChunkedWaitlist(); } },
     ;
   }
 }
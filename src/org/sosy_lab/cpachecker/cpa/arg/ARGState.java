@@ -27,12 +27,14 @@ import static com.google.common.base.Preconditions.*;
 import static com.google.common.collect.FluentIterable.from;
 import static org.sosy_lab.cpachecker.util.AbstractStates.extractLocation;
 
+import java.util.AbstractCollection;
 import java.util.ArrayDeque;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
@@ -47,27 +49,33 @@ import org.sosy_lab.cpachecker.core.interfaces.Graphable;
 import org.sosy_lab.cpachecker.util.UniqueIdGenerator;
 
 import com.google.common.base.Function;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Sets;
 
 public class ARGState extends AbstractSingleWrapperState implements Comparable<ARGState>, Graphable {
 
-  private static final long serialVersionUID = 2608287648397165040L;
+  private static final long serialVersionUID = -4391505734961577447L;
 
-  // We use a List here although we would like to have a Set
-  // because ArrayList is much more memory efficient than e.g. LinkedHashSet.
-  // Also these collections are small and so a slow contains() method won't hurt.
-  // To enforce set semantics, do not add elements except through addparent()!
-  private final Collection<ARGState> children = new ArrayList<>(1);
-  private final Collection<ARGState> parents = new ArrayList<>(1);
+  // ARGs can have tens of millions of nodes, so we keep the per-node overhead small.
+  // Each of the following fields is either null (no element),
+  // a single ARGState (the common case, no extra object is needed),
+  // or an ARGState[] with at least two elements and without duplicates.
+  // The arrays are never modified after they have been stored,
+  // so an iteration over the children or parents always sees a consistent snapshot.
+  // These collections are small and so a slow contains() method won't hurt.
+  // To enforce set semantics, do not add elements except through addParent()!
+  private Object children = null;
+  private Object parents = null;
 
   private ARGState mCoveredBy = null;
   private Set<ARGState> mCoveredByThis = null; // lazy initialization because rarely needed
 
-  // boolean which keeps track of which elements have already had their successors computed
-  private boolean wasExpanded = false;
-  private boolean mayCover = true;
-  private boolean destroyed = false;
-  private boolean hasCoveredParent = false;
+  // flags packed into a single byte
+  private static final byte WAS_EXPANDED = 1; // successors of this state have been computed
+  private static final byte MAY_NOT_COVER = 1 << 1;
+  private static final byte DESTROYED = 1 << 2;
+  private static final byte HAS_COVERED_PARENT = 1 << 3;
+  private byte flags = 0;
 
   private ARGState mergedWith = null;
 
@@ -90,20 +98,20 @@ public class ARGState extends AbstractSingleWrapperState implements Comparable<A
    * @return A unmodifiable collection of ARGStates without duplicates.
    */
   public Collection<ARGState> getParents() {
-    return Collections.unmodifiableCollection(parents);
+    return new LinkView(this, false);
   }
 
   public void addParent(ARGState pOtherParent) {
     checkNotNull(pOtherParent);
-    assert !destroyed : "Don't use destroyed ARGState " + this;
+    assert !isDestroyed() : "Don't use destroyed ARGState " + this;
 
     // Manually enforce set semantics.
-    if (!parents.contains(pOtherParent)) {
-      assert !pOtherParent.children.contains(this);
-      parents.add(pOtherParent);
-      pOtherParent.children.add(this);
+    if (!contains(parents, pOtherParent)) {
+      assert !contains(pOtherParent.children, this);
+      parents = add(parents, pOtherParent);
+      pOtherParent.children = add(pOtherParent.children, this);
     } else {
-      assert pOtherParent.children.contains(this);
+      assert contains(pOtherParent.children, this);
     }
   }
 
@@ -112,8 +120,8 @@ public class ARGState extends AbstractSingleWrapperState implements Comparable<A
    * @return An unmodifiable collection of ARGStates without duplicates.
    */
   public Collection<ARGState> getChildren() {
-    assert !destroyed : "Don't use destroyed ARGState " + this;
-    return Collections.unmodifiableCollection(children);
+    assert !isDestroyed() : "Don't use destroyed ARGState " + this;
+    return new LinkView(this, true);
   }
 
   /**
@@ -122,7 +130,7 @@ public class ARGState extends AbstractSingleWrapperState implements Comparable<A
    */
   @Nullable
   public CFAEdge getEdgeToChild(ARGState pChild) {
-    checkArgument(children.contains(pChild));
+    checkArgument(contains(children, pChild));
 
     CFANode currentLoc = extractLocation(this);
     CFANode childLoc = extractLocation(pChild);
@@ -147,7 +155,7 @@ public class ARGState extends AbstractSingleWrapperState implements Comparable<A
   }
 
   public Set<ARGState> getSubgraph() {
-    assert !destroyed : "Don't use destroyed ARGState " + this;
+    assert !isDestroyed() : "Don't use destroyed ARGState " + this;
     Set<ARGState> result = new HashSet<>();
     Deque<ARGState> workList = new ArrayDeque<>();
 
@@ -157,7 +165,7 @@ public class ARGState extends AbstractSingleWrapperState implements Comparable<A
       ARGState currentElement = workList.removeFirst();
       if (result.add(currentElement)) {
         // currentElement was not in result
-        workList.addAll(currentElement.children);
+        Iterators.addAll(workList, iterator(currentElement.children));
       }
     }
     return result;
@@ -168,7 +176,7 @@ public class ARGState extends AbstractSingleWrapperState implements Comparable<A
   public void setCovered(@Nonnull ARGState pCoveredBy) {
     checkState(!isCovered(), "Cannot cover already covered element %s", this);
     checkNotNull(pCoveredBy);
-    checkArgument(pCoveredBy.mayCover, "Trying to cover with non-covering element %s", pCoveredBy);
+    checkArgument((pCoveredBy.flags & MAY_NOT_COVER) == 0, "Trying to cover with non-covering element %s", pCoveredBy);
 
     mCoveredBy = pCoveredBy;
     if (pCoveredBy.mCoveredByThis == null) {
@@ -187,7 +195,7 @@ public class ARGState extends AbstractSingleWrapperState implements Comparable<A
   }
 
   public boolean isCovered() {
-    assert !destroyed : "Don't use destroyed ARGState " + this;
+    assert !isDestroyed() : "Don't use destroyed ARGState " + this;
     return mCoveredBy != null;
   }
 
@@ -197,7 +205,7 @@ public class ARGState extends AbstractSingleWrapperState implements Comparable<A
   }
 
   public Set<ARGState> getCoveredByThis() {
-    assert !destroyed : "Don't use destroyed ARGState " + this;
+    assert !isDestroyed() : "Don't use destroyed ARGState " + this;
     if (mCoveredByThis == null) {
       return Collections.emptySet();
     } else {
@@ -206,23 +214,31 @@ public class ARGState extends AbstractSingleWrapperState implements Comparable<A
   }
 
   public boolean mayCover() {
-    return mayCover && !hasCoveredParent && !isCovered();
+    return (flags & (MAY_NOT_COVER | HAS_COVERED_PARENT)) == 0 && !isCovered();
   }
 
   public void setNotCovering() {
-    assert !destroyed : "Don't use destroyed ARGState " + this;
-    mayCover = false;
+    assert !isDestroyed() : "Don't use destroyed ARGState " + this;
+    setFlag(MAY_NOT_COVER, true);
   }
 
   void setHasCoveredParent(boolean pHasCoveredParent) {
-    assert !destroyed : "Don't use destroyed ARGState " + this;
-    hasCoveredParent = pHasCoveredParent;
+    assert !isDestroyed() : "Don't use destroyed ARGState " + this;
+    setFlag(HAS_COVERED_PARENT, pHasCoveredParent);
+  }
+
+  private void setFlag(byte pFlag, boolean pValue) {
+    if (pValue) {
+      flags |= pFlag;
+    } else {
+      flags &= ~pFlag;
+    }
   }
 
   // merged-with marker so that stop can return true for merged elements
 
   void setMergedWith(ARGState pMergedWith) {
-    assert !destroyed : "Don't use destroyed ARGState " + this;
+    assert !isDestroyed() : "Don't use destroyed ARGState " + this;
     assert mergedWith == null : "Second merging of element " + this;
 
     mergedWith = pMergedWith;
@@ -235,17 +251,17 @@ public class ARGState extends AbstractSingleWrapperState implements Comparable<A
   // was-expanded marker so we can identify open leafs
 
   boolean wasExpanded() {
-    return wasExpanded;
+    return (flags & WAS_EXPANDED) != 0;
   }
 
   void markExpanded() {
-    wasExpanded = true;
+    setFlag(WAS_EXPANDED, true);
   }
 
   void deleteChild(ARGState child) {
-    assert (children.contains(child));
-    children.remove(child);
-    child.parents.remove(this);
+    assert contains(children, child);
+    children = remove(children, child);
+    child.parents = remove(child.parents, this);
   }
 
   // small and less important stuff
@@ -255,7 +271,7 @@ public class ARGState extends AbstractSingleWrapperState implements Comparable<A
   }
 
   public boolean isDestroyed() {
-    return destroyed;
+    return (flags & DESTROYED) != 0;
   }
 
   /**
@@ -286,13 +302,13 @@ public class ARGState extends AbstractSingleWrapperState implements Comparable<A
 
   @Override
   public boolean isTarget() {
-    return !hasCoveredParent && !isCovered() && super.isTarget();
+    return (flags & HAS_COVERED_PARENT) == 0 && !isCovered() && super.isTarget();
   }
 
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder();
-    if (destroyed) {
+    if (isDestroyed()) {
       sb.append("Destroyed ");
     }
     if (mCoveredBy != null) {
@@ -300,11 +316,11 @@ public class ARGState extends AbstractSingleWrapperState implements Comparable<A
     }
     sb.append("ARG State (Id: ");
     sb.append(stateId);
-    if (!destroyed) {
+    if (!isDestroyed()) {
       sb.append(", Parents: ");
-      sb.append(stateIdsOf(parents));
+      sb.append(stateIdsOf(getParents()));
       sb.append(", Children: ");
-      sb.append(stateIdsOf(children));
+      sb.append(stateIdsOf(getChildren()));
 
       if (mCoveredBy != null) {
         sb.append(", Covered by: ");
@@ -360,21 +376,21 @@ public class ARGState extends AbstractSingleWrapperState implements Comparable<A
    * elements will not be removed from the covered set.
    */
   public void removeFromARG() {
-    assert !destroyed : "Don't use destroyed ARGState " + this;
+    assert !isDestroyed() : "Don't use destroyed ARGState " + this;
 
     // clear children
-    for (ARGState child : children) {
-      assert (child.parents.contains(this));
-      child.parents.remove(this);
+    for (ARGState child : getChildren()) {
+      assert contains(child.parents, this);
+      child.parents = remove(child.parents, this);
     }
-    children.clear();
+    children = null;
 
     // clear parents
-    for (ARGState parent : parents) {
-      assert (parent.children.contains(this));
-      parent.children.remove(this);
+    for (ARGState parent : getParents()) {
+      assert contains(parent.children, this);
+      parent.children = remove(parent.children, this);
     }
-    parents.clear();
+    parents = null;
 
     // clear coverage relation
     if (isCovered()) {
@@ -392,7 +408,7 @@ public class ARGState extends AbstractSingleWrapperState implements Comparable<A
       mCoveredByThis = null;
     }
 
-    destroyed = true;
+    setFlag(DESTROYED, true);
   }
 
   /**
@@ -405,25 +421,25 @@ public class ARGState extends AbstractSingleWrapperState implements Comparable<A
    * @param replacement
    */
   public void replaceInARGWith(ARGState replacement) {
-    assert !destroyed : "Don't use destroyed ARGState " + this;
-    assert !replacement.destroyed : "Don't use destroyed ARGState " + replacement;
+    assert !isDestroyed() : "Don't use destroyed ARGState " + this;
+    assert !replacement.isDestroyed() : "Don't use destroyed ARGState " + replacement;
     assert !isCovered() : "Not implemented: Replacement of covered element " + this;
     assert !replacement.isCovered() : "Cannot replace with covered element " + replacement;
 
     // copy children
-    for (ARGState child : children) {
-      assert (child.parents.contains(this)) : "Inconsistent ARG at " + this;
-      child.parents.remove(this);
+    for (ARGState child : getChildren()) {
+      assert contains(child.parents, this) : "Inconsistent ARG at " + this;
+      child.parents = remove(child.parents, this);
       child.addParent(replacement);
     }
-    children.clear();
+    children = null;
 
-    for (ARGState parent : parents) {
-      assert (parent.children.contains(this)) : "Inconsistent ARG at " + this;
-      parent.children.remove(this);
+    for (ARGState parent : getParents()) {
+      assert contains(parent.children, this) : "Inconsistent ARG at " + this;
+      parent.children = remove(parent.children, this);
       replacement.addParent(parent);
     }
-    parents.clear();
+    parents = null;
 
     if (mCoveredByThis != null) {
       if (replacement.mCoveredByThis == null) {
@@ -441,6 +457,116 @@ public class ARGState extends AbstractSingleWrapperState implements Comparable<A
       mCoveredByThis = null;
     }
 
-    destroyed = true;
+    setFlag(DESTROYED, true);
+  }
+
+  // compact storage of children and parents (see comment at the fields)
+
+  private static boolean contains(@Nullable Object pLinks, ARGState pState) {
+    if (pLinks instanceof ARGState[]) {
+      for (ARGState state : (ARGState[])pLinks) {
+        if (state == pState) {
+          return true;
+        }
+      }
+      return false;
+    }
+    return pLinks == pState;
+  }
+
+  private static int size(@Nullable Object pLinks) {
+    if (pLinks == null) {
+      return 0;
+    } else if (pLinks instanceof ARGState[]) {
+      return ((ARGState[])pLinks).length;
+    } else {
+      return 1;
+    }
+  }
+
+  private static Iterator<ARGState> iterator(@Nullable Object pLinks) {
+    if (pLinks == null) {
+      return Collections.emptyIterator();
+    } else if (pLinks instanceof ARGState[]) {
+      return Iterators.forArray((ARGState[])pLinks);
+    } else {
+      return Iterators.singletonIterator((ARGState)pLinks);
+    }
+  }
+
+  /**
+   * Add a state that is not yet contained, and return the new value of the field.
+   */
+  private static Object add(@Nullable Object pLinks, ARGState pState) {
+    if (pLinks == null) {
+      return pState;
+    } else if (pLinks instanceof ARGState[]) {
+      ARGState[] oldLinks = (ARGState[])pLinks;
+      ARGState[] newLinks = Arrays.copyOf(oldLinks, oldLinks.length + 1);
+      newLinks[oldLinks.length] = pState;
+      return newLinks;
+    } else {
+      return new ARGState[] { (ARGState)pLinks, pState };
+    }
+  }
+
+  /**
+   * Remove a state if it is contained, and return the new value of the field.
+   */
+  private static @Nullable Object remove(@Nullable Object pLinks, ARGState pState) {
+    if (pLinks instanceof ARGState[]) {
+      ARGState[] oldLinks = (ARGState[])pLinks;
+      for (int i = 0; i < oldLinks.length; i++) {
+        if (oldLinks[i] == pState) {
+          if (oldLinks.length == 2) {
+            return oldLinks[1 - i];
+          }
+          ARGState[] newLinks = new ARGState[oldLinks.length - 1];
+          System.arraycopy(oldLinks, 0, newLinks, 0, i);
+          System.arraycopy(oldLinks, i + 1, newLinks, i, newLinks.length - i);
+          return newLinks;
+        }
+      }
+      return pLinks;
+    }
+    return pLinks == pState ? null : pLinks;
+  }
+
+  /**
+   * Unmodifiable live view of the children or the parents of a state.
+   */
+  private static final class LinkView extends AbstractCollection<ARGState> {
+
+    private final ARGState state;
+    private final boolean children;
+
+    private LinkView(ARGState pState, boolean pChildren) {
+      state = pState;
+      children = pChildren;
+    }
+
+    private Object links() {
+      return children ? state.children : state.parents;
+    }
+
+    @Override
+    public Iterator<ARGState> iterator() {
+      return ARGState.iterator(links());
+    }
+
+    @Override
+    public int size() {
+      return ARGState.size(links());
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return links() == null;
+    }
+
+    @Override
+    public boolean contains(Object pO) {
+      return pO instanceof ARGState && ARGState.contains(links(), (ARGState)pO);
+    }
   }
 }
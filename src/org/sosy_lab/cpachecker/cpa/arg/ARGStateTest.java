@@ -0,0 +1,123 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.arg;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+
+public class ARGStateTest {
+
+  @Test
+  public void testParentsAndChildren() {
+    ARGState root = new ARGState(null, null);
+    ARGState child1 = new ARGState(null, root);
+    ARGState child2 = new ARGState(null, root);
+    ARGState child3 = new ARGState(null, root);
+
+    assertThat(root.getParents()).isEmpty();
+    assertThat(root.getChildren()).containsExactly(child1, child2, child3).inOrder();
+    assertThat(child2.getParents()).containsExactly(root);
+
+    // set semantics
+    child2.addParent(root);
+    assertThat(root.getChildren()).hasSize(3);
+
+    child3.addParent(child1);
+    assertThat(child3.getParents()).containsExactly(root, child1).inOrder();
+    assertThat(child1.getChildren()).containsExactly(child3);
+  }
+
+  @Test
+  public void testRemoveFromARG() {
+    ARGState root = new ARGState(null, null);
+    ARGState child1 = new ARGState(null, root);
+    ARGState child2 = new ARGState(null, root);
+    ARGState child3 = new ARGState(null, root);
+    ARGState grandChild = new ARGState(null, child2);
+
+    child2.removeFromARG();
+    assertThat(child2.isDestroyed()).isTrue();
+    assertThat(root.getChildren()).containsExactly(child1, child3).inOrder();
+    assertThat(grandChild.getParents()).isEmpty();
+
+    root.deleteChild(child1);
+    assertThat(root.getChildren()).containsExactly(child3);
+    assertThat(child1.getParents()).isEmpty();
+
+    child3.removeFromARG();
+    assertThat(root.getChildren()).isEmpty();
+  }
+
+  @Test
+  public void testIterationDuringModification() {
+    ARGState root = new ARGState(null, null);
+    for (int i = 0; i < 5; i++) {
+      new ARGState(null, root);
+    }
+
+    for (ARGState child : root.getChildren()) {
+      child.removeFromARG();
+    }
+    assertThat(root.getChildren()).isEmpty();
+  }
+
+  @Test
+  public void testReplaceInARGWith() {
+    ARGState root = new ARGState(null, null);
+    ARGState state = new ARGState(null, root);
+    ARGState child = new ARGState(null, state);
+    ARGState covered = new ARGState(null, root);
+    covered.setCovered(state);
+
+    ARGState replacement = new ARGState(null, null);
+    state.replaceInARGWith(replacement);
+
+    assertThat(state.isDestroyed()).isTrue();
+    assertThat(root.getChildren()).containsExactly(covered, replacement);
+    assertThat(child.getParents()).containsExactly(replacement);
+    assertThat(covered.getCoveringState()).isSameAs(replacement);
+    assertThat(replacement.getCoveredByThis()).containsExactly(covered);
+  }
+
+  @Test
+  public void testFlags() {
+    ARGState state = new ARGState(null, null);
+    assertThat(state.mayCover()).isTrue();
+    assertThat(state.wasExpanded()).isFalse();
+
+    state.markExpanded();
+    state.setHasCoveredParent(true);
+    assertThat(state.wasExpanded()).isTrue();
+    assertThat(state.mayCover()).isFalse();
+
+    state.setHasCoveredParent(false);
+    assertThat(state.mayCover()).isTrue();
+
+    state.setNotCovering();
+    assertThat(state.mayCover()).isFalse();
+    assertThat(state.isDestroyed()).isFalse();
+  }
+}
@@ -27,6 +27,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import org.sosy_lab.common.configuration.ClassOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -72,6 +73,24 @@ public class CompositeCPA implements ConfigurableProgramAnalysis, StatisticsProv
     description="inform Composite CPA if it is run in a predicated analysis because then it must"
       + "behave differntly during merge.")
     private boolean inPredicatedAnalysis = false;
+
+    @Option(secure=true,
+    description="Skip coverage checks between states that cannot cover each other "
+      + "according to the coverage summaries of the component states. "
+      + "Only used for components with stop-sep or stop-join.")
+    private boolean useCoverageSummaries = false;
+
+    @Option(secure=true,
+    description="Share equal states of the given component CPAs between composite states "
+      + "(hash-consing with a weak intern table per component). "
+      + "Only CPAs whose states implement InternableAbstractState are supported "
+      + "(i.e., their states are immutable and equals() compares all fields), "
+      + "currently only FunctionPointerCPA and SignCPA. "
+      + "States of LocationCPA are already unique per location, "
+      + "and states of CallstackCPA and AutomatonCPA cannot be interned.")
+    @ClassOption(packagePrefix="org.sosy_lab.cpachecker.cpa")
+    private List<Class<? extends ConfigurableProgramAnalysis>> internStates
+        = ImmutableList.of();
   }
 
   private static class CompositeCPAFactory extends AbstractCPAFactory {
@@ -94,6 +113,8 @@ public class CompositeCPA implements ConfigurableProgramAnalysis, StatisticsProv
       ImmutableList.Builder<PrecisionAdjustment> precisionAdjustments = ImmutableList.builder();
       ImmutableList.Builder<SimplePrecisionAdjustment> simplePrecisionAdjustments = ImmutableList.builder();
 
+      ImmutableList<String> componentNames = getComponentNames(cpas);
+
       boolean mergeSep = true;
       boolean simplePrec = true;
 
@@ -137,9 +158,9 @@ public class CompositeCPA implements ConfigurableProgramAnalysis, StatisticsProv
           }
         } else {
           if (options.merge.equals("AGREE")) {
-            compositeMerge = new CompositeMergeAgreeOperator(mergeOperators.build(), stopOps);
+            compositeMerge = new CompositeMergeAgreeOperator(mergeOperators.build(), stopOps, componentNames);
           } else if (options.merge.equals("PLAIN")) {
-            compositeMerge = new CompositeMergePlainOperator(mergeOperators.build());
+            compositeMerge = new CompositeMergePlainOperator(mergeOperators.build(), componentNames);
           } else {
             throw new AssertionError();
           }
@@ -147,8 +168,13 @@ public class CompositeCPA implements ConfigurableProgramAnalysis, StatisticsProv
       }
 
       CompositeDomain compositeDomain = new CompositeDomain(domains.build());
-      CompositeTransferRelation compositeTransfer = new CompositeTransferRelation(transferRelations.build(), options.inPredicatedAnalysis, getConfiguration());
-      CompositeStopOperator compositeStop = new CompositeStopOperator(stopOps);
+      CompositeStateInterner interner = null;
+      if (!options.internStates.isEmpty()) {
+        interner = new CompositeStateInterner(cpas, options.internStates, cfa.getMainFunction());
+      }
+
+      CompositeTransferRelation compositeTransfer = new CompositeTransferRelation(transferRelations.build(), componentNames, options.inPredicatedAnalysis, getConfiguration(), interner);
+      CompositeStopOperator compositeStop = new CompositeStopOperator(stopOps, options.useCoverageSummaries);
 
       PrecisionAdjustment compositePrecisionAdjustment;
       if (simplePrec) {
@@ -191,6 +217,18 @@ public class CompositeCPA implements ConfigurableProgramAnalysis, StatisticsProv
     return new CompositeCPAFactory();
   }
 
+  /**
+   * Get the names of the given components (e.g., CPAs or transfer relations)
+   * for identifying them in statistics and events.
+   */
+  static ImmutableList<String> getComponentNames(List<?> pComponents) {
+    ImmutableList.Builder<String> names = ImmutableList.builder();
+    for (Object component : pComponents) {
+      names.add(component.getClass().getSimpleName());
+    }
+    return names.build();
+  }
+
   private final AbstractDomain abstractDomain;
   private final CompositeTransferRelation transferRelation;
   private final MergeOperator mergeOperator;
@@ -293,6 +331,9 @@ public class CompositeCPA implements ConfigurableProgramAnalysis, StatisticsProv
     if (precisionAdjustment instanceof StatisticsProvider) {
       ((StatisticsProvider)precisionAdjustment).collectStatistics(pStatsCollection);
     }
+
+    transferRelation.collectStatistics(pStatsCollection);
+    stopOperator.collectStatistics(pStatsCollection);
   }
 
   @Override
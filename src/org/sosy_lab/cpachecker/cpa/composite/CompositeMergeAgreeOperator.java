@@ -35,6 +35,8 @@ import org.sosy_lab.cpachecker.core.interfaces.NonMergeableAbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.statistics.EventRecorder;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
@@ -58,10 +60,13 @@ public class CompositeMergeAgreeOperator implements MergeOperator {
 
   private final ImmutableList<MergeOperator> mergeOperators;
   private final ImmutableList<StopOperator> stopOperators;
+  private final ImmutableList<String> componentNames; // for events of the EventRecorder
 
-  public CompositeMergeAgreeOperator(ImmutableList<MergeOperator> mergeOperators, ImmutableList<StopOperator> stopOperators) {
+  public CompositeMergeAgreeOperator(ImmutableList<MergeOperator> mergeOperators, ImmutableList<StopOperator> stopOperators,
+      ImmutableList<String> pComponentNames) {
     this.mergeOperators = mergeOperators;
     this.stopOperators  = stopOperators;
+    this.componentNames = pComponentNames;
   }
 
   @Override
@@ -87,6 +92,7 @@ public class CompositeMergeAgreeOperator implements MergeOperator {
     Iterator<AbstractState> comp1Iter = compSuccessorState.getWrappedStates().iterator();
     Iterator<AbstractState> comp2Iter = compReachedState.getWrappedStates().iterator();
     Iterator<Precision> precIter      = compPrecision.getPrecisions().iterator();
+    Iterator<String> nameIter         = componentNames.iterator();
 
     boolean identicalStates = true;
     for (MergeOperator mergeOp : mergeOperators) {
@@ -95,8 +101,13 @@ public class CompositeMergeAgreeOperator implements MergeOperator {
 
       Precision prec      = precIter.next();
       StopOperator stopOp = stopIter.next();
+      String name         = nameIter.next();
 
+      long eventStart = EventRecorder.begin();
       AbstractState mergedState = mergeOp.merge(absSuccessorState, absReachedState, prec);
+      if (eventStart != 0) {
+        EventRecorder.end("merge", eventStart, AbstractStates.extractLocation(successorState), name);
+      }
 
       // Check if 'mergedState' also covers 'absSuccessorState', i.e., if 'mergeOp' performed a join.
       // By definition of MergeOperator, we know it covers 'absReachedState'.
@@ -29,6 +29,8 @@ import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.MergeOperator;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.statistics.EventRecorder;
 
 import com.google.common.collect.ImmutableList;
 
@@ -39,9 +41,12 @@ import com.google.common.collect.ImmutableList;
 public class CompositeMergePlainOperator implements MergeOperator {
 
   private final ImmutableList<MergeOperator> mergeOperators;
+  private final ImmutableList<String> componentNames; // for events of the EventRecorder
 
-  public CompositeMergePlainOperator(ImmutableList<MergeOperator> mergeOperators) {
+  public CompositeMergePlainOperator(ImmutableList<MergeOperator> mergeOperators,
+      ImmutableList<String> pComponentNames) {
     this.mergeOperators = mergeOperators;
+    this.componentNames = pComponentNames;
   }
 
   @Override
@@ -60,12 +65,18 @@ public class CompositeMergePlainOperator implements MergeOperator {
     Iterator<AbstractState> iter1 = compSuccessorState.getWrappedStates().iterator();
     Iterator<AbstractState> iter2 = compReachedState.getWrappedStates().iterator();
     Iterator<Precision> iterPrec  = compPrecision.getPrecisions().iterator();
+    Iterator<String> iterName     = componentNames.iterator();
 
     boolean identicalStates = true;
     for (MergeOperator mergeOp : mergeOperators) {
       AbstractState absSuccessorState = iter1.next();
       AbstractState absReachedState   = iter2.next();
+      String name                     = iterName.next();
+      long eventStart = EventRecorder.begin();
       AbstractState mergedState       = mergeOp.merge(absSuccessorState, absReachedState, iterPrec.next());
+      if (eventStart != 0) {
+        EventRecorder.end("merge", eventStart, AbstractStates.extractLocation(successorState), name);
+      }
 
       if (mergedState != absReachedState) {
         identicalStates = false;
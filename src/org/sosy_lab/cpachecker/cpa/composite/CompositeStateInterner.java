@@ -0,0 +1,213 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.composite;
+
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
+import org.sosy_lab.cpachecker.core.interfaces.InternableAbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsUtils;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Hash-consing of component states of {@link CompositeState}s:
+ * equal component states of selected components are replaced
+ * by a single canonical instance.
+ *
+ * Each component has its own weak intern table,
+ * so canonical instances are garbage collected as soon as
+ * no composite state refers to them anymore.
+ * The tables are safe for concurrent use.
+ *
+ * Only components whose states implement {@link InternableAbstractState} may be interned.
+ */
+class CompositeStateInterner implements Statistics {
+
+  // Rough model of the JVM object layout (64bit with compressed oops)
+  // for estimating the memory that is saved by sharing an instance.
+  private static final int OBJECT_HEADER_SIZE = 12;
+  private static final int REFERENCE_SIZE = 4;
+  private static final int OBJECT_ALIGNMENT = 8;
+
+  private final ImmutableList<String> componentNames;
+
+  /** The intern table for each component, null for components that are not interned. */
+  private final List<Interner<AbstractState>> interners;
+
+  private final AtomicLongArray lookups;
+  private final AtomicLongArray hits;
+  private final AtomicLongArray savedBytes;
+
+  private final ConcurrentMap<Class<?>, Long> shallowSizes = new ConcurrentHashMap<>();
+
+  /**
+   * Create an instance for the given components.
+   * @param pCpas The components of the composite CPA.
+   * @param pInternedCpas The classes of the components whose states should be interned.
+   * @param pInitialNode The initial location of the analysis,
+   *    used to check that the interned components produce states that can be interned.
+   * @throws InvalidConfigurationException If a class is not a component
+   *    or if the states of a component cannot be interned.
+   */
+  CompositeStateInterner(List<ConfigurableProgramAnalysis> pCpas,
+      List<Class<? extends ConfigurableProgramAnalysis>> pInternedCpas,
+      CFANode pInitialNode) throws InvalidConfigurationException {
+    ImmutableList.Builder<String> names = ImmutableList.builder();
+    Set<Class<?>> componentClasses = new HashSet<>();
+    interners = new ArrayList<>(pCpas.size());
+    for (ConfigurableProgramAnalysis cpa : pCpas) {
+      names.add(cpa.getClass().getSimpleName());
+      componentClasses.add(cpa.getClass());
+
+      if (pInternedCpas.contains(cpa.getClass())) {
+        AbstractState initialState = cpa.getInitialState(pInitialNode);
+        if (!(initialState instanceof InternableAbstractState)) {
+          throw new InvalidConfigurationException("States of " + cpa.getClass().getSimpleName()
+              + " cannot be interned, remove it from option cpa.composite.internStates.");
+        }
+        interners.add(Interners.<AbstractState>newWeakInterner());
+      } else {
+        interners.add(null);
+      }
+    }
+    componentNames = names.build();
+
+    for (Class<?> cls : pInternedCpas) {
+      if (!componentClasses.contains(cls)) {
+        throw new InvalidConfigurationException(cls.getSimpleName()
+            + " is listed in option cpa.composite.internStates, but is not a component of CompositeCPA.");
+      }
+    }
+
+    lookups = new AtomicLongArray(pCpas.size());
+    hits = new AtomicLongArray(pCpas.size());
+    savedBytes = new AtomicLongArray(pCpas.size());
+  }
+
+  /**
+   * Replace the component states of the given list by their canonical instances.
+   * @return A list with the same states (with respect to equals()) as the given list.
+   */
+  List<AbstractState> intern(List<AbstractState> pComponentStates) {
+    assert pComponentStates.size() == interners.size();
+    List<AbstractState> result = new ArrayList<>(pComponentStates.size());
+
+    for (int i = 0; i < pComponentStates.size(); i++) {
+      AbstractState state = pComponentStates.get(i);
+      Interner<AbstractState> interner = interners.get(i);
+
+      if (interner != null) {
+        assert state instanceof InternableAbstractState : "cannot intern state of class " + state.getClass();
+        AbstractState canonical = interner.intern(state);
+        lookups.incrementAndGet(i);
+        if (canonical != state) {
+          hits.incrementAndGet(i);
+          savedBytes.addAndGet(i, getShallowSize(state.getClass()));
+          state = canonical;
+        }
+      }
+      result.add(state);
+    }
+    return result;
+  }
+
+  private long getShallowSize(Class<?> cls) {
+    Long size = shallowSizes.get(cls);
+    if (size == null) {
+      size = estimateShallowSize(cls);
+      shallowSizes.put(cls, size);
+    }
+    return size;
+  }
+
+  /**
+   * Estimate the size of an instance of the given class, without objects it refers to.
+   * Sharing an instance usually saves more than this, because the objects it refers to
+   * are not always shared, too.
+   */
+  private static long estimateShallowSize(Class<?> cls) {
+    long size = OBJECT_HEADER_SIZE;
+    for (Class<?> c = cls; c != null; c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        if (!Modifier.isStatic(field.getModifiers())) {
+          size += getFieldSize(field.getType());
+        }
+      }
+    }
+    return (size + OBJECT_ALIGNMENT - 1) / OBJECT_ALIGNMENT * OBJECT_ALIGNMENT;
+  }
+
+  private static int getFieldSize(Class<?> type) {
+    if (!type.isPrimitive()) {
+      return REFERENCE_SIZE;
+    } else if (type == long.class || type == double.class) {
+      return 8;
+    } else if (type == int.class || type == float.class) {
+      return 4;
+    } else if (type == short.class || type == char.class) {
+      return 2;
+    } else {
+      return 1;
+    }
+  }
+
+  @Override
+  public String getName() {
+    return "State Interning";
+  }
+
+  @Override
+  public void printStatistics(PrintStream out, Result pResult, ReachedSet pReached) {
+    for (int i = 0; i < componentNames.size(); i++) {
+      if (interners.get(i) == null) {
+        continue;
+      }
+      long componentLookups = lookups.get(i);
+      long componentHits = hits.get(i);
+      out.println(componentNames.get(i) + ":");
+      out.println("  Number of interned states:          " + componentLookups);
+      out.println("  Number of shared instances:         " + componentHits
+          + " (" + StatisticsUtils.toPercent(componentHits, componentLookups) + ")");
+      out.println("  Memory of replaced duplicates:      " + (savedBytes.get(i) >> 10) + "KB (estimated)");
+    }
+  }
+}
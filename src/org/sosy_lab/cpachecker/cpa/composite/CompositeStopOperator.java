@@ -25,26 +25,78 @@ package org.sosy_lab.cpachecker.cpa.composite;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+import java.io.PrintStream;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.defaults.StopJoinOperator;
+import org.sosy_lab.cpachecker.core.defaults.StopSepOperator;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractStateWithCoverageSummary;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
 import org.sosy_lab.cpachecker.core.interfaces.ForcedCoveringStopOperator;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
 import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
 import org.sosy_lab.cpachecker.core.interfaces.pcc.ProofChecker;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
+import org.sosy_lab.cpachecker.util.CoverageSummaries;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsUtils;
 
 import com.google.common.collect.ImmutableList;
 
-public class CompositeStopOperator implements StopOperator, ForcedCoveringStopOperator {
+public class CompositeStopOperator implements StopOperator, ForcedCoveringStopOperator, StatisticsProvider {
 
   protected final ImmutableList<StopOperator> stopOperators;
 
+  /**
+   * For each component, whether its coverage check may be skipped
+   * based on {@link AbstractStateWithCoverageSummary}.
+   * This is only sound if the stop operator of the component is based on
+   * the less-or-equal relation of the domain, and null if disabled.
+   */
+  private final boolean[] useCoverageSummary;
+
+  private final CoverageSummaryStatistics stats = new CoverageSummaryStatistics();
+
   public CompositeStopOperator(ImmutableList<StopOperator> stopOperators) {
+    this(stopOperators, false);
+  }
+
+  public CompositeStopOperator(ImmutableList<StopOperator> stopOperators, boolean pUseCoverageSummaries) {
     this.stopOperators = stopOperators;
+
+    if (pUseCoverageSummaries) {
+      useCoverageSummary = new boolean[stopOperators.size()];
+      for (int idx = 0; idx < stopOperators.size(); idx++) {
+        StopOperator stopOp = stopOperators.get(idx);
+        useCoverageSummary[idx] = stopOp instanceof StopSepOperator || stopOp instanceof StopJoinOperator;
+      }
+    } else {
+      useCoverageSummary = null;
+    }
+  }
+
+  private static class CoverageSummaryStatistics implements Statistics {
+
+    private long countCoverageChecks = 0;
+    private long countSkippedByCoverageSummary = 0;
+
+    @Override
+    public String getName() {
+      return "Coverage summaries of composite stop operator";
+    }
+
+    @Override
+    public void printStatistics(PrintStream out, Result pResult, ReachedSet pReached) {
+      out.println("Number of coverage checks:             " + countCoverageChecks);
+      out.println("Number of checks avoided by summaries: " + countSkippedByCoverageSummary
+          + " (" + StatisticsUtils.toPercent(countSkippedByCoverageSummary, countCoverageChecks) + ")");
+    }
   }
 
   @Override
@@ -67,6 +119,14 @@ public class CompositeStopOperator implements StopOperator, ForcedCoveringStopOp
 
     List<Precision> compositePrecisions = compositePrecision.getPrecisions();
 
+    if (useCoverageSummary != null) {
+      stats.countCoverageChecks++;
+      if (!mayBeCovered(compositeElements, compositeReachedStates)) {
+        stats.countSkippedByCoverageSummary++;
+        return false;
+      }
+    }
+
     for (int idx = 0; idx < compositeElements.size(); idx++) {
       StopOperator stopOp = stopOperators.get(idx);
 
@@ -81,6 +141,38 @@ public class CompositeStopOperator implements StopOperator, ForcedCoveringStopOp
     return true;
   }
 
+  /**
+   * Cheap pre-check for coverage of all components using their coverage summaries.
+   * If this method returns false, the state is not covered by the reached state.
+   */
+  private boolean mayBeCovered(List<AbstractState> pElements, List<AbstractState> pReachedStates) {
+    for (int idx = 0; idx < pElements.size(); idx++) {
+      if (!useCoverageSummary[idx]) {
+        continue;
+      }
+      AbstractState absElem1 = pElements.get(idx);
+      AbstractState absElem2 = pReachedStates.get(idx);
+
+      if (absElem1 instanceof AbstractStateWithCoverageSummary
+          && absElem2 instanceof AbstractStateWithCoverageSummary) {
+        long summary1 = ((AbstractStateWithCoverageSummary)absElem1).getCoverageSummary();
+        long summary2 = ((AbstractStateWithCoverageSummary)absElem2).getCoverageSummary();
+
+        if (!CoverageSummaries.mayBeCoveredBy(summary1, summary2)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void collectStatistics(Collection<Statistics> pStatsCollection) {
+    if (useCoverageSummary != null) {
+      pStatsCollection.add(stats);
+    }
+  }
+
   boolean isCoveredBy(AbstractState pElement, AbstractState pOtherElement, List<ConfigurableProgramAnalysis> cpas) throws CPAException, InterruptedException {
     CompositeState compositeState = (CompositeState)pElement;
     CompositeState compositeOtherElement = (CompositeState)pOtherElement;
@@ -34,6 +34,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
@@ -44,6 +46,8 @@ import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractStateWithLocation;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
 import org.sosy_lab.cpachecker.core.interfaces.Targetable;
 import org.sosy_lab.cpachecker.core.interfaces.TransferRelation;
 import org.sosy_lab.cpachecker.core.interfaces.pcc.ProofChecker;
@@ -52,13 +56,14 @@ import org.sosy_lab.cpachecker.cpa.automaton.AutomatonState;
 import org.sosy_lab.cpachecker.cpa.predicate.PredicateTransferRelation;
 import org.sosy_lab.cpachecker.exceptions.CPATransferException;
 import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.statistics.EventRecorder;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 
 @Options(prefix="cpa.composite")
-public final class CompositeTransferRelation implements TransferRelation {
+public final class CompositeTransferRelation implements TransferRelation, StatisticsProvider {
 
   @Option(secure=true,
       description="Split MultiEdges and pass each inner edge to the component CPAs"
@@ -67,15 +72,28 @@ public final class CompositeTransferRelation implements TransferRelation {
   private boolean splitMultiEdges = false;
 
   private final ImmutableList<TransferRelation> transferRelations;
+  private final ImmutableList<String> componentNames; // for events of the EventRecorder
   private final int size;
   private int assumptionIndex = -1;
   private int predicatesIndex = -1;
   private final boolean isErrorStateDetectableInStrengthening;
+  private final @Nullable CompositeStateInterner interner;
 
   public CompositeTransferRelation(ImmutableList<TransferRelation> transferRelations,
       boolean pErrorDetctableInStrengthen, Configuration config) throws InvalidConfigurationException {
+    this(transferRelations, CompositeCPA.getComponentNames(transferRelations),
+        pErrorDetctableInStrengthen, config, null);
+  }
+
+  CompositeTransferRelation(ImmutableList<TransferRelation> transferRelations,
+      ImmutableList<String> pComponentNames,
+      boolean pErrorDetctableInStrengthen, Configuration config,
+      @Nullable CompositeStateInterner pInterner) throws InvalidConfigurationException {
     config.inject(this);
+    interner = pInterner;
     this.transferRelations = transferRelations;
+    componentNames = pComponentNames;
+    checkArgument(componentNames.size() == transferRelations.size());
     size = transferRelations.size();
 
     isErrorStateDetectableInStrengthening = pErrorDetctableInStrengthen;
@@ -175,8 +193,12 @@ public final class CompositeTransferRelation implements TransferRelation {
       AbstractState lCurrentElement = componentElements.get(i);
       Precision lCurrentPrecision = compositePrecision.get(i);
 
+      long eventStart = EventRecorder.begin();
       Collection<? extends AbstractState> componentSuccessors =
           lCurrentTransfer.getAbstractSuccessorsForEdge(lCurrentElement, lCurrentPrecision, cfaEdge);
+      if (eventStart != 0) {
+        EventRecorder.end("transfer", eventStart, cfaEdge.getPredecessor(), componentNames.get(i));
+      }
       resultCount *= componentSuccessors.size();
 
       if (resultCount == 0) {
@@ -264,11 +286,21 @@ public final class CompositeTransferRelation implements TransferRelation {
 
       // finally, create a CompositeState for each result of the cartesian product
       for (List<AbstractState> lList : lResultingElements) {
+        if (interner != null) {
+          lList = interner.intern(lList);
+        }
         compositeSuccessors.add(new CompositeState(lList));
       }
     }
   }
 
+  @Override
+  public void collectStatistics(Collection<Statistics> pStatsCollection) {
+    if (interner != null) {
+      pStatsCollection.add(interner);
+    }
+  }
+
   protected static Collection<List<AbstractState>> createCartesianProduct(
       List<Collection<? extends AbstractState>> allComponentsSuccessors, int resultCount) {
     Collection<List<AbstractState>> allResultingElements;
@@ -32,14 +32,16 @@ import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
 import org.sosy_lab.common.collect.PersistentMap;
 import org.sosy_lab.cpachecker.core.defaults.LatticeAbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractQueryableState;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractStateWithCoverageSummary;
 import org.sosy_lab.cpachecker.core.interfaces.Graphable;
 import org.sosy_lab.cpachecker.exceptions.InvalidQueryException;
 import org.sosy_lab.cpachecker.util.CheckTypesOfStringsUtil;
+import org.sosy_lab.cpachecker.util.CoverageSummaries;
 
 import com.google.common.base.Splitter;
 
 public class IntervalAnalysisState implements Serializable, LatticeAbstractState<IntervalAnalysisState>,
-    AbstractQueryableState, Graphable {
+    AbstractQueryableState, Graphable, AbstractStateWithCoverageSummary {
 
   private static final long serialVersionUID = -2030700797958100666L;
 
@@ -55,6 +57,13 @@ public class IntervalAnalysisState implements Serializable, LatticeAbstractState
    */
   private PersistentMap<String, Integer> referenceCounts;
 
+  /**
+   * the coverage summary and the map for which it was computed,
+   * the summary is recomputed whenever the map was replaced
+   */
+  private transient PersistentMap<String, Interval> coverageSummaryMap = null;
+  private transient long coverageSummary = 0;
+
   /**
    *  This method acts as the default constructor, which initializes the intervals and reference counts to empty maps and the previous element to null.
    */
@@ -224,6 +233,24 @@ public class IntervalAnalysisState implements Serializable, LatticeAbstractState
     }
   }
 
+  /**
+   * The summary contains one bit for each variable with an interval,
+   * because a state can only be covered by states that track a subset of its variables.
+   */
+  @Override
+  public long getCoverageSummary() {
+    PersistentMap<String, Interval> currentIntervals = intervals;
+    if (coverageSummaryMap != currentIntervals) {
+      long summary = 0;
+      for (String variableName : currentIntervals.keySet()) {
+        summary |= CoverageSummaries.bitFor(variableName);
+      }
+      coverageSummary = summary;
+      coverageSummaryMap = currentIntervals;
+    }
+    return coverageSummary;
+  }
+
   /**
    * This method decides if this element is less or equal than the reached state, based on the order imposed by the lattice.
    *
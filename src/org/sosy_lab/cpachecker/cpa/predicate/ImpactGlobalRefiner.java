@@ -44,7 +44,7 @@ import org.sosy_lab.common.time.Timer;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
-import org.sosy_lab.cpachecker.core.interfaces.Refiner;
+import org.sosy_lab.cpachecker.core.interfaces.GlobalRefiner;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
@@ -75,7 +75,7 @@ import com.google.common.collect.SetMultimap;
  * We do so by recursively traversing the ARG in a DFS order,
  * refining infeasible paths one by one.
  */
-public class ImpactGlobalRefiner implements Refiner, StatisticsProvider {
+public class ImpactGlobalRefiner implements GlobalRefiner, StatisticsProvider {
 
   private final LogManager logger;
 
@@ -33,18 +33,30 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
+import javax.annotation.Nullable;
+
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
 import org.sosy_lab.common.Pair;
+import org.sosy_lab.common.concurrency.Threads;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -54,6 +66,8 @@ import org.sosy_lab.common.time.NestedTimer;
 import org.sosy_lab.common.time.TimeSpan;
 import org.sosy_lab.common.time.Timer;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.ShutdownNotifier;
+import org.sosy_lab.cpachecker.cpa.predicate.persistence.PersistentAbstractionCache;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicateAbstractionsStorage;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicateAbstractionsStorage.AbstractionNode;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicatePersistenceUtils.PredicateParsingFailedException;
@@ -62,7 +76,9 @@ import org.sosy_lab.cpachecker.util.predicates.AbstractionFormula;
 import org.sosy_lab.cpachecker.util.predicates.AbstractionManager;
 import org.sosy_lab.cpachecker.util.predicates.AbstractionManager.RegionCreator;
 import org.sosy_lab.cpachecker.util.predicates.AbstractionPredicate;
+import org.sosy_lab.cpachecker.util.predicates.PersistentSatCache;
 import org.sosy_lab.cpachecker.util.predicates.Solver;
+import org.sosy_lab.cpachecker.util.predicates.SolverContextPool;
 import org.sosy_lab.cpachecker.util.predicates.interfaces.BooleanFormula;
 import org.sosy_lab.cpachecker.util.predicates.interfaces.PathFormulaManager;
 import org.sosy_lab.cpachecker.util.predicates.interfaces.ProverEnvironment;
@@ -73,11 +89,15 @@ import org.sosy_lab.cpachecker.util.predicates.interfaces.view.FormulaManagerVie
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormula;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAMap;
 import org.sosy_lab.cpachecker.util.statistics.StatTimer;
+import org.sosy_lab.cpachecker.util.resources.CacheEvictionRegistry;
+import org.sosy_lab.cpachecker.util.resources.CacheEvictionRegistry.CacheHandle;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 @Options(prefix = "cpa.predicate")
@@ -98,6 +118,7 @@ public class PredicateAbstractionManager {
     public int numTrivialPredicates = 0;
     public int numCartesianAbsPredicates = 0;
     public int numCartesianAbsPredicatesCached = 0;
+    public int numCartesianAbsPredicatesParallel = 0;
     public int numBooleanAbsPredicates = 0;
     public final Timer abstractionReuseTime = new Timer();
     public final StatTimer abstractionReuseImplicationTime = new StatTimer("Time for checking reusability of abstractions");
@@ -139,6 +160,17 @@ public class PredicateAbstractionManager {
       description = "whether to use Boolean or Cartesian abstraction or both")
   private AbstractionType abstractionType = AbstractionType.BOOLEAN;
 
+  @Option(secure=true, name = "abstraction.parallelCartesian",
+      description = "check the predicates of cartesian abstraction in parallel on several solver contexts"
+        + " (the number of contexts is set with cpa.predicate.solver.pool.size)")
+  private boolean parallelCartesianAbstraction = false;
+
+  @Option(secure=true, name = "abstraction.parallelCartesianThreshold",
+      description = "minimal number of predicates that need to be checked by cartesian abstraction"
+        + " such that they are checked in parallel")
+  @IntegerOption(min=1)
+  private int parallelCartesianAbstractionThreshold = 16;
+
   @Option(secure=true, name = "abstraction.dumpHardQueries",
       description = "dump the abstraction formulas if they took to long")
   private boolean dumpHardAbstractions = false;
@@ -148,6 +180,12 @@ public class PredicateAbstractionManager {
   @FileOption(FileOption.Type.OPTIONAL_INPUT_FILE)
   private Path reuseAbstractionsFrom;
 
+  @Option(secure=false, name = "abstraction.persistentCache",
+      description="File in which computed abstractions are stored such that they can be reused by later runs"
+        + " (several processes may share the same file). Abstractions are not stored if no file is given.")
+  @FileOption(FileOption.Type.OPTIONAL_INPUT_FILE)
+  private @Nullable Path persistentCacheFile = null;
+
   @Option(secure=true, description = "Max. number of edge of the abstraction tree to prescan for reuse")
   private int maxAbstractionReusePrescan = 1;
 
@@ -180,17 +218,33 @@ public class PredicateAbstractionManager {
   // 1: predicate is true
   private final Map<Pair<BooleanFormula, AbstractionPredicate>, Byte> cartesianAbstractionCache;
 
+  // the caches above are evicted on high heap usage, oldest or least recently used entries first
+  private final CacheHandle abstractionCacheHandle;
+  private final CacheHandle unsatisfiabilityCacheHandle;
+  private final CacheHandle cartesianAbstractionCacheHandle;
+
   private final BooleanFormulaManagerView bfmgr;
 
   private final PredicateAbstractionsStorage abstractionStorage;
 
+  private final @Nullable PersistentAbstractionCache persistentAbstractionCache;
+
+  // for parallel cartesian abstraction
+  private final @Nullable SolverContextPool contextPool;
+  private final @Nullable ExecutorService cartesianAbstractionExecutor;
+  private final @Nullable ShutdownNotifier contextPoolShutdownNotifier;
+
+  /** How long to wait in {@link #close()} for the parallel checks to stop. */
+  private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
   public PredicateAbstractionManager(
       AbstractionManager pAmgr,
       FormulaManagerView pFmgr,
       PathFormulaManager pPfmgr,
       Solver pSolver,
       Configuration config,
-      LogManager pLogger) throws InvalidConfigurationException, PredicateParsingFailedException {
+      LogManager pLogger,
+      ShutdownNotifier pShutdownNotifier) throws InvalidConfigurationException, PredicateParsingFailedException {
 
     config.inject(this, PredicateAbstractionManager.class);
 
@@ -210,20 +264,47 @@ public class PredicateAbstractionManager {
     }
 
     if (useCache) {
-      abstractionCache = new HashMap<>();
-      unsatisfiabilityCache = new HashSet<>();
+      abstractionCache = new LinkedHashMap<>(16, 0.75f, true);
+      unsatisfiabilityCache = new LinkedHashSet<>();
+      abstractionCacheHandle = CacheEvictionRegistry.register("PredicateAbstractionManager.abstractionCache");
+      unsatisfiabilityCacheHandle = CacheEvictionRegistry.register("PredicateAbstractionManager.unsatisfiabilityCache");
     } else {
       abstractionCache = null;
       unsatisfiabilityCache = null;
+      abstractionCacheHandle = null;
+      unsatisfiabilityCacheHandle = null;
     }
 
     if (useCache && (abstractionType != AbstractionType.BOOLEAN)) {
-      cartesianAbstractionCache = new HashMap<>();
+      cartesianAbstractionCache = new LinkedHashMap<>(16, 0.75f, true);
+      cartesianAbstractionCacheHandle = CacheEvictionRegistry.register("PredicateAbstractionManager.cartesianAbstractionCache");
     } else {
       cartesianAbstractionCache = null;
+      cartesianAbstractionCacheHandle = null;
     }
 
     abstractionStorage = new PredicateAbstractionsStorage(reuseAbstractionsFrom, logger, fmgr);
+
+    if (persistentCacheFile != null) {
+      persistentAbstractionCache = new PersistentAbstractionCache(persistentCacheFile.toFile().toPath(),
+          abstractionType.name(), fmgr, logger);
+    } else {
+      persistentAbstractionCache = null;
+    }
+
+    if (parallelCartesianAbstraction
+        && abstractionType != AbstractionType.BOOLEAN
+        && abstractionType != AbstractionType.ELIMINATION) {
+      // a separate notifier such that close() can stop the pooled solvers
+      contextPoolShutdownNotifier = ShutdownNotifier.createWithParent(pShutdownNotifier);
+      contextPool = new SolverContextPool(config, logger, contextPoolShutdownNotifier);
+      cartesianAbstractionExecutor = Executors.newFixedThreadPool(contextPool.getSize(),
+          Threads.threadFactoryBuilder().setNameFormat("Cartesian abstraction %d").setDaemon(true).build());
+    } else {
+      contextPool = null;
+      cartesianAbstractionExecutor = null;
+      contextPoolShutdownNotifier = null;
+    }
     SSAMap extractionSsa = SSAMap.emptySSAMap().withDefault(1);
     for (AbstractionNode an : abstractionStorage.getAbstractions().values()) {
       BooleanFormula instanceFm = fmgr.instantiate(an.getFormula(), extractionSsa);
@@ -360,6 +441,7 @@ public class PredicateAbstractionManager {
     // caching
     Pair<BooleanFormula, ImmutableSet<AbstractionPredicate>> absKey = null;
     if (useCache) {
+      evictFromCachesIfNecessary();
       absKey = Pair.of(f, predicates);
       AbstractionFormula result = abstractionCache.get(absKey);
 
@@ -392,6 +474,38 @@ public class PredicateAbstractionManager {
 
 
 
+    PersistentSatCache persistentCache = solver.getPersistentCache();
+    String persistentSatKey = null;
+    if (persistentCache != null) {
+      persistentSatKey = persistentCache.getKey(f);
+      if (Boolean.TRUE.equals(persistentCache.lookup(persistentSatKey))) {
+        // block is infeasible according to a previous run
+        logger.log(Level.FINEST, "Block feasibility of abstraction", stats.numCallsAbstraction, "was cached persistently and is false.");
+        stats.numCallsAbstractionCached++;
+        return new AbstractionFormula(fmgr, rmgr.makeFalse(),
+            bfmgr.makeBoolean(false), bfmgr.makeBoolean(false),
+            pathFormula, noAbstractionReuse);
+      }
+    }
+
+    // the set of predicates is changed below, so the key is computed now
+    String persistentAbstractionKey = null;
+    if (persistentAbstractionCache != null) {
+      persistentAbstractionKey = persistentAbstractionCache.getKey(f, ssa, predicates);
+      BooleanFormula stateFormula = persistentAbstractionCache.lookup(persistentAbstractionKey);
+      if (stateFormula != null) {
+        AbstractionFormula result = new AbstractionFormula(fmgr, buildRegionFromFormula(stateFormula),
+            stateFormula, fmgr.instantiate(stateFormula, ssa), pathFormula, noAbstractionReuse);
+        logger.log(Level.FINEST, "Abstraction", stats.numCallsAbstraction, "was cached persistently");
+        logger.log(Level.ALL, "Abstraction result is", result.asFormula());
+        stats.numCallsAbstractionCached++;
+        if (useCache) {
+          abstractionCache.put(absKey, result);
+        }
+        return result;
+      }
+    }
+
     // We update statistics here because we want to ignore calls
     // where the result was in the cache.
     stats.numTotalPredicates += pPredicates.size();
@@ -477,6 +591,15 @@ public class PredicateAbstractionManager {
 
     AbstractionFormula result = makeAbstractionFormula(abs, ssa, pathFormula);
 
+    if (persistentCache != null && result.isFalse()) {
+      // the abstraction of f is false iff f is unsatisfiable
+      persistentCache.store(persistentSatKey, true);
+    }
+
+    if (persistentAbstractionCache != null) {
+      persistentAbstractionCache.store(persistentAbstractionKey, result.asFormula());
+    }
+
     if (useCache) {
       abstractionCache.put(absKey, result);
 
@@ -707,72 +830,69 @@ public class PredicateAbstractionManager {
 
       // check whether each of the predicate is implied in the next state...
 
+      if (useCache) {
+        evictFromCachesIfNecessary();
+      }
+
+      // check the predicates that are not cached in parallel if there are enough of them
+      Map<AbstractionPredicate, Byte> parallelResults = Collections.emptyMap();
+      if (contextPool != null) {
+        List<AbstractionPredicate> uncachedPredicates = new ArrayList<>(predicates.size());
+        for (AbstractionPredicate p : predicates) {
+          if ((!useCache || !cartesianAbstractionCache.containsKey(Pair.of(f, p)))
+              // constants are checked sequentially, not all solvers can dump them
+              && !bfmgr.isTrue(p.getSymbolicAtom()) && !bfmgr.isFalse(p.getSymbolicAtom())) {
+            uncachedPredicates.add(p);
+          }
+        }
+        if (uncachedPredicates.size() >= parallelCartesianAbstractionThreshold) {
+          parallelResults = checkPredicatesInParallel(f, ssa, uncachedPredicates);
+          stats.numCartesianAbsPredicatesParallel += uncachedPredicates.size();
+        }
+      }
+
       for (AbstractionPredicate p : predicates) {
         Pair<BooleanFormula, AbstractionPredicate> cacheKey = Pair.of(f, p);
+        byte predVal;
         if (useCache && cartesianAbstractionCache.containsKey(cacheKey)) {
-          byte predVal = cartesianAbstractionCache.get(cacheKey);
+          predVal = cartesianAbstractionCache.get(cacheKey);
           stats.numCartesianAbsPredicatesCached++;
 
-          stats.abstractionEnumTime.getCurentInnerTimer().start();
-          Region v = p.getAbstractVariable();
-          if (predVal == -1) { // pred is false
-            stats.numCartesianAbsPredicates++;
-            v = rmgr.makeNot(v);
-            absbdd = rmgr.makeAnd(absbdd, v);
-          } else if (predVal == 1) { // pred is true
-            stats.numCartesianAbsPredicates++;
-            absbdd = rmgr.makeAnd(absbdd, v);
-          } else {
-            assert predVal == 0 : "predicate value is neither false, true, nor unknown";
-          }
-          stats.abstractionEnumTime.getCurentInnerTimer().stop();
-
         } else {
-          logger.log(Level.ALL, "DEBUG_1",
-              "CHECKING VALUE OF PREDICATE: ", p.getSymbolicAtom());
-
-          // instantiate the definition of the predicate
-          BooleanFormula predTrue = fmgr.instantiate(p.getSymbolicAtom(), ssa);
-          BooleanFormula predFalse = bfmgr.not(predTrue);
-
-          // check whether this predicate has a truth value in the next
-          // state
-          byte predVal = 0; // pred is neither true nor false
+          Byte parallelVal = parallelResults.get(p);
+          if (parallelVal != null) {
+            predVal = parallelVal;
 
-          thmProver.push(predFalse);
-          boolean isTrue = thmProver.isUnsat();
-          thmProver.pop();
+          } else {
+            logger.log(Level.ALL, "DEBUG_1",
+                "CHECKING VALUE OF PREDICATE: ", p.getSymbolicAtom());
 
-          if (isTrue) {
-            stats.numCartesianAbsPredicates++;
-            stats.abstractionEnumTime.getCurentInnerTimer().start();
-            Region v = p.getAbstractVariable();
-            absbdd = rmgr.makeAnd(absbdd, v);
-            stats.abstractionEnumTime.getCurentInnerTimer().stop();
+            // instantiate the definition of the predicate
+            BooleanFormula predTrue = fmgr.instantiate(p.getSymbolicAtom(), ssa);
+            BooleanFormula predFalse = bfmgr.not(predTrue);
 
-            predVal = 1;
-          } else {
-            // check whether it's false...
-            thmProver.push(predTrue);
-            boolean isFalse = thmProver.isUnsat();
-            thmProver.pop();
-
-            if (isFalse) {
-              stats.numCartesianAbsPredicates++;
-              stats.abstractionEnumTime.getCurentInnerTimer().start();
-              Region v = p.getAbstractVariable();
-              v = rmgr.makeNot(v);
-              absbdd = rmgr.makeAnd(absbdd, v);
-              stats.abstractionEnumTime.getCurentInnerTimer().stop();
-
-              predVal = -1;
-            }
+            // check whether this predicate has a truth value in the next state
+            predVal = checkPredicate(thmProver, predTrue, predFalse);
           }
 
           if (useCache) {
             cartesianAbstractionCache.put(cacheKey, predVal);
           }
         }
+
+        stats.abstractionEnumTime.getCurentInnerTimer().start();
+        Region v = p.getAbstractVariable();
+        if (predVal == -1) { // pred is false
+          stats.numCartesianAbsPredicates++;
+          v = rmgr.makeNot(v);
+          absbdd = rmgr.makeAnd(absbdd, v);
+        } else if (predVal == 1) { // pred is true
+          stats.numCartesianAbsPredicates++;
+          absbdd = rmgr.makeAnd(absbdd, v);
+        } else {
+          assert predVal == 0 : "predicate value is neither false, true, nor unknown";
+        }
+        stats.abstractionEnumTime.getCurentInnerTimer().stop();
       }
 
       return absbdd;
@@ -782,6 +902,100 @@ public class PredicateAbstractionManager {
     }
   }
 
+  /**
+   * Check whether a predicate is true (1), false (-1), or neither (0)
+   * in all models of the formula on the top of the prover stack.
+   */
+  private static byte checkPredicate(ProverEnvironment thmProver,
+      BooleanFormula predTrue, BooleanFormula predFalse)
+          throws SolverException, InterruptedException {
+    thmProver.push(predFalse);
+    boolean isTrue = thmProver.isUnsat();
+    thmProver.pop();
+
+    if (isTrue) {
+      return 1;
+    }
+
+    // check whether it's false...
+    thmProver.push(predTrue);
+    boolean isFalse = thmProver.isUnsat();
+    thmProver.pop();
+
+    return isFalse ? (byte)-1 : 0;
+  }
+
+  /**
+   * Check the truth value of each predicate (as in {@link #checkPredicate})
+   * with the solver contexts of {@link #contextPool}.
+   * The predicates are distributed round-robin across the contexts,
+   * and each context asserts the block formula once.
+   * The formulas are translated into the contexts via their SMT-LIB2 representation,
+   * which is created in this thread because {@link #fmgr} is not thread-safe.
+   */
+  private Map<AbstractionPredicate, Byte> checkPredicatesInParallel(final BooleanFormula f,
+      final SSAMap ssa, final List<AbstractionPredicate> predicates)
+          throws SolverException, InterruptedException {
+
+    final String blockFormula = fmgr.dumpFormula(f).toString();
+    final List<String> predicateFormulas = new ArrayList<>(predicates.size());
+    for (AbstractionPredicate p : predicates) {
+      predicateFormulas.add(fmgr.dumpFormula(fmgr.instantiate(p.getSymbolicAtom(), ssa)).toString());
+    }
+
+    final byte[] predVals = new byte[predicates.size()];
+    final int numTasks = Math.min(contextPool.getSize(), predicates.size());
+    List<Future<?>> tasks = new ArrayList<>(numTasks);
+    try {
+      for (int t = 0; t < numTasks; t++) {
+        final int firstPredicate = t;
+        tasks.add(cartesianAbstractionExecutor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws SolverException, InterruptedException {
+            try (SolverContextPool.Context context = contextPool.acquire();
+                 ProverEnvironment prover = context.getSolver().newProverEnvironment()) {
+              FormulaManagerView contextFmgr = context.getFormulaManager();
+              prover.push(contextFmgr.parse(blockFormula));
+
+              for (int i = firstPredicate; i < predVals.length; i += numTasks) {
+                BooleanFormula predTrue = contextFmgr.parse(predicateFormulas.get(i));
+                BooleanFormula predFalse = contextFmgr.getBooleanFormulaManager().not(predTrue);
+                predVals[i] = checkPredicate(prover, predTrue, predFalse);
+              }
+            }
+            return null;
+          }
+        }));
+      }
+
+      for (Future<?> task : tasks) {
+        task.get();
+      }
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), SolverException.class, InterruptedException.class);
+      throw new UnexpectedCheckedException("cartesian abstraction", e.getCause());
+    } finally {
+      // in case of an exception, the remaining tasks are not necessary
+      for (Future<?> task : tasks) {
+        task.cancel(true);
+      }
+    }
+
+    Map<AbstractionPredicate, Byte> result = Maps.newHashMapWithExpectedSize(predicates.size());
+    for (int i = 0; i < predVals.length; i++) {
+      result.put(predicates.get(i), predVals[i]);
+    }
+    return result;
+  }
+
+  private void evictFromCachesIfNecessary() {
+    abstractionCacheHandle.evictIfNecessary(abstractionCache);
+    unsatisfiabilityCacheHandle.evictIfNecessary(unsatisfiabilityCache);
+    if (cartesianAbstractionCache != null) {
+      cartesianAbstractionCacheHandle.evictIfNecessary(cartesianAbstractionCache);
+    }
+  }
+
   private BooleanFormula buildFormula(BooleanFormula symbFormula) {
 
     if (fmgr.useBitwiseAxioms()) {
@@ -1001,6 +1215,32 @@ public class PredicateAbstractionManager {
     return amgr.makePredicate(pFormula);
   }
 
+  @Nullable PersistentAbstractionCache getPersistentAbstractionCache() {
+    return persistentAbstractionCache;
+  }
+
+  /**
+   * Free the solver contexts for parallel cartesian abstraction.
+   */
+  public void close() {
+    if (cartesianAbstractionExecutor != null) {
+      // Not all solvers react to thread interrupts, but they check the shutdown notifier.
+      contextPoolShutdownNotifier.requestShutdown("Predicate abstraction closed");
+      cartesianAbstractionExecutor.shutdownNow();
+      try {
+        // the contexts must only be closed after all threads released them
+        if (!cartesianAbstractionExecutor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+          logger.log(Level.WARNING, "Cartesian abstraction did not terminate, not freeing its solver contexts.");
+          return;
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      contextPool.close();
+    }
+  }
+
   // delegate methods
 
   public Set<AbstractionPredicate> extractPredicates(Region pRegion) {
@@ -0,0 +1,198 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.predicate;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.TruthJUnit.assume;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import org.sosy_lab.common.configuration.Builder;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.ConfigurationBuilder;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.converters.FileTypeConverter;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.log.TestLogManager;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.core.AnalysisDirection;
+import org.sosy_lab.cpachecker.core.ShutdownNotifier;
+import org.sosy_lab.cpachecker.util.predicates.AbstractionFormula;
+import org.sosy_lab.cpachecker.util.predicates.AbstractionManager;
+import org.sosy_lab.cpachecker.util.predicates.AbstractionPredicate;
+import org.sosy_lab.cpachecker.util.predicates.FormulaManagerFactory.Solvers;
+import org.sosy_lab.cpachecker.util.predicates.Solver;
+import org.sosy_lab.cpachecker.util.predicates.bdd.BDDManagerFactory;
+import org.sosy_lab.cpachecker.util.predicates.interfaces.BooleanFormula;
+import org.sosy_lab.cpachecker.util.predicates.interfaces.NumeralFormula.IntegerFormula;
+import org.sosy_lab.cpachecker.util.predicates.interfaces.view.BooleanFormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.interfaces.view.FormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.interfaces.view.NumeralFormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormula;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManagerImpl;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAMap;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.pointeraliasing.PointerTargetSet;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Check that the parallel cartesian abstraction
+ * computes the same abstractions as the sequential one.
+ */
+@RunWith(Parameterized.class)
+public class PredicateAbstractionManagerTest {
+
+  @Parameters(name="{0}")
+  public static Object[] getAllSolvers() {
+    return Solvers.values();
+  }
+
+  @Parameter(0)
+  public Solvers solver;
+
+  private static final int POOL_SIZE = 4;
+  private static final int THRESHOLD = 8;
+
+  /** Predicates "x > i" and "y > i" are created for i in [0, PREDICATE_BOUND). */
+  private static final int PREDICATE_BOUND = 12;
+
+  private final LogManager logger = TestLogManager.getInstance();
+  private final ShutdownNotifier shutdownNotifier = ShutdownNotifier.create();
+
+  private Solver mainSolver;
+  private FormulaManagerView fmgr;
+  private AbstractionManager amgr;
+  private PathFormulaManager pfmgr;
+
+  private final List<PredicateAbstractionManager> abstractionManagers = new ArrayList<>();
+
+  @Before
+  public void createSolver() throws Exception {
+    Configuration config = createConfig(false, "CARTESIAN");
+
+    try {
+      mainSolver = Solver.create(config, logger, shutdownNotifier);
+    } catch (NoClassDefFoundError e) {
+      assume().withFailureMessage("Scala is not on class path")
+              .that(e.getMessage()).doesNotContain("scala");
+      throw e;
+    }
+    fmgr = mainSolver.getFormulaManager();
+    amgr = new AbstractionManager(new BDDManagerFactory(config, logger).createRegionManager(),
+        fmgr, config, logger);
+    pfmgr = new PathFormulaManagerImpl(fmgr, config, logger, shutdownNotifier,
+        MachineModel.LINUX32, AnalysisDirection.FORWARD);
+  }
+
+  @After
+  public void close() throws Exception {
+    for (PredicateAbstractionManager pamgr : abstractionManagers) {
+      pamgr.close();
+    }
+    if (fmgr != null) {
+      fmgr.close();
+    }
+  }
+
+  private Configuration createConfig(boolean parallel, String abstractionType) throws Exception {
+    ConfigurationBuilder builder = new Builder();
+    builder.setOption("cpa.predicate.solver", solver.toString());
+    builder.setOption("cpa.predicate.solver.pool.size", Integer.toString(POOL_SIZE));
+    builder.setOption("cpa.predicate.abs.useCache", "false");
+    builder.setOption("cpa.predicate.abstraction.computation", abstractionType);
+    builder.setOption("cpa.predicate.abstraction.parallelCartesian", Boolean.toString(parallel));
+    builder.setOption("cpa.predicate.abstraction.parallelCartesianThreshold", Integer.toString(THRESHOLD));
+    builder.addConverter(FileOption.class, FileTypeConverter.createWithSafePathsOnly(Configuration.defaultConfiguration()));
+    return builder.build();
+  }
+
+  private PredicateAbstractionManager createAbstractionManager(boolean parallel,
+      String abstractionType) throws Exception {
+    PredicateAbstractionManager pamgr = new PredicateAbstractionManager(amgr, fmgr, pfmgr,
+        mainSolver, createConfig(parallel, abstractionType), logger, shutdownNotifier);
+    abstractionManagers.add(pamgr);
+    return pamgr;
+  }
+
+  private void checkParallelAbstraction(String abstractionType) throws Exception {
+    BooleanFormulaManagerView bfmgr = fmgr.getBooleanFormulaManager();
+    NumeralFormulaManagerView<IntegerFormula, IntegerFormula> ifmgr = fmgr.getIntegerFormulaManager();
+    IntegerFormula x = ifmgr.makeVariable("x");
+    IntegerFormula y = ifmgr.makeVariable("y");
+
+    List<AbstractionPredicate> predicates = new ArrayList<>();
+    for (int i = 0; i < PREDICATE_BOUND; i++) {
+      predicates.add(amgr.makePredicate(ifmgr.greaterThan(x, ifmgr.makeNumber(i))));
+      predicates.add(amgr.makePredicate(ifmgr.greaterThan(y, ifmgr.makeNumber(i))));
+    }
+    assertThat(predicates.size()).isGreaterThan(THRESHOLD);
+
+    // x = 10 & (y = 4 | y = 7), some predicates are left for the boolean part of combined abstraction
+    SSAMap ssa = SSAMap.emptySSAMap().builder()
+        .setIndex("x", CNumericTypes.INT, 1)
+        .setIndex("y", CNumericTypes.INT, 1)
+        .build();
+    BooleanFormula block = bfmgr.and(ImmutableList.of(
+        ifmgr.equal(x, ifmgr.makeNumber(10)),
+        ifmgr.greaterThan(y, ifmgr.makeNumber(3)),
+        ifmgr.lessThan(y, ifmgr.makeNumber(8)),
+        bfmgr.or(ifmgr.lessThan(y, ifmgr.makeNumber(5)), ifmgr.greaterThan(y, ifmgr.makeNumber(6)))));
+    BooleanFormula f = fmgr.instantiate(block, ssa);
+    PathFormula blockFormula = new PathFormula(f, ssa, PointerTargetSet.emptyPointerTargetSet(), 1);
+
+    PredicateAbstractionManager sequentialPamgr = createAbstractionManager(false, abstractionType);
+    PredicateAbstractionManager parallelPamgr = createAbstractionManager(true, abstractionType);
+
+    AbstractionFormula sequential = sequentialPamgr.buildAbstraction(
+        new CFANode("main"), f, blockFormula, predicates);
+    AbstractionFormula parallel = parallelPamgr.buildAbstraction(
+        new CFANode("main"), f, blockFormula, predicates);
+
+    assertThat(parallelPamgr.stats.numCartesianAbsPredicatesParallel).isEqualTo(predicates.size());
+    assertThat(sequentialPamgr.stats.numCartesianAbsPredicatesParallel).isEqualTo(0);
+    assertThat(parallel.asRegion()).isEqualTo(sequential.asRegion());
+    assertThat(parallel.isTrue()).isFalse();
+  }
+
+  @Test
+  public void parallelCartesianAbstraction() throws Exception {
+    checkParallelAbstraction("CARTESIAN");
+  }
+
+  @Test
+  public void parallelCombinedAbstraction() throws Exception {
+    checkParallelAbstraction("COMBINED");
+  }
+}
@@ -106,6 +106,11 @@ public class PredicateCPA implements ConfigurableProgramAnalysis, StatisticsProv
   @Option(secure=true, description="Direction of the analysis?")
   private AnalysisDirection direction = AnalysisDirection.FORWARD;
 
+  @Option(secure=true, description="Make the formula manager of this analysis available globally, "
+      + "e.g., for reading and writing the formulas of abstract states. "
+      + "Disable this for additional instances of the analysis that are used only internally.")
+  private boolean storeFormulaManagerGlobally = true;
+
   protected final Configuration config;
   protected final LogManager logger;
   protected final ShutdownNotifier shutdownNotifier;
@@ -150,7 +155,7 @@ public class PredicateCPA implements ConfigurableProgramAnalysis, StatisticsProv
 
     PathFormulaManager pfMgr = new PathFormulaManagerImpl(formulaManager, config, logger, shutdownNotifier, cfa, direction);
     if (useCache) {
-      pfMgr = new CachingPathFormulaManager(pfMgr);
+      pfMgr = new CachingPathFormulaManager(pfMgr, config);
     }
     pathFormulaManager = pfMgr;
 
@@ -168,7 +173,7 @@ public class PredicateCPA implements ConfigurableProgramAnalysis, StatisticsProv
 
     assumesStore = new PredicateAssumeStore(formulaManager);
 
-    predicateManager = new PredicateAbstractionManager(abstractionManager, formulaManager, pathFormulaManager, solver, config, logger);
+    predicateManager = new PredicateAbstractionManager(abstractionManager, formulaManager, pathFormulaManager, solver, config, logger, shutdownNotifier);
     transfer = new PredicateTransferRelation(this, blk, config, direction);
 
     topState = PredicateAbstractState.mkAbstractionState(
@@ -209,7 +214,9 @@ public class PredicateCPA implements ConfigurableProgramAnalysis, StatisticsProv
     stats = new PredicateCPAStatistics(this, blk, regionManager, abstractionManager,
         cfa, preconditions, invariantGenerator.getTimeOfExecution(), config);
 
-    GlobalInfo.getInstance().storeFormulaManager(formulaManager);
+    if (storeFormulaManagerGlobally) {
+      GlobalInfo.getInstance().storeFormulaManager(formulaManager);
+    }
 
     machineModel = cfa.getMachineModel();
 
@@ -294,6 +301,7 @@ public class PredicateCPA implements ConfigurableProgramAnalysis, StatisticsProv
 
   @Override
   public void close() throws Exception {
+    predicateManager.close();
     formulaManager.close();
   }
 
@@ -157,7 +157,7 @@ class PredicateCPAStatistics extends AbstractStatistics {
     preconditionWriter = checkNotNull(pPreconditions);
 
     if (exportPredmap && predmapFile != null) {
-      precisionWriter = new PredicateMapWriter(cpa.getConfiguration(), fmgr);
+      precisionWriter = new PredicateMapWriter(cpa.getConfiguration(), fmgr, pCfa);
     } else {
       precisionWriter = null;
     }
@@ -290,6 +290,9 @@ class PredicateCPAStatistics extends AbstractStatistics {
       out.println("  Times precision was empty:       " + valueWithPercentage(as.numSymbolicAbstractions, as.numCallsAbstraction));
       out.println("  Times precision was {false}:     " + valueWithPercentage(as.numSatCheckAbstractions, as.numCallsAbstraction));
       out.println("  Times result was cached:         " + valueWithPercentage(as.numCallsAbstractionCached, as.numCallsAbstraction));
+      if (amgr.getPersistentAbstractionCache() != null) {
+        amgr.getPersistentAbstractionCache().printStatistics(out);
+      }
       out.println("  Times cartesian abs was used:    " + valueWithPercentage(as.cartesianAbstractionTime.getNumberOfIntervals(), as.numCallsAbstraction));
       out.println("  Times boolean abs was used:      " + valueWithPercentage(as.booleanAbstractionTime.getNumberOfIntervals(), as.numCallsAbstraction));
       out.println("  Times result was 'false':        " + valueWithPercentage(prec.numAbstractionsFalse, prec.numAbstractions));
@@ -311,6 +314,9 @@ class PredicateCPAStatistics extends AbstractStatistics {
     out.println("Number of SMT sat checks:          " + solver.satChecks);
     out.println("  trivial:                         " + solver.trivialSatChecks);
     out.println("  cached:                          " + solver.cachedSatChecks);
+    if (solver.getPersistentCache() != null) {
+      solver.getPersistentCache().printStatistics(out);
+    }
     out.println();
     out.println("Max ABE block size:                       " + prec.maxBlockSize);
     out.println("Number of predicates discovered:          " + allDistinctPreds);
@@ -332,6 +338,9 @@ class PredicateCPAStatistics extends AbstractStatistics {
       if (as.cartesianAbstractionTime.getNumberOfIntervals() > 0) {
         out.println("Number of preds cached for cartesian abs: " + valueWithPercentage(as.numCartesianAbsPredicatesCached, as.numTotalPredicates));
         out.println("Number of preds solved by cartesian abs:  " + valueWithPercentage(as.numCartesianAbsPredicates, as.numTotalPredicates));
+        if (as.numCartesianAbsPredicatesParallel > 0) {
+          out.println("Number of preds checked in parallel:      " + valueWithPercentage(as.numCartesianAbsPredicatesParallel, as.numTotalPredicates));
+        }
       }
       if (as.booleanAbstractionTime.getNumberOfIntervals() > 0) {
         out.println("Number of preds handled by boolean abs:   " + valueWithPercentage(as.numBooleanAbsPredicates, as.numTotalPredicates));
@@ -345,6 +354,7 @@ class PredicateCPAStatistics extends AbstractStatistics {
       int pathFormulaCacheHits = pfMgr.pathFormulaCacheHits;
       int totalPathFormulaComputations = pfMgr.pathFormulaComputationTimer.getNumberOfIntervals() + pathFormulaCacheHits;
       out.println("Number of path formula cache hits:   " + pathFormulaCacheHits + " (" + toPercent(pathFormulaCacheHits, totalPathFormulaComputations) + ")");
+      pfMgr.printStatistics(out);
     }
 
     out.println();
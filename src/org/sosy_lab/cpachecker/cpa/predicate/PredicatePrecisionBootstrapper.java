@@ -104,6 +104,11 @@ public class PredicatePrecisionBootstrapper implements StatisticsProvider {
           logger.logUserException(Level.WARNING, e, "Could not read predicate map");
         }
       }
+
+      if (parser.getReusedFunctions() > 0 || parser.getChangedFunctions() > 0) {
+        statistics.addKeyValueStatistic("Init. functions reused from previous version", parser.getReusedFunctions());
+        statistics.addKeyValueStatistic("Init. functions changed since previous version", parser.getChangedFunctions());
+      }
     }
 
     return result;
@@ -0,0 +1,350 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.predicate.persistence;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicatePersistenceUtils.*;
+import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.toPercent;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nullable;
+
+import org.sosy_lab.common.Pair;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.Timer;
+import org.sosy_lab.cpachecker.util.predicates.AbstractionPredicate;
+import org.sosy_lab.cpachecker.util.predicates.interfaces.BooleanFormula;
+import org.sosy_lab.cpachecker.util.predicates.interfaces.view.FormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAMap;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * A cache for predicate abstractions that is stored in a file,
+ * such that abstractions computed in one run of CPAchecker can be reused
+ * by later runs on the same or a modified program.
+ *
+ * The file is an append-only list of records, each consisting of
+ * a line with the key followed by a colon,
+ * the SMT-LIB2 definitions and the assert statement of the (uninstantiated)
+ * abstraction formula (as in the files written by {@link PredicateAbstractionsWriter}),
+ * and an empty line.
+ * The key is the SHA-256 hash of the solver version, the kind of abstraction,
+ * the instantiated block formula, its SSA map, and the set of predicates.
+ * The uninstantiated block formula is not sufficient, because uninstantiating
+ * merges different SSA indices of the same variable.
+ *
+ * The file is read once when the cache is created.
+ * New records are appended while holding an exclusive lock on the file,
+ * so several processes can share the same file.
+ * File locks are held by the whole JVM, so within one process
+ * the accesses to the same file are additionally serialized by an in-process lock
+ * (otherwise, {@link FileChannel#lock()} would throw an
+ * {@link java.nio.channels.OverlappingFileLockException}).
+ * Incomplete or invalid records (e.g., from a killed process) are ignored.
+ *
+ * Callers get the key of a query with {@link #getKey(BooleanFormula, SSAMap, Collection)}
+ * once and use it for both the lookup and the store.
+ */
+public class PersistentAbstractionCache {
+
+  private static final Pattern KEY_PATTERN = Pattern.compile("^[0-9a-f]{64}:$");
+
+  // in-process locks for the files, indexed by absolute path
+  private static final ConcurrentMap<Path, Object> fileLocks = new ConcurrentHashMap<>();
+
+  private final Path file;
+  private final String solverVersion;
+  private final String abstractionType;
+  private final FormulaManagerView fmgr;
+  private final LogManager logger;
+
+  // key -> definitions and assert statement of the abstraction formula
+  private final Map<String, String> entries = new HashMap<>();
+
+  // SMT-LIB2 representation of the predicates, they are part of each key
+  private final Map<AbstractionPredicate, String> predicateStrings = new HashMap<>();
+
+  private boolean writeFailed = false;
+
+  // statistics
+  private int loaded = 0;
+  private int lookups = 0;
+  private int hits = 0;
+  private int stores = 0;
+  private final Timer cacheTime = new Timer();
+
+  /**
+   * Create a cache and read all existing entries from the given file.
+   * @param pFile The file, does not need to exist.
+   * @param pAbstractionType A string identifying how abstractions are computed,
+   *          such that abstractions of different kinds are never mixed.
+   */
+  public PersistentAbstractionCache(Path pFile, String pAbstractionType,
+      FormulaManagerView pFmgr, LogManager pLogger) {
+    file = checkNotNull(pFile);
+    abstractionType = checkNotNull(pAbstractionType);
+    fmgr = pFmgr;
+    solverVersion = pFmgr.getVersion();
+    logger = pLogger;
+
+    cacheTime.start();
+    try {
+      readEntries();
+    } catch (NoSuchFileException e) {
+      // first run, file will be created
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Could not read persistent abstraction cache");
+    } finally {
+      cacheTime.stop();
+    }
+    loaded = entries.size();
+  }
+
+  /**
+   * Get the in-process lock for the file,
+   * which needs to be held while acquiring and holding a lock on the file.
+   */
+  private Object getProcessLock() {
+    Path path = file.toAbsolutePath().normalize();
+    Object lock = fileLocks.get(path);
+    if (lock == null) {
+      Object newLock = new Object();
+      lock = fileLocks.putIfAbsent(path, newLock);
+      if (lock == null) {
+        lock = newLock;
+      }
+    }
+    return lock;
+  }
+
+  private void readEntries() throws IOException {
+    synchronized (getProcessLock()) {
+      readEntries0();
+    }
+  }
+
+  private void readEntries0() throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+         FileLock lock = channel.lock(0, Long.MAX_VALUE, true)) {
+
+      // The reader must not be closed before the lock is released,
+      // and it needs to read from the same channel,
+      // because closing any other handle of the file would release the lock.
+      BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8.name()));
+
+      List<String> record = new ArrayList<>();
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty()) {
+          addEntry(record);
+          record.clear();
+        } else {
+          record.add(line);
+        }
+      }
+      // last record is complete only if it was terminated by an empty line
+    }
+  }
+
+  private void addEntry(List<String> record) {
+    if (record.size() < 2
+        || !KEY_PATTERN.matcher(record.get(0)).matches()) {
+      if (!record.isEmpty()) {
+        logger.log(Level.FINE, "Ignoring invalid entry in persistent abstraction cache", file, ":", record.get(0));
+      }
+      return;
+    }
+    String formula = record.get(record.size() - 1);
+    if (!formula.startsWith("(assert ") || !formula.endsWith(")")) {
+      logger.log(Level.FINE, "Ignoring invalid entry in persistent abstraction cache", file, ":", record.get(0));
+      return;
+    }
+    String key = record.get(0).substring(0, record.get(0).length() - 1);
+    entries.put(key, LINE_JOINER.join(record.subList(1, record.size())));
+  }
+
+  /**
+   * Get the key of an abstraction query
+   * for {@link #lookup(String)} and {@link #store(String, BooleanFormula)}.
+   * @param f The instantiated block formula.
+   * @param ssa The SSA map of the block formula.
+   * @param predicates The predicates for the abstraction.
+   */
+  public String getKey(BooleanFormula f, SSAMap ssa, Collection<AbstractionPredicate> predicates) {
+    cacheTime.start();
+    try {
+      Hasher hasher = Hashing.sha256().newHasher();
+      putString(hasher, solverVersion);
+      putString(hasher, abstractionType);
+      putString(hasher, fmgr.dumpFormula(f).toString());
+      putString(hasher, ssa.toString());
+
+      // the order of the predicates is irrelevant
+      List<String> predicateList = new ArrayList<>(predicates.size());
+      for (AbstractionPredicate pred : predicates) {
+        String predString = predicateStrings.get(pred);
+        if (predString == null) {
+          predString = fmgr.dumpFormula(pred.getSymbolicAtom()).toString();
+          predicateStrings.put(pred, predString);
+        }
+        predicateList.add(predString);
+      }
+      Collections.sort(predicateList);
+      for (String predString : predicateList) {
+        putString(hasher, predString);
+      }
+      return hasher.hash().toString();
+    } finally {
+      cacheTime.stop();
+    }
+  }
+
+  private static void putString(Hasher hasher, String s) {
+    hasher.putString(s, StandardCharsets.UTF_8).putByte((byte)0);
+  }
+
+  /**
+   * Look up the abstraction of a block formula.
+   * @param key The key of the query as returned by {@link #getKey(BooleanFormula, SSAMap, Collection)}.
+   * @return The uninstantiated abstraction formula, or null if it is not in the cache.
+   */
+  public @Nullable BooleanFormula lookup(String key) {
+    lookups++;
+    cacheTime.start();
+    try {
+      String content = entries.get(key);
+      if (content == null) {
+        return null;
+      }
+
+      BooleanFormula result;
+      try {
+        result = fmgr.parse(content);
+      } catch (IllegalArgumentException e) {
+        logger.logDebugException(e, "Ignoring invalid entry in persistent abstraction cache");
+        return null;
+      }
+      hits++;
+      return result;
+    } finally {
+      cacheTime.stop();
+    }
+  }
+
+  /**
+   * Store the abstraction of a block formula,
+   * it will be visible for lookups in this run and in all later runs.
+   * @param key The key of the query as returned by {@link #getKey(BooleanFormula, SSAMap, Collection)}.
+   * @param abstraction The uninstantiated abstraction formula.
+   */
+  public void store(String key, BooleanFormula abstraction) {
+    if (writeFailed) {
+      return;
+    }
+    cacheTime.start();
+    try {
+      Pair<String, List<String>> parts = splitFormula(fmgr, abstraction);
+      List<String> lines = new ArrayList<>(parts.getSecond());
+      lines.add(parts.getFirst());
+      String content = LINE_JOINER.join(lines);
+      if (content.equals(entries.put(key, content))) {
+        return;
+      }
+
+      appendRecord(key + ":\n" + content + "\n\n");
+      stores++;
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Could not write to persistent abstraction cache, it will not be updated");
+      writeFailed = true;
+    } finally {
+      cacheTime.stop();
+    }
+  }
+
+  private void appendRecord(String pRecord) throws IOException {
+    synchronized (getProcessLock()) {
+      appendRecord0(pRecord);
+    }
+  }
+
+  private void appendRecord0(String pRecord) throws IOException {
+    try (FileChannel channel = FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+         FileLock lock = channel.lock()) {
+
+      String record = pRecord;
+      long size = channel.size();
+      if (size > 0) {
+        // If a previous writer was killed, the last record might be incomplete.
+        // Terminate it, such that it is ignored and our record stays intact.
+        ByteBuffer end = ByteBuffer.allocate((int)Math.min(size, 2));
+        channel.read(end, size - end.capacity());
+        end.flip();
+        boolean terminated = end.remaining() == 2 && end.get(0) == '\n' && end.get(1) == '\n';
+        if (!terminated) {
+          record = "\n\n" + record;
+        }
+      }
+
+      ByteBuffer buffer = ByteBuffer.wrap(record.getBytes(StandardCharsets.UTF_8));
+      long position = size;
+      while (buffer.hasRemaining()) {
+        position += channel.write(buffer, position);
+      }
+      channel.force(false);
+    }
+  }
+
+  public void printStatistics(PrintStream out) {
+    out.println("    Persistent cache entries read: " + loaded);
+    out.println("    Persistent cache lookups:      " + lookups);
+    out.println("    Persistent cache hits:         " + hits + " (" + toPercent(hits, lookups) + ")");
+    out.println("    Persistent cache stores:       " + stores);
+    out.println("    Time for persistent cache:     " + cacheTime);
+  }
+}
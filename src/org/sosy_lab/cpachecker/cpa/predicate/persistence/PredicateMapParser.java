@@ -27,6 +27,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -46,6 +47,7 @@ import org.sosy_lab.cpachecker.cfa.CFA;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.cpa.predicate.PredicatePrecision;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicatePersistenceUtils.PredicateParsingFailedException;
+import org.sosy_lab.cpachecker.util.FunctionStructures;
 import org.sosy_lab.cpachecker.util.predicates.AbstractionManager;
 import org.sosy_lab.cpachecker.util.predicates.AbstractionPredicate;
 import org.sosy_lab.cpachecker.util.predicates.interfaces.BooleanFormula;
@@ -53,7 +55,6 @@ import org.sosy_lab.cpachecker.util.predicates.interfaces.FormulaManager;
 import org.sosy_lab.cpachecker.util.predicates.interfaces.view.FormulaManagerView;
 
 import com.google.common.collect.HashMultimap;
-import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
@@ -74,10 +75,19 @@ import com.google.common.collect.Sets;
  *   number of lines of the format "(declare-fun ...)" or "(define-fun ...)"
  *   with definitions in SMTLIB2 format.
  * - Every section except the first one starts with a line of the format "key:",
- *   where key is either "*", "<FUNC>", or "<FUNC> N<ID>", with
+ *   where key is either "*", "<FUNC>", "<FUNC> N<ID>", or "<FUNC> N<ID>@<INSTANCE>", with
  *   <FUNC> being a function name of the program,
- *   and <ID> being a CFA node id.
+ *   <ID> being a CFA node id,
+ *   and <INSTANCE> being the number of the visit of this node on a path.
  *   This line defines where the following predicates are to be used.
+ * - Alternatively, the key may be "<FUNC> #<HASH>", "<FUNC> #<HASH> L<NUM>",
+ *   or "<FUNC> #<HASH> L<NUM>@<INSTANCE>", with <HASH> being the structural
+ *   hash of the function and <NUM> the number of a location within its function
+ *   (cf. {@link FunctionStructures}).
+ *   Such keys do not depend on the CFA node numbering and can be used for
+ *   another version of the program. If they are present, the predicates of all
+ *   functions whose hash differs, and of all functions that call such a
+ *   function, are ignored. Functions that are not mentioned count as changed.
  * - The following lines of the section contain SMTLIB2 statements of the form
  *   "(assert ...)". Each asserted term will be used as one predicate.
  */
@@ -86,8 +96,13 @@ public class PredicateMapParser {
 
   private static final String FUNCTION_NAME_REGEX = "([_a-zA-Z][_a-zA-Z0-9]*)";
   private static final String CFA_NODE_REGEX      = "N([0-9][0-9]*)";
+  private static final String INSTANCE_REGEX      = "(@([0-9][0-9]*))?";
+  private static final String HASH_REGEX          = "#([0-9a-f]+)";
+  private static final String LOCAL_NUMBER_REGEX  = "L([0-9][0-9]*)";
   private static final Pattern FUNCTION_NAME_PATTERN = Pattern.compile("^" + FUNCTION_NAME_REGEX + "$");
-  private static final Pattern CFA_NODE_PATTERN = Pattern.compile("^" + FUNCTION_NAME_REGEX + " " + CFA_NODE_REGEX + "$");
+  private static final Pattern CFA_NODE_PATTERN = Pattern.compile("^" + FUNCTION_NAME_REGEX + " " + CFA_NODE_REGEX + INSTANCE_REGEX + "$");
+  private static final Pattern STABLE_FUNCTION_PATTERN = Pattern.compile("^" + FUNCTION_NAME_REGEX + " " + HASH_REGEX + "$");
+  private static final Pattern STABLE_NODE_PATTERN = Pattern.compile("^" + FUNCTION_NAME_REGEX + " " + HASH_REGEX + " " + LOCAL_NUMBER_REGEX + INSTANCE_REGEX + "$");
 
   @Option(secure=true, description="Apply location-specific predicates to all locations in their function")
   private boolean applyFunctionWide = false;
@@ -103,6 +118,11 @@ public class PredicateMapParser {
 
   private final Map<Integer, CFANode> idToNodeMap = Maps.newHashMap();
 
+  private FunctionStructures functionStructures = null; // lazily initialized
+
+  private int reusedFunctions = 0;
+  private int changedFunctions = 0;
+
   public PredicateMapParser(Configuration config, CFA pCfa,
       LogManager pLogger,
       FormulaManagerView pFmgr, AbstractionManager pAmgr) throws InvalidConfigurationException {
@@ -150,6 +170,13 @@ public class PredicateMapParser {
     Set<AbstractionPredicate> globalPredicates = Sets.newHashSet();
     SetMultimap<String, AbstractionPredicate> functionPredicates = HashMultimap.create();
     SetMultimap<CFANode, AbstractionPredicate> localPredicates = HashMultimap.create();
+    SetMultimap<Pair<CFANode, Integer>, AbstractionPredicate> locationInstancePredicates = HashMultimap.create();
+
+    // sections with stable keys can be used only after all hashes are known
+    SetMultimap<String, String> storedHashes = HashMultimap.create();
+    SetMultimap<String, AbstractionPredicate> stableFunctionPredicates = HashMultimap.create();
+    SetMultimap<CFANode, AbstractionPredicate> stableLocalPredicates = HashMultimap.create();
+    SetMultimap<Pair<CFANode, Integer>, AbstractionPredicate> stableLocationInstancePredicates = HashMultimap.create();
 
     Set<AbstractionPredicate> currentSet = null;
     String currentLine;
@@ -177,6 +204,8 @@ public class PredicateMapParser {
         if (currentLine.isEmpty()) {
           throw new PredicateParsingFailedException("empty key is not allowed", source, lineNo);
         }
+        Matcher stableFunctionMatcher = STABLE_FUNCTION_PATTERN.matcher(currentLine);
+        Matcher stableNodeMatcher = STABLE_NODE_PATTERN.matcher(currentLine);
 
         if (currentLine.equals("*") || applyGlobally) {
           // the section "*"
@@ -193,6 +222,34 @@ public class PredicateMapParser {
             currentSet = functionPredicates.get(currentLine);
           }
 
+        } else if (stableFunctionMatcher.matches()) {
+          // a section with a function name and its hash
+          String function = stableFunctionMatcher.group(1);
+          storedHashes.put(function, stableFunctionMatcher.group(2));
+          currentSet = stableFunctionPredicates.get(function);
+
+        } else if (stableNodeMatcher.matches()) {
+          // a section with a location within a function with a hash
+          String function = stableNodeMatcher.group(1);
+          storedHashes.put(function, stableNodeMatcher.group(2));
+          int localNumber = Integer.parseInt(stableNodeMatcher.group(3)); // does not fail, we checked with regexp
+
+          if (applyFunctionWide) {
+            currentSet = stableFunctionPredicates.get(function);
+
+          } else {
+            CFANode node = getFunctionStructures().getNode(function, localNumber);
+            if (node == null) {
+              // function does not exist anymore or has changed
+              currentSet = new HashSet<>(); // temporary set which will be thrown away and ignored
+            } else if (stableNodeMatcher.group(4) != null) {
+              int instance = Integer.parseInt(stableNodeMatcher.group(5));
+              currentSet = stableLocationInstancePredicates.get(Pair.of(node, instance));
+            } else {
+              currentSet = stableLocalPredicates.get(node);
+            }
+          }
+
         } else {
           Matcher matcher = CFA_NODE_PATTERN.matcher(currentLine);
           if (matcher.matches()) {
@@ -214,6 +271,9 @@ public class PredicateMapParser {
               if (node == null) {
                 logger.log(Level.WARNING, "Cannot use predicates for CFANode", nodeId + ", this node does not exist.");
                 currentSet = new HashSet<>(); // temporary set which will be thrown away and ignored
+              } else if (matcher.group(3) != null) {
+                int instance = Integer.parseInt(matcher.group(4));
+                currentSet = locationInstancePredicates.get(Pair.of(node, instance));
               } else {
                 currentSet = localPredicates.get(node);
               }
@@ -242,9 +302,76 @@ public class PredicateMapParser {
       }
     }
 
+    if (!storedHashes.isEmpty()) {
+      Set<String> unusableFunctions = getChangedFunctionsAndCallers(storedHashes);
+
+      for (Map.Entry<String, AbstractionPredicate> entry : stableFunctionPredicates.entries()) {
+        if (!unusableFunctions.contains(entry.getKey())) {
+          functionPredicates.put(entry.getKey(), entry.getValue());
+        }
+      }
+      for (Map.Entry<CFANode, AbstractionPredicate> entry : stableLocalPredicates.entries()) {
+        if (!unusableFunctions.contains(entry.getKey().getFunctionName())) {
+          localPredicates.put(entry.getKey(), entry.getValue());
+        }
+      }
+      for (Map.Entry<Pair<CFANode, Integer>, AbstractionPredicate> entry : stableLocationInstancePredicates.entries()) {
+        if (!unusableFunctions.contains(entry.getKey().getFirst().getFunctionName())) {
+          locationInstancePredicates.put(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+
     return new PredicatePrecision(
-        ImmutableSetMultimap.<Pair<CFANode,Integer>, AbstractionPredicate>of(),
-        localPredicates, functionPredicates, globalPredicates);
+        locationInstancePredicates, localPredicates, functionPredicates, globalPredicates);
+  }
+
+  /**
+   * Compare the stored hashes of the functions with the hashes of the current program.
+   * @return The set of functions that have changed (or did not exist before),
+   * together with their transitive callers.
+   */
+  private Set<String> getChangedFunctionsAndCallers(SetMultimap<String, String> storedHashes) {
+    FunctionStructures structures = getFunctionStructures();
+
+    Set<String> changed = new HashSet<>();
+    for (Map.Entry<String, String> function : structures.getHashes().entrySet()) {
+      if (!storedHashes.get(function.getKey()).equals(Collections.singleton(function.getValue()))) {
+        changed.add(function.getKey());
+      }
+    }
+
+    Set<String> result = structures.withTransitiveCallers(changed);
+    int reused = structures.getHashes().size() - result.size();
+    logger.log(Level.INFO, "Reusing predicates of", reused, "unchanged functions,",
+        changed.size(), "functions have changed and", result.size() - changed.size(),
+        "further functions call them.");
+    reusedFunctions += reused;
+    changedFunctions += changed.size();
+    return result;
+  }
+
+  private FunctionStructures getFunctionStructures() {
+    if (functionStructures == null) {
+      functionStructures = new FunctionStructures(cfa);
+    }
+    return functionStructures;
+  }
+
+  /**
+   * Return the number of functions whose predicates were taken from a file
+   * written for a previous version of the program (with stable keys).
+   */
+  public int getReusedFunctions() {
+    return reusedFunctions;
+  }
+
+  /**
+   * Return the number of functions that were found to be changed
+   * in comparison to a file written for a previous version of the program.
+   */
+  public int getChangedFunctions() {
+    return changedFunctions;
   }
 
   private CFANode getCFANodeWithId(int id) {
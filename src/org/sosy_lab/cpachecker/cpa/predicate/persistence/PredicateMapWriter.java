@@ -33,16 +33,21 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
 import org.sosy_lab.common.Pair;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.cpachecker.cfa.CFA;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicatePersistenceUtils.PredicateDumpFormat;
+import org.sosy_lab.cpachecker.util.FunctionStructures;
 import org.sosy_lab.cpachecker.util.predicates.AbstractionPredicate;
 import org.sosy_lab.cpachecker.util.predicates.interfaces.view.FormulaManagerView;
 
+import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
@@ -58,11 +63,32 @@ public class PredicateMapWriter {
       description="Format for exporting predicates from precisions.")
   private PredicateDumpFormat format = PredicateDumpFormat.SMTLIB2;
 
+  @Option(secure=true, name="predmap.stableKeys",
+      description="Write the keys of function- and location-specific predicates "
+          + "independently of the CFA node numbering, together with a structural hash "
+          + "of every function. Such a predicate map can be used as initial predicates "
+          + "for a changed version of the program: the predicates of unchanged functions "
+          + "are reused, and those of changed functions and their callers are ignored.")
+  private boolean stableKeys = false;
+
   private final FormulaManagerView fmgr;
 
+  // only present if stable keys are written
+  private final @Nullable FunctionStructures functionStructures;
+
   public PredicateMapWriter(Configuration config, FormulaManagerView pFmgr) throws InvalidConfigurationException {
+    this(config, pFmgr, null);
+  }
+
+  /**
+   * Create a writer that writes stable keys if configured.
+   * This needs the CFA of the program, if it is null, stable keys are never written.
+   */
+  public PredicateMapWriter(Configuration config, FormulaManagerView pFmgr, @Nullable CFA pCfa)
+      throws InvalidConfigurationException {
     config.inject(this);
     fmgr = pFmgr;
+    functionStructures = (stableKeys && pCfa != null) ? new FunctionStructures(pCfa) : null;
   }
 
   public void writePredicateMap(
@@ -103,6 +129,11 @@ public class PredicateMapWriter {
 
     writeSetOfPredicates(sb, "*", globalPredicates, predToString);
 
+    if (functionStructures != null) {
+      writeWithStableKeys(locationInstancePredicates, localPredicates, functionPredicates, predToString, sb);
+      return;
+    }
+
     for (Entry<String, Collection<AbstractionPredicate>> e : functionPredicates.asMap().entrySet()) {
       writeSetOfPredicates(sb, e.getKey(), e.getValue(), predToString);
     }
@@ -120,6 +151,58 @@ public class PredicateMapWriter {
     }
   }
 
+  /**
+   * Write the function- and location-specific predicates with keys of the form
+   * "<FUNC> #<HASH>", "<FUNC> #<HASH> L<NUM>", and "<FUNC> #<HASH> L<NUM>@<INSTANCE>",
+   * where <NUM> is the number of the location within its function
+   * (see {@link FunctionStructures}).
+   * There is a (potentially empty) section for every function,
+   * such that the reader knows the hashes of all functions.
+   */
+  private void writeWithStableKeys(
+      SetMultimap<Pair<CFANode, Integer>, AbstractionPredicate> locationInstancePredicates,
+      SetMultimap<CFANode, AbstractionPredicate> localPredicates,
+      SetMultimap<String, AbstractionPredicate> functionPredicates,
+      Map<AbstractionPredicate, String> predToString,
+      Appendable sb) throws IOException {
+
+    for (Entry<String, String> function : ImmutableSortedMap.copyOf(functionStructures.getHashes()).entrySet()) {
+      String key = function.getKey() + " #" + function.getValue();
+      sb.append(key);
+      sb.append(":\n");
+      for (AbstractionPredicate pred : functionPredicates.get(function.getKey())) {
+        sb.append(checkNotNull(predToString.get(pred)));
+        sb.append('\n');
+      }
+      sb.append('\n');
+    }
+
+    for (Entry<CFANode, Collection<AbstractionPredicate>> e : localPredicates.asMap().entrySet()) {
+      String key = getStableKey(e.getKey());
+      if (key != null) {
+        writeSetOfPredicates(sb, key, e.getValue(), predToString);
+      }
+    }
+
+    for (Entry<Pair<CFANode, Integer>, Collection<AbstractionPredicate>> e : locationInstancePredicates.asMap().entrySet()) {
+      String key = getStableKey(e.getKey().getFirst());
+      if (key != null) {
+        writeSetOfPredicates(sb, key + "@" + e.getKey().getSecond(), e.getValue(), predToString);
+      }
+    }
+  }
+
+  private @Nullable String getStableKey(CFANode pNode) {
+    String function = pNode.getFunctionName();
+    Integer number = functionStructures.getLocalNumber(pNode);
+    String hash = functionStructures.getHashes().get(function);
+    if (number == null || hash == null) {
+      // node is not reachable within its function, its predicates are useless
+      return null;
+    }
+    return function + " #" + hash + " L" + number;
+  }
+
   private void writeSetOfPredicates(Appendable sb, String key,
       Collection<AbstractionPredicate> predicates,
       Map<AbstractionPredicate, String> predToString) throws IOException {
@@ -33,6 +33,7 @@ import org.sosy_lab.common.collect.PersistentMap;
 import org.sosy_lab.cpachecker.core.defaults.LatticeAbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractQueryableState;
 import org.sosy_lab.cpachecker.core.interfaces.Graphable;
+import org.sosy_lab.cpachecker.core.interfaces.InternableAbstractState;
 import org.sosy_lab.cpachecker.exceptions.InvalidQueryException;
 import org.sosy_lab.cpachecker.util.CheckTypesOfStringsUtil;
 
@@ -41,7 +42,8 @@ import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableMap;
 
 
-public class SignState implements Serializable, LatticeAbstractState<SignState>, AbstractQueryableState, Graphable {
+public class SignState implements Serializable, LatticeAbstractState<SignState>, AbstractQueryableState, Graphable,
+    InternableAbstractState {
 
   private static final long serialVersionUID = -2507059869178203119L;
 
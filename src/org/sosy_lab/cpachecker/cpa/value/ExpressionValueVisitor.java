@@ -23,9 +23,7 @@
  */
 package org.sosy_lab.cpachecker.cpa.value;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.sosy_lab.common.log.LogManagerWithoutDuplicates;
 import org.sosy_lab.cpachecker.cfa.ast.AIdExpression;
@@ -53,6 +51,9 @@ import org.sosy_lab.cpachecker.cpa.value.type.SymbolicValueFormula;
 import org.sosy_lab.cpachecker.cpa.value.type.Value;
 import org.sosy_lab.cpachecker.exceptions.UnrecognizedCCodeException;
 
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.Multiset;
+
 
 /**
  * This Visitor returns the value from an expression.
@@ -96,22 +97,17 @@ public class ExpressionValueVisitor extends AbstractExpressionValueVisitor {
   }
 
   /** Heuristic to avoid generating too many symbolic values for the same file location. */
-  private static Map<FileLocation, Integer> numberOfSymbolsGenerated = new HashMap<>();
+  private static final Multiset<FileLocation> numberOfSymbolsGenerated = ConcurrentHashMultiset.create();
   private static final int MAX_NUMBER_OF_SYMBOLS_GENERATED = 200;
 
   @Override
   public Value visit(CFunctionCallExpression pIastFunctionCallExpression) throws UnrecognizedCCodeException {
     if (symbolicValues) {
       // Only generate a symbolic value if we haven't already generated many symbolic
-      // values for this location.
+      // values for this location. The counter is shared with the threads of the refinement.
       FileLocation key = pIastFunctionCallExpression.getFileLocation();
-      int generatedSymbols = 0;
-      if (numberOfSymbolsGenerated.containsKey(key)) {
-        generatedSymbols = numberOfSymbolsGenerated.get(key);
-      }
-
-      if (generatedSymbols < MAX_NUMBER_OF_SYMBOLS_GENERATED) {
-        numberOfSymbolsGenerated.put(key,  generatedSymbols + 1);
+      if (numberOfSymbolsGenerated.count(key) < MAX_NUMBER_OF_SYMBOLS_GENERATED
+          && numberOfSymbolsGenerated.add(key, 1) < MAX_NUMBER_OF_SYMBOLS_GENERATED) {
        return new SymbolicValueFormula(
            new SymbolicValueFormula.SymbolicValue(pIastFunctionCallExpression.toASTString()));
       }
@@ -40,12 +40,14 @@ import org.sosy_lab.cpachecker.cfa.types.Type;
 import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
 import org.sosy_lab.cpachecker.core.defaults.LatticeAbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractQueryableState;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractStateWithCoverageSummary;
 import org.sosy_lab.cpachecker.core.interfaces.FormulaReportingState;
 import org.sosy_lab.cpachecker.core.interfaces.Graphable;
 import org.sosy_lab.cpachecker.cpa.value.refiner.ValueAnalysisInterpolant;
 import org.sosy_lab.cpachecker.cpa.value.type.NumericValue;
 import org.sosy_lab.cpachecker.cpa.value.type.Value;
 import org.sosy_lab.cpachecker.exceptions.InvalidQueryException;
+import org.sosy_lab.cpachecker.util.CoverageSummaries;
 import org.sosy_lab.cpachecker.util.VariableClassificationBuilder;
 import org.sosy_lab.cpachecker.util.predicates.interfaces.BooleanFormula;
 import org.sosy_lab.cpachecker.util.predicates.interfaces.BooleanFormulaManager;
@@ -60,16 +62,18 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
 import com.google.common.primitives.Longs;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 public class ValueAnalysisState implements AbstractQueryableState, FormulaReportingState, Serializable, Graphable,
-    LatticeAbstractState<ValueAnalysisState> {
+    LatticeAbstractState<ValueAnalysisState>, AbstractStateWithCoverageSummary {
 
   private static final long serialVersionUID = -3152134511524554357L;
 
-  private static final Set<MemoryLocation> blacklist = new HashSet<>();
+  // written by the transfer relation, which may run in several threads during refinement
+  private static final Set<MemoryLocation> blacklist = Sets.newConcurrentHashSet();
 
   static void addToBlacklist(MemoryLocation var) {
     blacklist.add(checkNotNull(var));
@@ -84,6 +88,13 @@ public class ValueAnalysisState implements AbstractQueryableState, FormulaReport
       justification="After de-serializing, we only read values from this class, and we don't need types for this.")
   private transient PersistentMap<MemoryLocation, Type> memLocToType = PathCopyingPersistentTreeMap.of();
 
+  /**
+   * the coverage summary and the map for which it was computed,
+   * the summary is recomputed whenever the map was replaced
+   */
+  private transient PersistentMap<MemoryLocation, Value> coverageSummaryMap = null;
+  private transient long coverageSummary = 0;
+
   public ValueAnalysisState() {
     constantsMap = PathCopyingPersistentTreeMap.of();
   }
@@ -292,6 +303,25 @@ public class ValueAnalysisState implements AbstractQueryableState, FormulaReport
     }
   }
 
+  /**
+   * The summary contains one bit for each pair of memory location and value,
+   * so a state can only be covered by states whose assignments are a subset
+   * of its own assignments.
+   */
+  @Override
+  public long getCoverageSummary() {
+    PersistentMap<MemoryLocation, Value> currentMap = constantsMap;
+    if (coverageSummaryMap != currentMap) {
+      long summary = 0;
+      for (Map.Entry<MemoryLocation, Value> entry : currentMap.entrySet()) {
+        summary |= CoverageSummaries.bitFor(entry);
+      }
+      coverageSummary = summary;
+      coverageSummaryMap = currentMap;
+    }
+    return coverageSummary;
+  }
+
   /**
    * This method decides if this element is less or equal than the other element, based on the order imposed by the lattice.
    *
@@ -0,0 +1,82 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.value;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState.MemoryLocation;
+import org.sosy_lab.cpachecker.cpa.value.type.NumericValue;
+import org.sosy_lab.cpachecker.util.CoverageSummaries;
+
+public class ValueAnalysisStateCoverageSummaryTest {
+
+  private static final MemoryLocation X = MemoryLocation.valueOf("main::x");
+  private static final MemoryLocation Y = MemoryLocation.valueOf("main::y");
+
+  private static boolean mayBeCoveredBy(ValueAnalysisState covered, ValueAnalysisState covering) {
+    return CoverageSummaries.mayBeCoveredBy(covered.getCoverageSummary(), covering.getCoverageSummary());
+  }
+
+  @Test
+  public void testSummaryAllowsCoverage() {
+    ValueAnalysisState covering = new ValueAnalysisState();
+    covering.assignConstant(X, new NumericValue(1), CNumericTypes.INT);
+
+    ValueAnalysisState covered = ValueAnalysisState.copyOf(covering);
+    covered.assignConstant(Y, new NumericValue(2), CNumericTypes.INT);
+
+    assertThat(covered.isLessOrEqual(covering)).isTrue();
+    assertThat(mayBeCoveredBy(covered, covering)).isTrue();
+    assertThat(mayBeCoveredBy(covered, new ValueAnalysisState())).isTrue();
+  }
+
+  @Test
+  public void testSummaryIsUpdatedAfterModification() {
+    ValueAnalysisState state = new ValueAnalysisState();
+    long emptySummary = state.getCoverageSummary();
+    assertThat(emptySummary).isEqualTo(0L);
+
+    state.assignConstant(X, new NumericValue(1), CNumericTypes.INT);
+    assertThat(state.getCoverageSummary()).isNotEqualTo(emptySummary);
+
+    state.forget(X);
+    assertThat(state.getCoverageSummary()).isEqualTo(emptySummary);
+  }
+
+  @Test
+  public void testSummaryNeverContradictsLessOrEqual() {
+    for (int i = 0; i < 64; i++) {
+      ValueAnalysisState state1 = new ValueAnalysisState();
+      state1.assignConstant(X, new NumericValue(i), CNumericTypes.INT);
+      ValueAnalysisState state2 = new ValueAnalysisState();
+      state2.assignConstant(X, new NumericValue(i % 3), CNumericTypes.INT);
+
+      if (state1.isLessOrEqual(state2)) {
+        assertThat(mayBeCoveredBy(state1, state2)).isTrue();
+      }
+    }
+  }
+}
@@ -36,10 +36,19 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
+import org.sosy_lab.common.concurrency.Threads;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -51,8 +60,8 @@ import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.ShutdownNotifier;
 import org.sosy_lab.cpachecker.core.defaults.VariableTrackingPrecision;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
+import org.sosy_lab.cpachecker.core.interfaces.GlobalRefiner;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
-import org.sosy_lab.cpachecker.core.interfaces.Refiner;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
@@ -72,11 +81,12 @@ import org.sosy_lab.cpachecker.util.Precisions;
 
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
 
 @Options(prefix="cpa.value.refinement")
-public class ValueAnalysisRefiner implements Refiner, StatisticsProvider {
+public class ValueAnalysisRefiner implements GlobalRefiner, StatisticsProvider {
 
   @Option(secure=true, description="whether or not to do lazy-abstraction", name="restart", toUppercase = true)
   private RestartStrategy restartStrategy = RestartStrategy.BOTTOM;
@@ -95,10 +105,22 @@ public class ValueAnalysisRefiner implements Refiner, StatisticsProvider {
   @FileOption(FileOption.Type.OUTPUT_FILE)
   private PathTemplate interpolationTreeExportFile = PathTemplate.ofFormatString("interpolationTree.%d-%d.dot");
 
+  @Option(secure=true, description="number of threads for checking the feasibility of the error paths "
+      + "and, with the bottom-up interpolation strategy, for interpolating them. "
+      + "Each thread uses its own feasibility checker and interpolator. "
+      + "This only helps if there are several target states per refinement, "
+      + "cf. cegar.globalRefinement and cegar.counterexamplesPerRefinement.")
+  @IntegerOption(min=1)
+  private int threads = 1;
+
   private ValueAnalysisPathInterpolator pathInterpolator;
 
   private ValueAnalysisFeasibilityChecker checker;
 
+  // one checker and interpolator per thread, the first ones are the fields above
+  private final List<ValueAnalysisFeasibilityChecker> checkers = new ArrayList<>(1);
+  private final List<ValueAnalysisPathInterpolator> pathInterpolators = new ArrayList<>(1);
+
   private final LogManager logger;
 
   private int previousErrorPathId = -1;
@@ -141,6 +163,13 @@ public class ValueAnalysisRefiner implements Refiner, StatisticsProvider {
     logger = pLogger;
     pathInterpolator = new ValueAnalysisPathInterpolator(pConfig, pLogger, pShutdownNotifier, pCfa);
     checker = new ValueAnalysisFeasibilityChecker(pLogger, pCfa, pConfig);
+
+    checkers.add(checker);
+    pathInterpolators.add(pathInterpolator);
+    for (int i = 1; i < threads; i++) {
+      checkers.add(new ValueAnalysisFeasibilityChecker(pLogger, pCfa, pConfig));
+      pathInterpolators.add(new ValueAnalysisPathInterpolator(pConfig, pLogger, pShutdownNotifier, pCfa));
+    }
   }
 
   private boolean madeProgress(ARGPath path) {
@@ -215,6 +244,11 @@ public class ValueAnalysisRefiner implements Refiner, StatisticsProvider {
       InterruptedException {
     ValueAnalysisInterpolationTree interpolationTree = new ValueAnalysisInterpolationTree(logger, targets, useTopDownInterpolationStrategy);
 
+    if (threads > 1 && !useTopDownInterpolationStrategy) {
+      // with the bottom-up strategy, the paths are independent of each other
+      performPathInterpolationInParallel(interpolationTree);
+    }
+
     while (interpolationTree.hasNextPathForInterpolation()) {
       performPathInterpolation(interpolationTree);
     }
@@ -253,6 +287,41 @@ public class ValueAnalysisRefiner implements Refiner, StatisticsProvider {
     }
   }
 
+  /**
+   * Interpolate all remaining paths of the tree in parallel.
+   * The interpolants are added to the tree in the same order
+   * as with {@link #performPathInterpolation(ValueAnalysisInterpolationTree)},
+   * so the result is the same.
+   */
+  private void performPathInterpolationInParallel(ValueAnalysisInterpolationTree interpolationTree)
+      throws CPAException, InterruptedException {
+    List<ARGPath> errorPaths = new ArrayList<>();
+    final List<ValueAnalysisInterpolant> initialItps = new ArrayList<>();
+    while (interpolationTree.hasNextPathForInterpolation()) {
+      ARGPath errorPath = interpolationTree.getNextPathForInterpolation();
+      assert errorPath != null && errorPath.getFirstState() == interpolationTree.getRoot();
+      errorPaths.add(errorPath);
+      initialItps.add(interpolationTree.getInitialInterpolantForPath(errorPath));
+    }
+
+    List<Map<ARGState, ValueAnalysisInterpolant>> interpolants = runInParallel(errorPaths,
+        new Task<ARGPath, Map<ARGState, ValueAnalysisInterpolant>>() {
+          @Override
+          public Map<ARGState, ValueAnalysisInterpolant> apply(int pWorker, int pIndex, ARGPath pErrorPath)
+              throws CPAException, InterruptedException {
+            return pathInterpolators.get(pWorker).performInterpolation(pErrorPath, initialItps.get(pIndex));
+          }
+        });
+
+    for (Map<ARGState, ValueAnalysisInterpolant> pathInterpolants : interpolants) {
+      interpolationTree.addInterpolants(pathInterpolants);
+
+      if (interpolationTreeExportFile != null && exportInterpolationTree.equals("ALWAYS")) {
+        interpolationTree.exportToDot(interpolationTreeExportFile, refinementCounter);
+      }
+    }
+  }
+
   private boolean isInitialInterpolantTooWeak(ARGState root, ValueAnalysisInterpolant initialItp, ARGPath errorPath)
       throws CPAException, InterruptedException {
 
@@ -331,12 +400,21 @@ public class ValueAnalysisRefiner implements Refiner, StatisticsProvider {
     return subgraph;
   }
 
-  private boolean isAnyPathFeasible(final ARGReachedSet pReached, final Collection<ARGPath> errorPaths)
+  private boolean isAnyPathFeasible(final ARGReachedSet pReached, final List<ARGPath> errorPaths)
       throws CPAException, InterruptedException {
 
+    List<Boolean> feasibility = runInParallel(errorPaths, new Task<ARGPath, Boolean>() {
+      @Override
+      public Boolean apply(int pWorker, int pIndex, ARGPath pErrorPath)
+          throws CPAException, InterruptedException {
+        return isErrorPathFeasible(checkers.get(pWorker), pErrorPath);
+      }
+    });
+
     ARGPath feasiblePath = null;
-    for (ARGPath currentPath : errorPaths) {
-      if (isErrorPathFeasible(currentPath)) {
+    for (int i = 0; i < errorPaths.size(); i++) {
+      ARGPath currentPath = errorPaths.get(i);
+      if (feasibility.get(i)) {
         feasiblePath = currentPath;
 
         feasibleTargets.add(currentPath.getLastState());
@@ -356,9 +434,9 @@ public class ValueAnalysisRefiner implements Refiner, StatisticsProvider {
     return false;
   }
 
-  private boolean isErrorPathFeasible(final ARGPath errorPath)
+  private boolean isErrorPathFeasible(final ValueAnalysisFeasibilityChecker pChecker, final ARGPath errorPath)
       throws CPAException, InterruptedException {
-    if (checker.isFeasible(errorPath)) {
+    if (pChecker.isFeasible(errorPath)) {
       logger.log(Level.FINEST, "found a feasible cex - returning from refinement");
 
       return true;
@@ -367,6 +445,65 @@ public class ValueAnalysisRefiner implements Refiner, StatisticsProvider {
     return false;
   }
 
+  private static interface Task<I, O> {
+    O apply(int pWorker, int pIndex, I pInput) throws CPAException, InterruptedException;
+  }
+
+  /**
+   * Apply a task to all inputs, distributing them round-robin over {@link #threads} workers.
+   * Each worker calls the task with its own index,
+   * such that the task can use the checker and interpolator of this worker.
+   *
+   * @return the results in the order of the inputs
+   */
+  private <I, O> List<O> runInParallel(final List<I> pInputs, final Task<I, O> pTask)
+      throws CPAException, InterruptedException {
+    final int workers = Math.min(threads, pInputs.size());
+    List<O> results = new ArrayList<>(Collections.<O>nCopies(pInputs.size(), null));
+
+    if (workers <= 1) {
+      for (int i = 0; i < pInputs.size(); i++) {
+        results.set(i, pTask.apply(0, i, pInputs.get(i)));
+      }
+      return results;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(workers,
+        Threads.threadFactoryBuilder().setNameFormat("ValueAnalysisRefiner-%d").setDaemon(true).build());
+
+    List<Future<Map<Integer, O>>> futures = new ArrayList<>(workers);
+    try {
+      for (int w = 0; w < workers; w++) {
+        final int worker = w;
+        futures.add(executor.submit(new Callable<Map<Integer, O>>() {
+          @Override
+          public Map<Integer, O> call() throws CPAException, InterruptedException {
+            Map<Integer, O> workerResults = new HashMap<>();
+            for (int i = worker; i < pInputs.size(); i += workers) {
+              workerResults.put(i, pTask.apply(worker, i, pInputs.get(i)));
+            }
+            return workerResults;
+          }
+        }));
+      }
+
+      for (Future<Map<Integer, O>> future : futures) {
+        for (Map.Entry<Integer, O> result : future.get().entrySet()) {
+          results.set(result.getKey(), result.getValue());
+        }
+      }
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      Throwables.propagateIfPossible(cause, CPAException.class, InterruptedException.class);
+      throw new UnexpectedCheckedException("parallel refinement", cause);
+    } finally {
+      // the checkers and interpolators of the workers are used again by the next refinement
+      executor.shutdownNow();
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+    return results;
+  }
+
   /**
    * This method returns the list of paths to the target states, sorted by the
    * length of the paths, in ascending order.
@@ -443,6 +580,10 @@ public class ValueAnalysisRefiner implements Refiner, StatisticsProvider {
       out.println("Time for completing refinement:       " + totalTime);
 
       pathInterpolator.printStatistics(out, pResult, pReached);
+      for (int i = 1; i < pathInterpolators.size(); i++) {
+        out.println("Interpolation in thread " + i + ":");
+        pathInterpolators.get(i).printStatistics(out, pResult, pReached);
+      }
     }
   }
 
@@ -33,6 +33,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.sosy_lab.common.Pair;
 import org.sosy_lab.common.Triple;
@@ -66,7 +67,7 @@ public class ErrorPathClassifier {
   private static final String PREFIX_REPLACEMENT = ErrorPathClassifier.class.getSimpleName()  + " replaced this assume edge in prefix";
   private static final String SUFFIX_REPLACEMENT = ErrorPathClassifier.class.getSimpleName()  + " replaced this assume edge in suffix";
 
-  private static int invocationCounter = 0;
+  private static final AtomicInteger invocationCounter = new AtomicInteger();
 
   private final Optional<VariableClassification> classification;
   private final Optional<LoopStructure> loopStructure;
@@ -426,7 +427,7 @@ public class ErrorPathClassifier {
     result.append("}");
 
     try {
-      Files.writeFile(Paths.get("output/itpPaths" + (invocationCounter++) + ".dot"), result.toString());
+      Files.writeFile(Paths.get("output/itpPaths" + invocationCounter.getAndIncrement() + ".dot"), result.toString());
     } catch (IOException e) {
       throw new IllegalArgumentException();
     }
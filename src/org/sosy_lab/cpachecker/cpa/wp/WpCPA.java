@@ -131,7 +131,7 @@ public class WpCPA implements ConfigurableProgramAnalysis, StatisticsProvider, A
     //    Evaluate the applicability of them.
 
     abstractionManager = new AbstractionManager(regionManager, formulaManager, config, logger);
-    predicateManager = new PredicateAbstractionManager(abstractionManager, formulaManager, pathFormulaManager, solver, config, logger);
+    predicateManager = new PredicateAbstractionManager(abstractionManager, formulaManager, pathFormulaManager, solver, config, logger, pShutdownNotifier);
 
 
     //
@@ -206,6 +206,7 @@ public class WpCPA implements ConfigurableProgramAnalysis, StatisticsProvider, A
 
   @Override
   public void close() throws Exception {
+    predicateManager.close();
     formulaManager.close();
   }
 
@@ -0,0 +1,55 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util;
+
+import org.sosy_lab.cpachecker.core.interfaces.AbstractStateWithCoverageSummary;
+
+/**
+ * Helper methods for implementing and using {@link AbstractStateWithCoverageSummary}.
+ */
+public final class CoverageSummaries {
+
+  private CoverageSummaries() { }
+
+  /**
+   * Get the summary bit for an arbitrary object that is part of
+   * an abstract state (e.g., a tracked variable or a pair of variable and value).
+   * The bit is derived from the hash code of the object.
+   */
+  public static long bitFor(Object pObject) {
+    // spread the hash code and take the highest 6 bits as the bit index
+    int index = (int)((pObject.hashCode() * 0x9E3779B97F4A7C15L) >>> 58);
+    return 1L << index;
+  }
+
+  /**
+   * Check whether a state with the summary <code>covered</code> may be covered
+   * by a state with the summary <code>covering</code>.
+   * If this method returns false, the first state is definitely not
+   * less or equal than the second state.
+   */
+  public static boolean mayBeCoveredBy(long covered, long covering) {
+    return (covering & ~covered) == 0;
+  }
+}
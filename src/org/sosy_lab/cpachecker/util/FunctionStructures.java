@@ -0,0 +1,187 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdgeType;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.SetMultimap;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Structural information about the functions of a CFA that stays stable
+ * between different versions of a program:
+ * a hash of the structure of each function
+ * (its edges and their code, but not line numbers or CFA node numbers),
+ * a numbering of the nodes of each function that does not depend on the
+ * global node numbering, and the call graph.
+ *
+ * If the hash of a function is the same in two versions of a program,
+ * the local node numbers of both versions identify corresponding nodes.
+ */
+public class FunctionStructures {
+
+  private final ImmutableMap<String, String> hashes;
+  private final ImmutableMap<String, ImmutableList<CFANode>> nodes;
+  private final ImmutableMap<CFANode, Integer> localNumbers;
+
+  // callee -> callers
+  private final SetMultimap<String, String> callers = HashMultimap.create();
+
+  public FunctionStructures(CFA pCfa) {
+    ImmutableMap.Builder<String, String> hashBuilder = ImmutableMap.builder();
+    ImmutableMap.Builder<String, ImmutableList<CFANode>> nodesBuilder = ImmutableMap.builder();
+    ImmutableMap.Builder<CFANode, Integer> numberBuilder = ImmutableMap.builder();
+
+    for (Map.Entry<String, FunctionEntryNode> function : pCfa.getAllFunctions().entrySet()) {
+      Hasher hasher = Hashing.sha256().newHasher();
+      List<CFANode> functionNodes = traverse(function.getKey(), function.getValue(), hasher);
+      hashBuilder.put(function.getKey(), hasher.hash().toString());
+      nodesBuilder.put(function.getKey(), ImmutableList.copyOf(functionNodes));
+      for (int i = 0; i < functionNodes.size(); i++) {
+        numberBuilder.put(functionNodes.get(i), i);
+      }
+    }
+
+    hashes = hashBuilder.build();
+    nodes = nodesBuilder.build();
+    localNumbers = numberBuilder.build();
+  }
+
+  /**
+   * Visits all nodes of a function in a deterministic depth-first order
+   * (following the leaving edges in their order, and summary edges instead
+   * of function calls), and feeds the structure into the hasher.
+   *
+   * @return the nodes of the function in the order of their local numbers
+   */
+  private List<CFANode> traverse(String pFunction, FunctionEntryNode pEntry, Hasher pHasher) {
+    List<CFANode> order = new ArrayList<>();
+    Map<CFANode, Integer> numbers = new HashMap<>();
+    Deque<CFANode> waitlist = new ArrayDeque<>();
+    numbers.put(pEntry, 0);
+    order.add(pEntry);
+    waitlist.push(pEntry);
+
+    while (!waitlist.isEmpty()) {
+      CFANode node = waitlist.pop();
+      update(pHasher, "N" + numbers.get(node) + (node.isLoopStart() ? "L" : ""));
+
+      for (CFAEdge edge : CFAUtils.allLeavingEdges(node)) {
+        if (edge.getEdgeType() == CFAEdgeType.FunctionReturnEdge) {
+          continue; // leaves the function
+        }
+        update(pHasher, edge.getEdgeType() + ":" + edge.getCode());
+
+        if (edge.getEdgeType() == CFAEdgeType.FunctionCallEdge) {
+          // the call is followed through the summary edge
+          String callee = edge.getSuccessor().getFunctionName();
+          callers.put(callee, pFunction);
+          update(pHasher, "->" + callee);
+          continue;
+        }
+
+        CFANode successor = edge.getSuccessor();
+        Integer number = numbers.get(successor);
+        if (number == null) {
+          number = order.size();
+          numbers.put(successor, number);
+          order.add(successor);
+          waitlist.push(successor);
+        }
+        update(pHasher, "->" + number);
+      }
+    }
+    return order;
+  }
+
+  private static void update(Hasher pHasher, String pText) {
+    pHasher.putString(pText, StandardCharsets.UTF_8).putByte((byte)0);
+  }
+
+  /**
+   * Returns the structural hash of all functions, indexed by function name.
+   */
+  public ImmutableMap<String, String> getHashes() {
+    return hashes;
+  }
+
+  /**
+   * Returns the number of a node within its function,
+   * or null if the node is not reachable from the function entry.
+   */
+  public @Nullable Integer getLocalNumber(CFANode pNode) {
+    return localNumbers.get(pNode);
+  }
+
+  /**
+   * Returns the node of a function with the given local number,
+   * or null if there is no such node.
+   */
+  public @Nullable CFANode getNode(String pFunction, int pLocalNumber) {
+    ImmutableList<CFANode> functionNodes = nodes.get(pFunction);
+    if (functionNodes == null || pLocalNumber < 0 || pLocalNumber >= functionNodes.size()) {
+      return null;
+    }
+    return functionNodes.get(pLocalNumber);
+  }
+
+  /**
+   * Returns the given functions together with all functions that call one
+   * of them, directly or transitively.
+   */
+  public ImmutableSet<String> withTransitiveCallers(Collection<String> pFunctions) {
+    Set<String> result = new HashSet<>(pFunctions);
+    Deque<String> waitlist = new ArrayDeque<>(pFunctions);
+    while (!waitlist.isEmpty()) {
+      for (String caller : callers.get(waitlist.pop())) {
+        if (result.add(caller)) {
+          waitlist.push(caller);
+        }
+      }
+    }
+    return ImmutableSet.copyOf(result);
+  }
+}
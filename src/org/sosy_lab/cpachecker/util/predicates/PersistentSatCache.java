@@ -0,0 +1,179 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.toPercent;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.logging.Level;
+
+import javax.annotation.Nullable;
+
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.Timer;
+import org.sosy_lab.cpachecker.util.predicates.interfaces.BooleanFormula;
+import org.sosy_lab.cpachecker.util.predicates.interfaces.view.FormulaManagerView;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * A cache for results of satisfiability checks that is stored on disk,
+ * such that it can be shared between runs of CPAchecker.
+ *
+ * The key of an entry is the SHA-256 hash of the solver version and
+ * the SMT-LIB2 representation of the formula.
+ * Each entry is a file in the cache directory named after its key
+ * (distributed over 256 sub-directories) that contains "sat" or "unsat".
+ * Entries are written to a temporary file first and then atomically renamed,
+ * so several processes can read and write the same cache concurrently
+ * and never see incomplete entries.
+ * If the same entry is written concurrently, the content is the same anyway.
+ *
+ * Computing the key is relatively expensive (the formula needs to be dumped),
+ * so callers get the key with {@link #getKey(BooleanFormula)} once
+ * and use it for both the lookup and the store.
+ */
+public class PersistentSatCache {
+
+  private static final String SAT = "sat";
+  private static final String UNSAT = "unsat";
+
+  private final Path directory;
+  private final String solverVersion;
+  private final FormulaManagerView fmgr;
+  private final LogManager logger;
+
+  private boolean writeFailed = false;
+
+  // statistics
+  private int lookups = 0;
+  private int hits = 0;
+  private int stores = 0;
+  private final Timer cacheTime = new Timer();
+
+  public PersistentSatCache(Path pDirectory, FormulaManagerView pFmgr, LogManager pLogger) {
+    directory = checkNotNull(pDirectory);
+    fmgr = pFmgr;
+    solverVersion = pFmgr.getVersion();
+    logger = pLogger;
+  }
+
+  /**
+   * Get the key of a formula for {@link #lookup(String)} and {@link #store(String, boolean)}.
+   */
+  public String getKey(BooleanFormula f) {
+    cacheTime.start();
+    try {
+      return Hashing.sha256().newHasher()
+          .putString(solverVersion, StandardCharsets.UTF_8)
+          .putByte((byte)0)
+          .putString(fmgr.dumpFormula(f).toString(), StandardCharsets.UTF_8)
+          .hash().toString();
+    } finally {
+      cacheTime.stop();
+    }
+  }
+
+  /**
+   * Look up the result of a satisfiability check.
+   * @param key The key of the formula as returned by {@link #getKey(BooleanFormula)}.
+   * @return true if the formula is known to be unsatisfiable,
+   * false if it is known to be satisfiable, and null if it is not in the cache.
+   */
+  public @Nullable Boolean lookup(String key) {
+    lookups++;
+    cacheTime.start();
+    try {
+      String content;
+      try {
+        content = new String(Files.readAllBytes(getFile(key)), StandardCharsets.US_ASCII);
+      } catch (NoSuchFileException e) {
+        return null;
+      } catch (IOException e) {
+        logger.logDebugException(e, "Could not read from persistent sat cache");
+        return null;
+      }
+
+      switch (content) {
+      case UNSAT:
+        hits++;
+        return true;
+      case SAT:
+        hits++;
+        return false;
+      default:
+        logger.log(Level.FINE, "Ignoring invalid entry in persistent sat cache:", getFile(key));
+        return null;
+      }
+    } finally {
+      cacheTime.stop();
+    }
+  }
+
+  /**
+   * Store the result of a satisfiability check.
+   * @param key The key of the formula as returned by {@link #getKey(BooleanFormula)}.
+   */
+  public void store(String key, boolean unsat) {
+    if (writeFailed) {
+      return;
+    }
+    cacheTime.start();
+    try {
+      Path file = getFile(key);
+      Files.createDirectories(file.getParent());
+      Path tmpFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+      try {
+        Files.write(tmpFile, (unsat ? UNSAT : SAT).getBytes(StandardCharsets.US_ASCII));
+        Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(tmpFile);
+      }
+      stores++;
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Could not write to persistent sat cache, it will not be updated");
+      writeFailed = true;
+    } finally {
+      cacheTime.stop();
+    }
+  }
+
+  private Path getFile(String key) {
+    return directory.resolve(key.substring(0, 2)).resolve(key.substring(2));
+  }
+
+  public void printStatistics(PrintStream out) {
+    out.println("  persistent cache lookups:        " + lookups);
+    out.println("  persistent cache hits:           " + hits + " (" + toPercent(hits, lookups) + ")");
+    out.println("  persistent cache stores:         " + stores);
+    out.println("  time for persistent cache:       " + cacheTime);
+  }
+}
@@ -23,12 +23,17 @@
  */
 package org.sosy_lab.cpachecker.util.predicates;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import javax.annotation.Nullable;
+
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.io.Path;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.common.time.Timer;
 import org.sosy_lab.cpachecker.core.ShutdownNotifier;
@@ -45,9 +50,12 @@ import org.sosy_lab.cpachecker.util.predicates.interpolation.SeparateInterpolati
 import org.sosy_lab.cpachecker.util.predicates.logging.LoggingInterpolatingProverEnvironment;
 import org.sosy_lab.cpachecker.util.predicates.logging.LoggingOptEnvironment;
 import org.sosy_lab.cpachecker.util.predicates.logging.LoggingProverEnvironment;
+import org.sosy_lab.cpachecker.util.predicates.logging.RecordingProverEnvironment;
+import org.sosy_lab.cpachecker.util.resources.CacheEvictionRegistry;
+import org.sosy_lab.cpachecker.util.resources.CacheEvictionRegistry.CacheHandle;
+import org.sosy_lab.cpachecker.util.statistics.EventRecorder;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.Maps;
 
 /**
  * Encapsulation of an SMT solver.
@@ -67,13 +75,24 @@ public final class Solver {
       description="log some solver actions, this may be slow!")
   private boolean useLogger = false;
 
+  @Option(name="solver.persistentCache",
+      description="Directory for a cache of results of satisfiability checks "
+          + "that is kept between runs and can be shared by several concurrent runs. "
+          + "Results are only reused for the same solver version.")
+  @FileOption(FileOption.Type.OPTIONAL_INPUT_FILE)
+  private @Nullable Path persistentCacheDirectory = null;
+
   private final FormulaManagerView fmgr;
   private final BooleanFormulaManagerView bfmgr;
 
   private final FormulaManager solvingFormulaManager;
   private final FormulaManager interpolationFormulaManager;
 
-  private final Map<BooleanFormula, Boolean> unsatCache = Maps.newHashMap();
+  // in access order, such that the least recently used entries can be evicted
+  private final Map<BooleanFormula, Boolean> unsatCache = new LinkedHashMap<>(16, 0.75f, true);
+  private final CacheHandle unsatCacheHandle = CacheEvictionRegistry.register("Solver.unsatCache");
+
+  private final @Nullable PersistentSatCache persistentCache;
 
   private final LogManager logger;
 
@@ -96,6 +115,12 @@ public final class Solver {
     logger = pLogger;
     solvingFormulaManager = pFactory.getFormulaManager();
     interpolationFormulaManager = pFactory.getFormulaManagerForInterpolation();
+
+    if (persistentCacheDirectory != null) {
+      persistentCache = new PersistentSatCache(persistentCacheDirectory.toFile().toPath(), fmgr, logger);
+    } else {
+      persistentCache = null;
+    }
   }
 
   /**
@@ -116,6 +141,14 @@ public final class Solver {
     return fmgr;
   }
 
+  /**
+   * Return the cache of results of satisfiability checks that is kept between runs,
+   * or null if it is disabled.
+   */
+  public @Nullable PersistentSatCache getPersistentCache() {
+    return persistentCache;
+  }
+
   /**
    * Direct reference to the underlying SMT solver for more complicated queries.
    * This creates a fresh, new, environment in the solver.
@@ -153,6 +186,10 @@ public final class Solver {
   private ProverEnvironment newProverEnvironment(boolean generateModels, boolean generateUnsatCore) {
     ProverEnvironment pe = solvingFormulaManager.newProverEnvironment(generateModels, generateUnsatCore);
 
+    if (EventRecorder.isRecording()) {
+      pe = new RecordingProverEnvironment(pe);
+    }
+
     if (useLogger) {
       return new LoggingProverEnvironment(logger, pe);
     } else {
@@ -215,17 +252,31 @@ public final class Solver {
       trivialSatChecks++;
       return true;
     }
+    unsatCacheHandle.evictIfNecessary(unsatCache);
     Boolean result = unsatCache.get(f);
     if (result != null) {
       cachedSatChecks++;
       return result;
     }
 
+    String persistentKey = null;
+    if (persistentCache != null) {
+      persistentKey = persistentCache.getKey(f);
+      result = persistentCache.lookup(persistentKey);
+      if (result != null) {
+        unsatCache.put(f, result);
+        return result;
+      }
+    }
+
     solverTime.start();
     try {
       result = isUnsatUncached(f);
 
       unsatCache.put(f, result);
+      if (persistentCache != null) {
+        persistentCache.store(persistentKey, result);
+      }
       return result;
 
     } finally {
@@ -0,0 +1,271 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates;
+
+import static com.google.common.base.Preconditions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+
+import javax.annotation.Nullable;
+
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.core.ShutdownNotifier;
+import org.sosy_lab.cpachecker.util.predicates.interfaces.BooleanFormula;
+import org.sosy_lab.cpachecker.util.predicates.interfaces.FormulaManager;
+import org.sosy_lab.cpachecker.util.predicates.interfaces.view.FormulaManagerView;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * A pool of independent solver contexts that can be used concurrently.
+ * The solver from {@link Solver#create(Configuration, LogManager, ShutdownNotifier)}
+ * and all formulas created with it must not be used by several threads concurrently,
+ * so components that want to run solver queries in parallel acquire
+ * one context per thread from this pool.
+ *
+ * Each context is a separate instance of the configured SMT solver
+ * (with its own native environment for MathSAT5 and Z3) with its own {@link Solver}.
+ * A context is owned by the thread that acquired it until it is released
+ * by calling {@link Context#close()}, and accessing it from another thread
+ * fails with an {@link IllegalStateException}.
+ * Formulas can be translated between contexts (and the main solver)
+ * with {@link Context#translateFrom(BooleanFormula, FormulaManagerView)}
+ * and {@link Context#translateTo(BooleanFormula, FormulaManagerView)}.
+ *
+ * Contexts are created lazily up to the configured size of the pool
+ * and reused afterwards.
+ */
+@Options(prefix="cpa.predicate.solver.pool")
+public class SolverContextPool implements AutoCloseable {
+
+  @Option(secure=true, description="maximum number of solver contexts that are used concurrently"
+      + " (0 for the number of available processors)")
+  @IntegerOption(min=0)
+  private int size = 0;
+
+  private final Configuration config;
+  private final LogManager logger;
+  private final ShutdownNotifier shutdownNotifier;
+
+  private final int maxSize;
+
+  private final BlockingQueue<Context> idleContexts = new LinkedBlockingQueue<>();
+
+  // all contexts that were created, guarded by this
+  private final List<Context> contexts = new ArrayList<>();
+  private boolean closed = false;
+
+  public SolverContextPool(Configuration pConfig, LogManager pLogger,
+      ShutdownNotifier pShutdownNotifier) throws InvalidConfigurationException {
+    pConfig.inject(this);
+    logger = pLogger;
+    shutdownNotifier = pShutdownNotifier;
+    maxSize = (size > 0) ? size : Runtime.getRuntime().availableProcessors();
+
+    // All contexts would write their queries to the same files.
+    config = Configuration.builder()
+                          .copyFrom(pConfig)
+                          .setOption("cpa.predicate.solver.logAllQueries", "false")
+                          .build();
+
+    // Create the first context eagerly to detect configuration problems early.
+    idleContexts.add(createContext());
+  }
+
+  /**
+   * Return the maximum number of contexts of this pool,
+   * i.e., the number of threads that can use a context at the same time.
+   */
+  public int getSize() {
+    return maxSize;
+  }
+
+  /**
+   * Acquire a context for exclusive use by the current thread.
+   * If all contexts are in use by other threads, this method blocks
+   * until one of them is released.
+   * The context needs to be released by calling {@link Context#close()},
+   * it is recommended to use the try-with-resources syntax.
+   */
+  public Context acquire() throws InterruptedException {
+    Context context = idleContexts.poll();
+    if (context == null) {
+      context = createContextIfPossible();
+    }
+    if (context == null) {
+      context = idleContexts.take();
+    }
+    context.acquire();
+    return context;
+  }
+
+  private synchronized @Nullable Context createContextIfPossible() {
+    checkState(!closed, "Solver context pool is already closed");
+    if (contexts.size() >= maxSize) {
+      return null;
+    }
+    try {
+      return createContext();
+    } catch (InvalidConfigurationException e) {
+      // the same configuration was already used successfully for the first context
+      throw new AssertionError(e);
+    }
+  }
+
+  private synchronized Context createContext() throws InvalidConfigurationException {
+    FormulaManagerFactory factory = new FormulaManagerFactory(config, logger, shutdownNotifier);
+    FormulaManagerView fmgr = new FormulaManagerView(factory, config, logger);
+    Context context = new Context(contexts.size(), factory, fmgr, new Solver(fmgr, factory, config, logger));
+    contexts.add(context);
+    logger.log(Level.FINE, "Created solver context", context.id, "of", maxSize);
+    return context;
+  }
+
+  /**
+   * Return the number of contexts that were created so far.
+   */
+  public synchronized int getNumberOfCreatedContexts() {
+    return contexts.size();
+  }
+
+  /**
+   * Free all contexts of this pool.
+   * No context may be in use when this method is called.
+   */
+  @Override
+  public synchronized void close() {
+    closed = true;
+    for (Context context : contexts) {
+      checkState(context.owner == null, "Solver context %s is still in use by %s", context.id, context.owner);
+      try {
+        context.fmgr.close();
+      } catch (Exception e) {
+        logger.logDebugException(e, "Could not free solver context");
+      }
+    }
+    contexts.clear();
+    idleContexts.clear();
+  }
+
+  /**
+   * A solver context of a {@link SolverContextPool},
+   * which may be used only by the thread that acquired it.
+   */
+  public final class Context implements AutoCloseable {
+
+    private final int id;
+    private final FormulaManagerFactory factory;
+    private final FormulaManagerView fmgr;
+    private final Solver solver;
+
+    private volatile @Nullable Thread owner = null;
+
+    private Context(int pId, FormulaManagerFactory pFactory, FormulaManagerView pFmgr, Solver pSolver) {
+      id = pId;
+      factory = pFactory;
+      fmgr = pFmgr;
+      solver = pSolver;
+    }
+
+    private void acquire() {
+      checkState(owner == null, "Solver context %s is already in use by %s", id, owner);
+      owner = Thread.currentThread();
+    }
+
+    private void checkOwner() {
+      Thread currentThread = Thread.currentThread();
+      checkState(owner == currentThread,
+          "Solver context %s is used by %s but owned by %s", id, currentThread, owner);
+    }
+
+    public int getId() {
+      return id;
+    }
+
+    public Solver getSolver() {
+      checkOwner();
+      return solver;
+    }
+
+    public FormulaManagerView getFormulaManager() {
+      checkOwner();
+      return fmgr;
+    }
+
+    /**
+     * Return the underlying solver instance of this context,
+     * which is not shared with any other context.
+     */
+    @VisibleForTesting
+    FormulaManager getNativeFormulaManager() {
+      checkOwner();
+      return factory.getFormulaManager();
+    }
+
+    /**
+     * Translate a formula of another solver context into this context.
+     * The other formula manager is used by the current thread,
+     * so no other thread may use it at the same time.
+     */
+    public BooleanFormula translateFrom(BooleanFormula f, FormulaManagerView source) {
+      checkOwner();
+      return fmgr.parse(source.dumpFormula(f).toString());
+    }
+
+    /**
+     * Translate a formula of this context into another solver context.
+     * The other formula manager is used by the current thread,
+     * so no other thread may use it at the same time.
+     */
+    public BooleanFormula translateTo(BooleanFormula f, FormulaManagerView target) {
+      checkOwner();
+      return target.parse(fmgr.dumpFormula(f).toString());
+    }
+
+    /**
+     * Release this context such that it can be acquired by other threads.
+     * It must not be used afterwards by the current thread.
+     */
+    @Override
+    public void close() {
+      checkOwner();
+      owner = null;
+      idleContexts.add(this);
+    }
+
+    @Override
+    public String toString() {
+      return "SolverContext " + id;
+    }
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.TruthJUnit.assume;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import org.sosy_lab.common.configuration.Builder;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.ConfigurationBuilder;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.converters.FileTypeConverter;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.log.TestLogManager;
+import org.sosy_lab.cpachecker.core.ShutdownNotifier;
+import org.sosy_lab.cpachecker.util.predicates.FormulaManagerFactory.Solvers;
+import org.sosy_lab.cpachecker.util.predicates.SolverContextPool.Context;
+import org.sosy_lab.cpachecker.util.predicates.interfaces.BooleanFormula;
+import org.sosy_lab.cpachecker.util.predicates.interfaces.FormulaManager;
+import org.sosy_lab.cpachecker.util.predicates.interfaces.NumeralFormula.IntegerFormula;
+import org.sosy_lab.cpachecker.util.predicates.interfaces.view.BooleanFormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.interfaces.view.FormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.interfaces.view.NumeralFormulaManagerView;
+
+@RunWith(Parameterized.class)
+public class SolverContextPoolTest {
+
+  @Parameters(name="{0}")
+  public static Object[] getAllSolvers() {
+    return Solvers.values();
+  }
+
+  @Parameter(0)
+  public Solvers solver;
+
+  private static final int POOL_SIZE = 4;
+  private static final int THREADS = 16;
+  private static final int QUERIES_PER_THREAD = 50;
+
+  private final LogManager logger = TestLogManager.getInstance();
+  private SolverContextPool pool;
+
+  @Before
+  public void createPool() throws Exception {
+    ConfigurationBuilder builder = new Builder();
+    builder.setOption("cpa.predicate.solver", solver.toString());
+    builder.setOption("cpa.predicate.solver.pool.size", Integer.toString(POOL_SIZE));
+    builder.addConverter(FileOption.class, FileTypeConverter.createWithSafePathsOnly(Configuration.defaultConfiguration()));
+    Configuration config = builder.build();
+
+    try {
+      pool = new SolverContextPool(config, logger, ShutdownNotifier.create());
+    } catch (NoClassDefFoundError e) {
+      assume().withFailureMessage("Scala is not on class path")
+              .that(e.getMessage()).doesNotContain("scala");
+    }
+  }
+
+  @After
+  public void closePool() {
+    if (pool != null) {
+      pool.close();
+    }
+  }
+
+  /**
+   * Check "i < x < i+2" (sat) and "i < x < i+1" (unsat) in the given context.
+   */
+  private static void checkQueries(Context context, int i) throws Exception {
+    FormulaManagerView fmgr = context.getFormulaManager();
+    BooleanFormulaManagerView bfmgr = fmgr.getBooleanFormulaManager();
+    NumeralFormulaManagerView<IntegerFormula, IntegerFormula> ifmgr = fmgr.getIntegerFormulaManager();
+
+    IntegerFormula x = ifmgr.makeVariable("x");
+    BooleanFormula lower = ifmgr.greaterThan(x, ifmgr.makeNumber(i));
+    BooleanFormula sat = bfmgr.and(lower, ifmgr.lessThan(x, ifmgr.makeNumber(i + 2)));
+    BooleanFormula unsat = bfmgr.and(lower, ifmgr.lessThan(x, ifmgr.makeNumber(i + 1)));
+
+    assertThat(context.getSolver().isUnsat(sat)).isFalse();
+    assertThat(context.getSolver().isUnsat(unsat)).isTrue();
+  }
+
+  @Test
+  public void noContextIsSharedBetweenThreads() throws Exception {
+    // maps each native solver instance to the thread that currently uses it
+    final ConcurrentMap<FormulaManager, Thread> usedBy = new ConcurrentHashMap<>();
+    final Set<FormulaManager> allNativeManagers = Collections.newSetFromMap(
+        new ConcurrentHashMap<FormulaManager, Boolean>());
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<Void>> results = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        final int offset = t * QUERIES_PER_THREAD;
+        results.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            for (int i = 0; i < QUERIES_PER_THREAD; i++) {
+              try (Context context = pool.acquire()) {
+                FormulaManager nativeManager = context.getNativeFormulaManager();
+                allNativeManagers.add(nativeManager);
+
+                Thread previous = usedBy.putIfAbsent(nativeManager, Thread.currentThread());
+                assertThat(previous).isNull();
+                try {
+                  checkQueries(context, offset + i);
+                } finally {
+                  usedBy.remove(nativeManager);
+                }
+              }
+            }
+            return null;
+          }
+        }));
+      }
+
+      for (Future<Void> result : results) {
+        result.get(); // propagates failures of the threads
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(pool.getNumberOfCreatedContexts()).isAtMost(POOL_SIZE);
+    assertThat(allNativeManagers).hasSize(pool.getNumberOfCreatedContexts());
+    assertThat(usedBy).isEmpty();
+  }
+
+  @Test
+  public void contextCannotBeUsedByOtherThread() throws Exception {
+    try (final Context context = pool.acquire()) {
+      final List<Throwable> failures = new ArrayList<>();
+      Thread other = new Thread() {
+        @Override
+        public void run() {
+          try {
+            context.getSolver();
+          } catch (IllegalStateException e) {
+            failures.add(e);
+          }
+        }
+      };
+      other.start();
+      other.join();
+
+      assertThat(failures).hasSize(1);
+    }
+  }
+
+  @Test
+  public void concurrentlyAcquiredContextsAreDistinct() throws Exception {
+    Map<FormulaManager, Context> nativeManagers = new IdentityHashMap<>();
+    List<Context> contexts = new ArrayList<>();
+    try {
+      for (int i = 0; i < POOL_SIZE; i++) {
+        Context context = pool.acquire();
+        contexts.add(context);
+        nativeManagers.put(context.getNativeFormulaManager(), context);
+      }
+      assertThat(nativeManagers).hasSize(POOL_SIZE);
+    } finally {
+      for (Context context : contexts) {
+        context.close();
+      }
+    }
+  }
+
+  @Test
+  public void translateBetweenContexts() throws Exception {
+    try (Context source = pool.acquire();
+         Context target = pool.acquire()) {
+      FormulaManagerView fmgr = source.getFormulaManager();
+      NumeralFormulaManagerView<IntegerFormula, IntegerFormula> ifmgr = fmgr.getIntegerFormulaManager();
+      IntegerFormula x = ifmgr.makeVariable("x");
+      BooleanFormula f = fmgr.getBooleanFormulaManager().and(
+          ifmgr.greaterThan(x, ifmgr.makeNumber(1)),
+          ifmgr.lessThan(x, ifmgr.makeNumber(2)));
+
+      BooleanFormula translated = target.translateFrom(f, fmgr);
+      assertThat(target.getSolver().isUnsat(translated)).isTrue();
+
+      BooleanFormula back = target.translateTo(translated, fmgr);
+      assertThat(source.getSolver().isUnsat(back)).isTrue();
+    }
+  }
+}
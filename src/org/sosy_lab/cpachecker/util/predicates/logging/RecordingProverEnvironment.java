@@ -0,0 +1,97 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.logging;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.sosy_lab.common.time.NestedTimer;
+import org.sosy_lab.common.time.Timer;
+import org.sosy_lab.cpachecker.core.counterexample.Model;
+import org.sosy_lab.cpachecker.exceptions.SolverException;
+import org.sosy_lab.cpachecker.util.predicates.AbstractionManager.RegionCreator;
+import org.sosy_lab.cpachecker.util.predicates.interfaces.BooleanFormula;
+import org.sosy_lab.cpachecker.util.predicates.interfaces.ProverEnvironment;
+import org.sosy_lab.cpachecker.util.statistics.EventRecorder;
+
+/**
+ * Wraps a prover environment and records an event of the {@link EventRecorder}
+ * for each satisfiability check.
+ */
+public class RecordingProverEnvironment implements ProverEnvironment {
+
+  private static final String COMPONENT = "Solver";
+
+  private final ProverEnvironment wrapped;
+
+  public RecordingProverEnvironment(ProverEnvironment pe) {
+    this.wrapped = pe;
+  }
+
+  @Override
+  public Void push(BooleanFormula f) {
+    return wrapped.push(f);
+  }
+
+  @Override
+  public void pop() {
+    wrapped.pop();
+  }
+
+  @Override
+  public boolean isUnsat() throws SolverException, InterruptedException {
+    long start = EventRecorder.begin();
+    try {
+      return wrapped.isUnsat();
+    } finally {
+      EventRecorder.end("solver query", start, null, COMPONENT);
+    }
+  }
+
+  @Override
+  public Model getModel() throws SolverException {
+    return wrapped.getModel();
+  }
+
+  @Override
+  public List<BooleanFormula> getUnsatCore() {
+    return wrapped.getUnsatCore();
+  }
+
+  @Override
+  public AllSatResult allSat(Collection<BooleanFormula> important,
+      RegionCreator mgr, Timer solveTime, NestedTimer enumTime) throws InterruptedException {
+    long start = EventRecorder.begin();
+    try {
+      return wrapped.allSat(important, mgr, solveTime, enumTime);
+    } finally {
+      EventRecorder.end("allsat query", start, null, COMPONENT);
+    }
+  }
+
+  @Override
+  public void close() {
+    wrapped.close();
+  }
+}
@@ -23,11 +23,20 @@
  */
 package org.sosy_lab.cpachecker.util.predicates.pathformula;
 
-import java.util.HashMap;
+import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.toPercent;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.sosy_lab.common.Pair;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.common.time.Timer;
 import org.sosy_lab.cpachecker.cfa.ast.c.CIdExpression;
 import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
@@ -38,41 +47,165 @@ import org.sosy_lab.cpachecker.exceptions.UnrecognizedCCodeException;
 import org.sosy_lab.cpachecker.util.predicates.interfaces.BooleanFormula;
 import org.sosy_lab.cpachecker.util.predicates.interfaces.Formula;
 import org.sosy_lab.cpachecker.util.predicates.interfaces.PathFormulaManager;
+import org.sosy_lab.cpachecker.util.resources.CacheEvictionRegistry;
+import org.sosy_lab.cpachecker.util.resources.CacheEvictionRegistry.CacheHandle;
+
+import com.google.common.collect.ImmutableList;
 
 /**
  * Implementation of {@link PathFormulaManager} that delegates to another
  * instance but caches results of some methods.
  */
+@Options(prefix="cpa.predicate.pathFormulaCache")
 public class CachingPathFormulaManager implements PathFormulaManager {
 
+  @Option(secure=true, description="Maximum number of entries in each of the caches "
+      + "of path formulas (0 for unbounded). "
+      + "If a cache is full, the least recently used entry is removed.")
+  private int maxSize = 0;
+
+  @Option(secure=true, description="Measure the heap memory retained by the caches "
+      + "of path formulas when printing the statistics. "
+      + "This runs the garbage collector and clears the caches.")
+  private boolean measureRetainedHeap = false;
+
   public final Timer pathFormulaComputationTimer = new Timer();
   public int pathFormulaCacheHits = 0;
 
   private final PathFormulaManager delegate;
 
-  private final Map<Pair<CFAEdge, PathFormula>, Pair<PathFormula, ErrorConditions>> andFormulaWithConditionsCache
-            = new HashMap<>();
-  private final Map<Pair<CFAEdge, PathFormula>, PathFormula> andFormulaCache
-            = new HashMap<>();
+  private final Cache<Pair<CFAEdge, PathFormula>, Pair<PathFormula, ErrorConditions>> andFormulaWithConditionsCache;
+  private final Cache<Pair<CFAEdge, PathFormula>, PathFormula> andFormulaCache;
+  private final Cache<Pair<PathFormula, PathFormula>, PathFormula> orFormulaCache;
+  private final Cache<PathFormula, PathFormula> emptyFormulaCache;
 
-  private final Map<Pair<PathFormula, PathFormula>, PathFormula> orFormulaCache
-            = new HashMap<>();
+  private final PathFormula emptyFormula;
 
-  private final Map<PathFormula, PathFormula> emptyFormulaCache
-            = new HashMap<>();
+  /**
+   * A cache in access order that is bounded by a maximum number of entries,
+   * such that the least recently used entries are evicted first
+   * (also by the {@link CacheEvictionRegistry}).
+   */
+  private static final class Cache<K, V> extends LinkedHashMap<K, V> {
 
-  private final PathFormula emptyFormula;
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+    private final int maxSize;
+    private final transient CacheHandle handle;
+
+    private int hits = 0;
+    private int misses = 0;
+    private int evictions = 0;
+    private int maxEntries = 0;
+
+    private Cache(String pName, int pMaxSize) {
+      super(16, 0.75f, true);
+      name = pName;
+      maxSize = pMaxSize;
+      handle = CacheEvictionRegistry.register("CachingPathFormulaManager." + pName);
+    }
+
+    /** Look up a value and count a hit or miss (the latter only if pCountMiss is true). */
+    private V lookup(Object pKey, boolean pCountMiss) {
+      int size = size();
+      handle.evictIfNecessary(this);
+      evictions += size - size();
+
+      V result = get(pKey);
+      if (result != null) {
+        hits++;
+      } else if (pCountMiss) {
+        misses++;
+      }
+      return result;
+    }
+
+    @Override
+    public V put(K pKey, V pValue) {
+      V result = super.put(pKey, pValue);
+      maxEntries = Math.max(maxEntries, size());
+      return result;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> pEldest) {
+      if (maxSize > 0 && size() > maxSize) {
+        evictions++;
+        return true;
+      }
+      return false;
+    }
+
+    private void printStatistics(PrintStream out) {
+      out.println("  " + name + ": "
+          + hits + " hits (" + toPercent(hits, hits + misses) + "), "
+          + misses + " misses, "
+          + evictions + " evictions, "
+          + size() + " entries (max. " + maxEntries + ")");
+    }
+  }
+
+  public CachingPathFormulaManager(PathFormulaManager pDelegate, Configuration config)
+      throws InvalidConfigurationException {
+    config.inject(this);
+    if (maxSize < 0) {
+      throw new InvalidConfigurationException("Option cpa.predicate.pathFormulaCache.maxSize must not be negative.");
+    }
 
-  public CachingPathFormulaManager(PathFormulaManager pDelegate) {
     delegate = pDelegate;
     emptyFormula = delegate.makeEmptyPathFormula();
+
+    andFormulaWithConditionsCache = new Cache<>("andFormulaWithConditionsCache", maxSize);
+    andFormulaCache = new Cache<>("andFormulaCache", maxSize);
+    orFormulaCache = new Cache<>("orFormulaCache", maxSize);
+    emptyFormulaCache = new Cache<>("emptyFormulaCache", maxSize);
+  }
+
+  private List<Cache<?, ?>> getCaches() {
+    return ImmutableList.<Cache<?, ?>>of(
+        andFormulaWithConditionsCache, andFormulaCache, orFormulaCache, emptyFormulaCache);
+  }
+
+  /**
+   * Print the hits, misses, and evictions of each cache,
+   * and (if enabled) the heap memory retained by the caches.
+   * The latter clears the caches, so this should be called only at the end of the analysis.
+   */
+  public void printStatistics(PrintStream out) {
+    out.println("Path formula caches:");
+    for (Cache<?, ?> cache : getCaches()) {
+      cache.printStatistics(out);
+    }
+    if (measureRetainedHeap) {
+      out.println("  Heap retained by caches:           " + (measureRetainedHeap() >> 10) + "kB");
+    }
+  }
+
+  /**
+   * Measure the heap memory that is retained only by the caches
+   * as the difference in heap usage after a garbage collection
+   * before and after clearing the caches.
+   * Path formulas that are also referenced from elsewhere (e.g., the ARG)
+   * are not counted.
+   */
+  private long measureRetainedHeap() {
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    memory.gc();
+    long before = memory.getHeapMemoryUsage().getUsed();
+    for (Cache<?, ?> cache : getCaches()) {
+      cache.clear();
+    }
+    memory.gc();
+    long after = memory.getHeapMemoryUsage().getUsed();
+    return Math.max(0, before - after);
   }
 
   @Override
   public Pair<PathFormula, ErrorConditions> makeAndWithErrorConditions(PathFormula pOldFormula, CFAEdge pEdge) throws CPATransferException, InterruptedException {
 
     final Pair<CFAEdge, PathFormula> formulaCacheKey = Pair.of(pEdge, pOldFormula);
-    Pair<PathFormula, ErrorConditions> result = andFormulaWithConditionsCache.get(formulaCacheKey);
+    Pair<PathFormula, ErrorConditions> result = andFormulaWithConditionsCache.lookup(formulaCacheKey, true);
     if (result == null) {
       pathFormulaComputationTimer.start();
       // compute new pathFormula with the operation on the edge
@@ -89,7 +222,7 @@ public class CachingPathFormulaManager implements PathFormulaManager {
   @Override
   public PathFormula makeAnd(PathFormula pOldFormula, CFAEdge pEdge) throws CPATransferException, InterruptedException {
     final Pair<CFAEdge, PathFormula> formulaCacheKey = Pair.of(pEdge, pOldFormula);
-    PathFormula result = andFormulaCache.get(formulaCacheKey);
+    PathFormula result = andFormulaCache.lookup(formulaCacheKey, true);
     if (result == null) {
       pathFormulaComputationTimer.start();
       // compute new pathFormula with the operation on the edge
@@ -107,10 +240,10 @@ public class CachingPathFormulaManager implements PathFormulaManager {
   public PathFormula makeOr(PathFormula pF1, PathFormula pF2) throws InterruptedException {
     final Pair<PathFormula, PathFormula> formulaCacheKey = Pair.of(pF1, pF2);
 
-    PathFormula result = orFormulaCache.get(formulaCacheKey);
+    PathFormula result = orFormulaCache.lookup(formulaCacheKey, false);
     if (result == null) {
       // try again with other order
-      result = orFormulaCache.get(Pair.of(pF2, pF1));
+      result = orFormulaCache.lookup(Pair.of(pF2, pF1), true);
     }
 
     if (result == null) {
@@ -132,7 +265,7 @@ public class CachingPathFormulaManager implements PathFormulaManager {
     if (pOldFormula.getFormula() == null) {
       return delegate.makeEmptyPathFormula(pOldFormula);
     }
-    PathFormula result = emptyFormulaCache.get(pOldFormula);
+    PathFormula result = emptyFormulaCache.lookup(pOldFormula, true);
     if (result == null) {
       result = delegate.makeEmptyPathFormula(pOldFormula);
       emptyFormulaCache.put(pOldFormula, result);
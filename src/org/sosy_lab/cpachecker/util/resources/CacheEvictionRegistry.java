@@ -0,0 +1,343 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.resources;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import javax.annotation.Nullable;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
+import org.sosy_lab.common.concurrency.Threads;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+
+/**
+ * Central registry for caches of the analysis whose entries can be dropped
+ * when the heap gets full, e.g., the caches in Solver,
+ * PredicateAbstractionManager, and CachingPathFormulaManager.
+ *
+ * The registry watches the largest heap memory pool (the tenured generation)
+ * with a collection-usage threshold of the {@link MemoryPoolMXBean}
+ * (cf. the notes in {@link MemoryStatistics}),
+ * i.e., it gets notified if the heap usage after a garbage collection
+ * is above a configurable fraction of the maximum size.
+ * Then all caches are asked to evict their least recently used entries.
+ *
+ * Caches are not thread-safe, so the eviction is not done from the
+ * notification thread. Instead, each cache gets a {@link CacheHandle} on
+ * construction and calls {@link CacheHandle#evictIfNecessary(Map)}
+ * at each access, which costs only a read of a volatile field
+ * unless entries need to be evicted.
+ * If no registry is started, caches are never asked to evict entries
+ * and get a handle that is not registered anywhere.
+ * Otherwise the handle belongs to the started registry,
+ * which reports the evictions of its caches in its statistics.
+ */
+@Options(prefix="cacheEviction")
+public final class CacheEvictionRegistry implements Statistics {
+
+  @Option(secure=true, description="Evict entries from the caches of the analysis "
+      + "(e.g., in Solver, PredicateAbstractionManager, and CachingPathFormulaManager) "
+      + "when the heap usage after a garbage collection is above this fraction "
+      + "of the maximum heap size. Use 0 to disable eviction.")
+  private double heapThreshold = 0.0;
+
+  @Option(secure=true, description="fraction of entries that each cache evicts "
+      + "when the heap usage is above cacheEviction.heapThreshold")
+  private double fraction = 0.5;
+
+  private static final long MEASUREMENT_INTERVAL = 500; // milliseconds
+
+  // Static state that is read by the caches.
+  // Each eviction request increments the counter,
+  // and each cache evicts entries once per increment.
+  private static final AtomicInteger evictionRequests = new AtomicInteger(0);
+  private static volatile double evictionFraction = 0.0;
+
+  /** The registry that is currently started, if any. */
+  private static volatile @Nullable CacheEvictionRegistry activeRegistry = null;
+
+  /** The handle for all caches that are created while no registry is started. */
+  private static final CacheHandle DISABLED_HANDLE = new CacheHandle("", false);
+
+  /** The handles of all caches that were created while this registry was started. */
+  private final Queue<CacheHandle> handles = new ConcurrentLinkedQueue<>();
+
+  private final LogManager logger;
+  private @Nullable MemoryPoolMXBean pool = null;
+  private @Nullable ScheduledExecutorService measurementExecutor = null;
+
+  // statistics
+  private final AtomicInteger countEvictionRequests = new AtomicInteger(0);
+  private final AtomicLong reclaimedMemory = new AtomicLong(0);
+
+  // usage of the pool after the GC that triggered the last eviction request,
+  // and the number of GCs at this time (-1 if no request is pending)
+  private volatile long usageBeforeEviction = 0;
+  private volatile long collectionCountBeforeEviction = -1;
+
+  private final NotificationListener listener = new NotificationListener() {
+    @Override
+    public void handleNotification(Notification pNotification, Object pHandback) {
+      if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(pNotification.getType())) {
+        requestEviction();
+      }
+    }
+  };
+
+  public CacheEvictionRegistry(Configuration pConfig, LogManager pLogger)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    logger = pLogger;
+
+    if (heapThreshold < 0 || heapThreshold >= 1) {
+      throw new InvalidConfigurationException("Option cacheEviction.heapThreshold needs to be at least 0 and smaller than 1.");
+    }
+    if (fraction <= 0 || fraction > 1) {
+      throw new InvalidConfigurationException("Option cacheEviction.fraction needs to be larger than 0 and at most 1.");
+    }
+  }
+
+  public boolean isEnabled() {
+    return heapThreshold > 0;
+  }
+
+  /**
+   * Start watching the heap, if eviction is enabled.
+   * Call {@link #stop()} afterwards.
+   */
+  public void start() {
+    if (!isEnabled()) {
+      return;
+    }
+
+    for (MemoryPoolMXBean candidate : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (candidate.getType() == MemoryType.HEAP
+          && candidate.isCollectionUsageThresholdSupported()
+          && candidate.getUsage().getMax() > 0
+          && (pool == null || candidate.getUsage().getMax() > pool.getUsage().getMax())) {
+        pool = candidate;
+      }
+    }
+    if (pool == null) {
+      logger.log(Level.WARNING, "Cannot monitor heap usage, cache eviction is disabled.");
+      return;
+    }
+
+    long threshold = (long)(pool.getUsage().getMax() * heapThreshold);
+    pool.setCollectionUsageThreshold(threshold);
+    ((NotificationEmitter)ManagementFactory.getMemoryMXBean()).addNotificationListener(listener, null, null);
+    evictionFraction = fraction;
+    activeRegistry = this;
+
+    measurementExecutor = Executors.newSingleThreadScheduledExecutor(
+        Threads.threadFactoryBuilder().setNameFormat("Cache eviction monitor").setDaemon(true).build());
+    measurementExecutor.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          measureReclaimedMemory();
+        }
+      }, MEASUREMENT_INTERVAL, MEASUREMENT_INTERVAL, TimeUnit.MILLISECONDS);
+
+    logger.log(Level.FINE, "Evicting cache entries if usage of memory pool", pool.getName(),
+        "is above", threshold, "bytes after garbage collection.");
+  }
+
+  public void stop() {
+    if (pool == null) {
+      return;
+    }
+    if (activeRegistry == this) {
+      activeRegistry = null;
+    }
+    evictionFraction = 0.0;
+    measurementExecutor.shutdownNow();
+    try {
+      ((NotificationEmitter)ManagementFactory.getMemoryMXBean()).removeNotificationListener(listener);
+    } catch (ListenerNotFoundException e) {
+      logger.logDebugException(e);
+    }
+  }
+
+  private void requestEviction() {
+    countEvictionRequests.incrementAndGet();
+    if (collectionCountBeforeEviction < 0) {
+      usageBeforeEviction = pool.getCollectionUsage().getUsed();
+      collectionCountBeforeEviction = pool.getCollectionCount();
+    }
+    evictionRequests.incrementAndGet();
+    logger.log(Level.INFO, "Heap is almost full, evicting entries from caches.");
+  }
+
+  /**
+   * Estimate the memory reclaimed by an eviction request as the difference
+   * between the heap usage after the GC that triggered the request
+   * and the heap usage after the next GC.
+   * The estimate is coarse, because caches evict their entries lazily,
+   * and other objects become garbage at the same time.
+   */
+  private void measureReclaimedMemory() {
+    long countBefore = collectionCountBeforeEviction;
+    if (countBefore >= 0 && pool.getCollectionCount() > countBefore) {
+      long usageAfter = pool.getCollectionUsage().getUsed();
+      reclaimedMemory.addAndGet(Math.max(0, usageBeforeEviction - usageAfter));
+      collectionCountBeforeEviction = -1;
+    }
+  }
+
+  /**
+   * Register a cache and get the handle that tells the cache when to evict entries.
+   * If no registry is started, the returned handle never evicts entries.
+   * @param pName The name of the cache as shown in the statistics, e.g., "Solver.unsatCache".
+   */
+  public static CacheHandle register(String pName) {
+    CacheEvictionRegistry registry = activeRegistry;
+    if (registry == null) {
+      return DISABLED_HANDLE;
+    }
+    CacheHandle handle = new CacheHandle(pName, true);
+    registry.handles.add(handle);
+    return handle;
+  }
+
+  private static int evictFirst(Iterable<?> pCache, int pEntries) {
+    int removed = 0;
+    for (Iterator<?> it = pCache.iterator(); removed < pEntries && it.hasNext(); ) {
+      it.next();
+      it.remove();
+      removed++;
+    }
+    return removed;
+  }
+
+  /**
+   * Handle of a single cache. Each handle must be used only by the thread that
+   * uses the cache (except for the disabled handle, which has no mutable state).
+   */
+  public static final class CacheHandle {
+
+    private final String name;
+    private final boolean enabled;
+    private int handledRequests = evictionRequests.get();
+
+    private final AtomicInteger evictions = new AtomicInteger(0);
+    private final AtomicLong evictedEntries = new AtomicLong(0);
+
+    private CacheHandle(String pName, boolean pEnabled) {
+      name = pName;
+      enabled = pEnabled;
+    }
+
+    /**
+     * Evict entries from the given cache if this was requested since the last call.
+     * The entries are evicted from the beginning of the iteration order.
+     * For a {@link java.util.LinkedHashMap} in access order,
+     * these are the least recently used entries,
+     * for other {@link java.util.LinkedHashMap}s and {@link java.util.LinkedHashSet}s
+     * these are the oldest entries.
+     * This is cheap, so call it at each access to the cache.
+     */
+    public void evictIfNecessary(Map<?, ?> pCache) {
+      evictIfNecessary(pCache.keySet());
+    }
+
+    /**
+     * Same as {@link #evictIfNecessary(Map)} for caches that are sets.
+     */
+    public void evictIfNecessary(Collection<?> pCache) {
+      if (!enabled) {
+        return;
+      }
+      int requests = evictionRequests.get();
+      if (requests == handledRequests) {
+        return;
+      }
+      handledRequests = requests;
+
+      int entries = (int)Math.ceil(pCache.size() * evictionFraction);
+      if (entries > 0) {
+        evictions.incrementAndGet();
+        evictedEntries.addAndGet(evictFirst(pCache, entries));
+      }
+    }
+  }
+
+  @Override
+  public String getName() {
+    return "Cache Eviction";
+  }
+
+  @Override
+  public void printStatistics(PrintStream out, Result pResult, ReachedSet pReached) {
+    measureReclaimedMemory();
+
+    out.println("Number of eviction requests:        " + countEvictionRequests.get());
+    if (countEvictionRequests.get() == 0) {
+      return;
+    }
+    out.println("Memory reclaimed (estimated):       " + (reclaimedMemory.get() >> 20) + "MB");
+
+    // aggregate over caches with the same name (e.g., from several analyses)
+    SortedMap<String, long[]> perCache = new TreeMap<>();
+    for (CacheHandle handle : handles) {
+      long[] values = perCache.get(handle.name);
+      if (values == null) {
+        values = new long[2];
+        perCache.put(handle.name, values);
+      }
+      values[0] += handle.evictions.get();
+      values[1] += handle.evictedEntries.get();
+    }
+    for (Map.Entry<String, long[]> entry : perCache.entrySet()) {
+      out.println("  " + entry.getKey() + ": " + entry.getValue()[0] + " evictions, "
+          + entry.getValue()[1] + " entries evicted");
+    }
+  }
+}
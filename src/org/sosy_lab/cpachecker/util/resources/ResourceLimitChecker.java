@@ -109,9 +109,34 @@ public final class ResourceLimitChecker {
    */
   public static ResourceLimitChecker fromConfiguration(Configuration config,
       LogManager logger, ShutdownNotifier notifier) throws InvalidConfigurationException {
+    ResourceLimitOptions options = new ResourceLimitOptions();
+    config.inject(options);
+    return fromOptions(options, logger, notifier, 0);
+  }
 
+  /**
+   * Create an instance of this class from some configuration options
+   * for one of several analyses that run in parallel in the same process.
+   * The cpu-time limit is split equally between the analyses
+   * and applied to the cpu time of the current thread instead of the whole process.
+   * Note that the cpu time of other threads that are started by the analysis
+   * (e.g., helper threads of the solver) is not counted for this limit,
+   * so the limit of the whole process should still be enforced additionally.
+   * The heap cannot be partitioned between threads, so there is no memory limit here.
+   * The returned instance is not started yet.
+   * @param numberOfParallelAnalyses The number of analyses that share the cpu-time limit.
+   */
+  public static ResourceLimitChecker fromConfigurationForParallelAnalysis(Configuration config,
+      LogManager logger, ShutdownNotifier notifier, int numberOfParallelAnalyses)
+          throws InvalidConfigurationException {
+    checkArgument(numberOfParallelAnalyses > 0);
     ResourceLimitOptions options = new ResourceLimitOptions();
     config.inject(options);
+    return fromOptions(options, logger, notifier, numberOfParallelAnalyses);
+  }
+
+  private static ResourceLimitChecker fromOptions(ResourceLimitOptions options,
+      LogManager logger, ShutdownNotifier notifier, int numberOfParallelAnalyses) {
 
     ImmutableList.Builder<ResourceLimit> limits = ImmutableList.builder();
     if (options.walltime.compareTo(TimeSpan.empty()) >= 0) {
@@ -119,7 +144,12 @@ public final class ResourceLimitChecker {
     }
     if (options.cpuTime.compareTo(TimeSpan.empty()) >= 0) {
       try {
-        limits.add(ProcessCpuTimeLimit.fromNowOn(options.cpuTime));
+        if (numberOfParallelAnalyses > 0) {
+          TimeSpan share = TimeSpan.ofNanos(Math.max(options.cpuTime.asNanos() / numberOfParallelAnalyses, 1));
+          limits.add(ThreadCpuTimeLimit.fromNowOnForCurrentThread(share));
+        } else {
+          limits.add(ProcessCpuTimeLimit.fromNowOn(options.cpuTime));
+        }
       } catch (JMException e) {
         logger.logDebugException(e, "Querying cpu time failed");
         logger.log(Level.WARNING, "Your Java VM does not support measuring the cpu time, cpu time threshold disabled.");
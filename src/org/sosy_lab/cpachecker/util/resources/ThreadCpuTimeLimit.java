@@ -0,0 +1,99 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.resources;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+
+import org.sosy_lab.common.time.TimeSpan;
+
+/**
+ * A limit for the cpu time that is consumed by a single thread.
+ * This is useful if several analyses run in parallel in the same process,
+ * where {@link ProcessCpuTimeLimit} would count the time of all of them.
+ * Only the given thread is measured, the cpu time of helper threads
+ * that are started from this thread is not included.
+ */
+public class ThreadCpuTimeLimit implements ResourceLimit {
+
+  private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+  private final long threadId;
+  private final long duration;
+  private final long endTime;
+
+  private ThreadCpuTimeLimit(long pThreadId, long pStart, long pLimit, TimeUnit pUnit) {
+    checkArgument(pLimit > 0);
+    threadId = pThreadId;
+    duration = TimeUnit.NANOSECONDS.convert(pLimit, pUnit);
+    endTime = pStart + duration;
+  }
+
+  /**
+   * Create a limit for the cpu time of the current thread,
+   * starting from the current point in time.
+   * @throws JMException If the JVM does not support measuring the cpu time of threads.
+   */
+  public static ThreadCpuTimeLimit fromNowOnForCurrentThread(TimeSpan timeSpan) throws JMException {
+    if (!threadMXBean.isCurrentThreadCpuTimeSupported()) {
+      throw new JMException("Current platform does not support reading the thread cpu time");
+    }
+    if (!threadMXBean.isThreadCpuTimeEnabled()) {
+      threadMXBean.setThreadCpuTimeEnabled(true);
+    }
+    return new ThreadCpuTimeLimit(Thread.currentThread().getId(),
+        threadMXBean.getCurrentThreadCpuTime(), timeSpan.asNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public long getCurrentValue() {
+    // returns -1 if the thread is not alive anymore
+    return threadMXBean.getThreadCpuTime(threadId);
+  }
+
+  @Override
+  public boolean isExceeded(long pCurrentValue) {
+    return pCurrentValue >= endTime;
+  }
+
+  @Override
+  public long nanoSecondsToNextCheck(long pCurrentValue) {
+    if (pCurrentValue < 0) {
+      // thread has terminated, we disable this limit
+      return Long.MAX_VALUE;
+    }
+    // a single thread cannot consume cpu time faster than wall time
+    return endTime - pCurrentValue;
+  }
+
+  @Override
+  public String getName() {
+    return "CPU-time limit of " + TimeUnit.NANOSECONDS.toSeconds(duration) + "s for thread " + threadId;
+  }
+}
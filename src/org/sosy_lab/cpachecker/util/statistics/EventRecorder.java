@@ -0,0 +1,300 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.statistics;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import javax.annotation.Nullable;
+
+import org.sosy_lab.common.concurrency.Threads;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.configuration.TimeSpanOption;
+import org.sosy_lab.common.io.Files;
+import org.sosy_lab.common.io.Path;
+import org.sosy_lab.common.io.Paths;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.TimeSpan;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+
+/**
+ * Low-overhead recording of timed events of the analysis
+ * (e.g., the single operations of the CPA algorithm, refinements, and
+ * solver queries), each with the CFA location and the component
+ * that produced it.
+ * In contrast to the timers of the statistics, which are printed only
+ * at the end, the events are streamed to a file while the analysis is running,
+ * such that it can be seen which locations dominate the run time.
+ *
+ * Components call {@link #begin()} before and {@link #end(String, long, CFANode, String)}
+ * after an operation. If recording is disabled, both are a single read of
+ * a volatile field. Otherwise, events that took at least the configured
+ * threshold are put into a queue, which is written to the file
+ * by a background thread once per second.
+ * The queue is bounded, events that do not fit into it are dropped and counted.
+ *
+ * The CPA algorithm records its complete operations with the component "CPAAlgorithm",
+ * and the composite transfer relation and merge operators record
+ * the operations of each component CPA separately.
+ *
+ * The file has one tab-separated line per event with
+ * the start time (in microseconds since the start of the recording),
+ * the duration (in microseconds), the name of the event, the component,
+ * and the CFA location (empty if unknown).
+ */
+@Options(prefix="statistics.events")
+public final class EventRecorder implements Statistics {
+
+  @Option(secure=true, name="export",
+      description="Write an event with duration, CFA location and component for each "
+          + "operation of the analysis (choose, precision adjustment, transfer, merge, "
+          + "and stop in the CPA algorithm, transfer and merge of each component CPA, "
+          + "refinements, and solver queries) that takes at least statistics.events.threshold "
+          + "to a file while the analysis is running.")
+  private boolean export = false;
+
+  @Option(secure=true, name="file", description="file for the events of the analysis")
+  @FileOption(FileOption.Type.OUTPUT_FILE)
+  private Path file = Paths.get("AnalysisEvents.tsv");
+
+  @Option(secure=true, description="Write only events that took at least this long "
+      + "(use microseconds or specify a unit).")
+  @TimeSpanOption(codeUnit=TimeUnit.NANOSECONDS,
+      defaultUserUnit=TimeUnit.MICROSECONDS,
+      min=0)
+  private TimeSpan threshold = TimeSpan.ofMillis(1);
+
+  private static final long FLUSH_INTERVAL = 1000; // milliseconds
+
+  // Maximal number of events that wait for being written.
+  private static final int MAX_QUEUED_EVENTS = 100000;
+
+  // Static state that is read by the components.
+  // A negative threshold means that recording is disabled.
+  private static volatile long thresholdNanos = -1;
+  private static volatile long startNanos = 0;
+  private static final Queue<Event> events = new ConcurrentLinkedQueue<>();
+  private static final AtomicInteger queuedEvents = new AtomicInteger(0);
+
+  private final LogManager logger;
+  private @Nullable Writer out = null;
+  private @Nullable ScheduledExecutorService writerExecutor = null;
+
+  // statistics
+  private final AtomicLong writtenEvents = new AtomicLong(0);
+  private static final AtomicLong skippedEvents = new AtomicLong(0);
+  private static final AtomicLong droppedEvents = new AtomicLong(0);
+
+  private static final class Event {
+    private final String name;
+    private final long start;
+    private final long duration;
+    private final @Nullable CFANode location;
+    private final String component;
+
+    private Event(String pName, long pStart, long pDuration,
+        @Nullable CFANode pLocation, String pComponent) {
+      name = pName;
+      start = pStart;
+      duration = pDuration;
+      location = pLocation;
+      component = pComponent;
+    }
+  }
+
+  public EventRecorder(Configuration pConfig, LogManager pLogger)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    logger = pLogger;
+  }
+
+  public boolean isEnabled() {
+    return export && file != null;
+  }
+
+  /**
+   * Start recording events, if this is enabled.
+   * Call {@link #stop()} afterwards.
+   */
+  public void start() {
+    if (!isEnabled()) {
+      return;
+    }
+
+    try {
+      out = Files.openOutputFile(file);
+      out.write("start\tduration\tevent\tcomponent\tlocation\n");
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Could not write analysis events to file");
+      out = null;
+      return;
+    }
+
+    events.clear();
+    queuedEvents.set(0);
+    skippedEvents.set(0);
+    droppedEvents.set(0);
+    startNanos = System.nanoTime();
+    thresholdNanos = threshold.asNanos();
+
+    writerExecutor = Executors.newSingleThreadScheduledExecutor(
+        Threads.threadFactoryBuilder().setNameFormat("Event writer").setDaemon(true).build());
+    writerExecutor.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          writeEvents();
+        }
+      }, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stop recording and write all remaining events.
+   */
+  public void stop() {
+    if (out == null) {
+      return;
+    }
+    thresholdNanos = -1;
+    writerExecutor.shutdown();
+    try {
+      writerExecutor.awaitTermination(FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    synchronized (this) {
+      writeEvents();
+      try {
+        out.close();
+      } catch (IOException e) {
+        logger.logUserException(Level.WARNING, e, "Could not write analysis events to file");
+      }
+      out = null;
+    }
+  }
+
+  private synchronized void writeEvents() {
+    if (out == null) {
+      return;
+    }
+    try {
+      Event event;
+      while ((event = events.poll()) != null) {
+        queuedEvents.decrementAndGet();
+        out.write(Long.toString(TimeUnit.NANOSECONDS.toMicros(event.start - startNanos)));
+        out.write('\t');
+        out.write(Long.toString(TimeUnit.NANOSECONDS.toMicros(event.duration)));
+        out.write('\t');
+        out.write(event.name);
+        out.write('\t');
+        out.write(event.component);
+        out.write('\t');
+        if (event.location != null) {
+          out.write(event.location.getFunctionName());
+          out.write(':');
+          out.write(event.location.toString());
+        }
+        out.write('\n');
+        writtenEvents.incrementAndGet();
+      }
+      out.flush();
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Could not write analysis events to file");
+      thresholdNanos = -1;
+      events.clear();
+      queuedEvents.set(0);
+    }
+  }
+
+  /**
+   * Check whether events are currently recorded.
+   * Components can use this to avoid computing the location of an event.
+   */
+  public static boolean isRecording() {
+    return thresholdNanos >= 0;
+  }
+
+  /**
+   * Get the start time of an event that is passed to
+   * {@link #end(String, long, CFANode, String)} later.
+   */
+  public static long begin() {
+    return thresholdNanos >= 0 ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Record an event if recording is enabled.
+   * @param pName The name of the event, e.g., "transfer".
+   * @param pStart The value returned by {@link #begin()} before the event.
+   * @param pLocation The CFA location of the event, if known.
+   * @param pComponent The component that produced the event, e.g., the name of a CPA.
+   */
+  public static void end(String pName, long pStart,
+      @Nullable CFANode pLocation, String pComponent) {
+    long currentThreshold = thresholdNanos;
+    if (currentThreshold < 0 || pStart == 0) {
+      return;
+    }
+    long duration = System.nanoTime() - pStart;
+    if (duration < currentThreshold) {
+      skippedEvents.incrementAndGet();
+      return;
+    }
+    if (queuedEvents.incrementAndGet() > MAX_QUEUED_EVENTS) {
+      // the writer cannot keep up
+      queuedEvents.decrementAndGet();
+      droppedEvents.incrementAndGet();
+      return;
+    }
+    events.add(new Event(pName, pStart, duration, pLocation, pComponent));
+  }
+
+  @Override
+  public String getName() {
+    return "Analysis Events";
+  }
+
+  @Override
+  public void printStatistics(PrintStream pOut, Result pResult, ReachedSet pReached) {
+    pOut.println("Number of events written:           " + writtenEvents.get());
+    pOut.println("Number of events below threshold:   " + skippedEvents.get());
+    pOut.println("Number of dropped events:           " + droppedEvents.get());
+  }
+}
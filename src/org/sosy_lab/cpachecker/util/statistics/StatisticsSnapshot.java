@@ -0,0 +1,87 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.statistics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.sosy_lab.cpachecker.core.interfaces.SnapshotStatistics;
+
+/**
+ * The values of all statistics at one point in time.
+ * Values are typed (integer, floating point, boolean, or string),
+ * such that they can be written in a machine-readable format.
+ * The keys are prefixed with the name of the statistics that provided them.
+ */
+public final class StatisticsSnapshot {
+
+  private final long time;
+  private final Map<String, Object> values = new LinkedHashMap<>();
+  private String prefix = "";
+
+  StatisticsSnapshot(long pTime) {
+    time = pTime;
+  }
+
+  /**
+   * Set the name of the statistics that provides the following values
+   * (cf. {@link SnapshotStatistics#putSnapshotValues(StatisticsSnapshot)}).
+   */
+  void beginSection(String pName) {
+    prefix = pName.isEmpty() ? "" : pName + ".";
+  }
+
+  public void put(String pKey, long pValue) {
+    values.put(prefix + pKey, pValue);
+  }
+
+  public void put(String pKey, double pValue) {
+    values.put(prefix + pKey, pValue);
+  }
+
+  public void put(String pKey, boolean pValue) {
+    values.put(prefix + pKey, pValue);
+  }
+
+  public void put(String pKey, String pValue) {
+    values.put(prefix + pKey, pValue);
+  }
+
+  /**
+   * The time of this snapshot in milliseconds since the start of the analysis.
+   */
+  public long getTime() {
+    return time;
+  }
+
+  /**
+   * The values of this snapshot in the order in which they were added.
+   * Each value is either a {@link Long}, a {@link Double},
+   * a {@link Boolean}, or a {@link String}.
+   */
+  public Map<String, Object> getValues() {
+    return Collections.unmodifiableMap(values);
+  }
+}
@@ -0,0 +1,277 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.statistics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import javax.annotation.Nullable;
+
+import org.sosy_lab.common.concurrency.Threads;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.configuration.TimeSpanOption;
+import org.sosy_lab.common.io.Files;
+import org.sosy_lab.common.io.Path;
+import org.sosy_lab.common.io.Paths;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.TimeSpan;
+import org.sosy_lab.cpachecker.core.interfaces.SnapshotStatistics;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Writes snapshots of the statistics in a machine-readable format
+ * periodically while the analysis is running, and once at the end.
+ *
+ * Each snapshot contains the time since the start of the analysis,
+ * the size of the reached set and the waitlist, the heap usage,
+ * and the values of all statistics that implement {@link SnapshotStatistics}.
+ *
+ * The snapshots are written either as JSON lines (one JSON object per snapshot)
+ * or as CSV with one line per value and the columns time, key, and value
+ * (such that statistics that appear later in the analysis do not change the columns).
+ */
+@Options(prefix="statistics.snapshots")
+public final class StatisticsSnapshotWriter {
+
+  public static enum SnapshotFormat {
+    JSON,
+    CSV,
+  }
+
+  @Option(secure=true, name="export",
+      description="Write snapshots of the statistics (e.g., reached-set size, "
+          + "waitlist size, number of refinements, and memory usage) "
+          + "in a machine-readable format periodically while the analysis is running.")
+  private boolean export = false;
+
+  @Option(secure=true, name="file", description="file for the snapshots of the statistics")
+  @FileOption(FileOption.Type.OUTPUT_FILE)
+  private Path file = Paths.get("StatisticsSnapshots.jsonl");
+
+  @Option(secure=true, description="format of the snapshots of the statistics "
+      + "(JSON: one object per line, CSV: one value per line)")
+  private SnapshotFormat format = SnapshotFormat.JSON;
+
+  @Option(secure=true, description="Interval between two snapshots of the statistics "
+      + "(use seconds or specify a unit).")
+  @TimeSpanOption(codeUnit=TimeUnit.MILLISECONDS,
+      defaultUserUnit=TimeUnit.SECONDS,
+      min=1)
+  private TimeSpan interval = TimeSpan.ofSeconds(10);
+
+  private final LogManager logger;
+  private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+  private @Nullable Writer out = null;
+  private @Nullable ScheduledExecutorService executor = null;
+  private @Nullable ReachedSet reached = null;
+  private ImmutableList<SnapshotStatistics> statistics = ImmutableList.of();
+  private long startTime = 0;
+
+  public StatisticsSnapshotWriter(Configuration pConfig, LogManager pLogger)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    logger = pLogger;
+  }
+
+  public boolean isEnabled() {
+    return export && file != null;
+  }
+
+  /**
+   * Start writing snapshots, if this is enabled.
+   * Call {@link #stop()} afterwards.
+   * @param pStatistics All statistics of the analysis, those that implement
+   * {@link SnapshotStatistics} are included in the snapshots.
+   * @param pReached The reached set of the analysis.
+   */
+  public void start(Collection<Statistics> pStatistics, ReachedSet pReached) {
+    if (!isEnabled()) {
+      return;
+    }
+
+    try {
+      out = Files.openOutputFile(file);
+      if (format == SnapshotFormat.CSV) {
+        out.write("time,key,value\n");
+      }
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Could not write statistics snapshots to file");
+      return;
+    }
+
+    statistics = FluentIterable.from(pStatistics).filter(SnapshotStatistics.class).toList();
+    reached = pReached;
+    startTime = System.currentTimeMillis();
+
+    executor = Executors.newSingleThreadScheduledExecutor(
+        Threads.threadFactoryBuilder().setNameFormat("Statistics snapshot writer").setDaemon(true).build());
+    executor.scheduleAtFixedRate(new Runnable() {
+        @Override
+        public void run() {
+          writeSnapshot();
+        }
+      }, 0, interval.asMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stop writing periodic snapshots and write a last one.
+   */
+  public void stop() {
+    if (out == null) {
+      return;
+    }
+    executor.shutdownNow();
+    try {
+      executor.awaitTermination(1, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    writeSnapshot();
+    try {
+      out.close();
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Could not write statistics snapshots to file");
+    }
+    out = null;
+  }
+
+  private synchronized void writeSnapshot() {
+    if (out == null) {
+      return;
+    }
+    StatisticsSnapshot snapshot = takeSnapshot();
+    try {
+      switch (format) {
+      case JSON:
+        writeJson(snapshot, out);
+        break;
+      case CSV:
+        writeCsv(snapshot, out);
+        break;
+      default:
+        throw new AssertionError();
+      }
+      out.flush();
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Could not write statistics snapshots to file");
+      executor.shutdown();
+    }
+  }
+
+  private StatisticsSnapshot takeSnapshot() {
+    StatisticsSnapshot snapshot = new StatisticsSnapshot(System.currentTimeMillis() - startTime);
+
+    // The reached set is not thread-safe, but reading its size is harmless.
+    snapshot.beginSection("reachedSet");
+    snapshot.put("size", reached.size());
+    snapshot.put("waitlistSize", reached.getWaitlistSize());
+
+    snapshot.beginSection("memory");
+    snapshot.put("heapUsed", memory.getHeapMemoryUsage().getUsed());
+    snapshot.put("heapCommitted", memory.getHeapMemoryUsage().getCommitted());
+    snapshot.put("nonHeapUsed", memory.getNonHeapMemoryUsage().getUsed());
+
+    for (SnapshotStatistics s : statistics) {
+      snapshot.beginSection(s.getName());
+      try {
+        s.putSnapshotValues(snapshot);
+      } catch (RuntimeException e) {
+        // reading concurrently modified data failed, the next snapshot will have the values
+        logger.logDebugException(e, "Could not get values of statistics " + s.getName());
+      }
+    }
+    return snapshot;
+  }
+
+  static void writeJson(StatisticsSnapshot pSnapshot, Appendable pOut) throws IOException {
+    pOut.append("{\"time\":").append(Long.toString(pSnapshot.getTime()));
+    for (Map.Entry<String, Object> entry : pSnapshot.getValues().entrySet()) {
+      pOut.append(',');
+      appendJsonString(entry.getKey(), pOut);
+      pOut.append(':');
+      Object value = entry.getValue();
+      if (value instanceof String) {
+        appendJsonString((String)value, pOut);
+      } else if (value instanceof Double
+          && (((Double)value).isNaN() || ((Double)value).isInfinite())) {
+        pOut.append("null"); // not representable in JSON
+      } else {
+        pOut.append(value.toString());
+      }
+    }
+    pOut.append("}\n");
+  }
+
+  private static void appendJsonString(String pValue, Appendable pOut) throws IOException {
+    pOut.append('"');
+    for (int i = 0; i < pValue.length(); i++) {
+      char c = pValue.charAt(i);
+      if (c == '"' || c == '\\') {
+        pOut.append('\\').append(c);
+      } else if (c < 0x20) {
+        pOut.append(String.format("\\u%04x", (int)c));
+      } else {
+        pOut.append(c);
+      }
+    }
+    pOut.append('"');
+  }
+
+  static void writeCsv(StatisticsSnapshot pSnapshot, Appendable pOut) throws IOException {
+    for (Map.Entry<String, Object> entry : pSnapshot.getValues().entrySet()) {
+      pOut.append(Long.toString(pSnapshot.getTime()));
+      pOut.append(',');
+      appendCsvField(entry.getKey(), pOut);
+      pOut.append(',');
+      appendCsvField(entry.getValue().toString(), pOut);
+      pOut.append('\n');
+    }
+  }
+
+  private static void appendCsvField(String pValue, Appendable pOut) throws IOException {
+    if (pValue.indexOf(',') < 0 && pValue.indexOf('"') < 0 && pValue.indexOf('\n') < 0) {
+      pOut.append(pValue);
+    } else {
+      pOut.append('"').append(pValue.replace("\"", "\"\"")).append('"');
+    }
+  }
+}
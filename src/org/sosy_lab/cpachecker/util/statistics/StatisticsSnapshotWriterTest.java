@@ -0,0 +1,77 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.statistics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class StatisticsSnapshotWriterTest {
+
+  private StatisticsSnapshot snapshot;
+
+  @Before
+  public void setUp() {
+    snapshot = new StatisticsSnapshot(1500);
+    snapshot.beginSection("reachedSet");
+    snapshot.put("size", 42);
+    snapshot.beginSection("CPA algorithm");
+    snapshot.put("ratio", 0.5);
+    snapshot.put("finished", false);
+    snapshot.put("name", "a \"quoted\", name");
+  }
+
+  @Test
+  public void testJson() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    StatisticsSnapshotWriter.writeJson(snapshot, sb);
+    assertThat(sb.toString()).isEqualTo("{\"time\":1500,\"reachedSet.size\":42,"
+        + "\"CPA algorithm.ratio\":0.5,\"CPA algorithm.finished\":false,"
+        + "\"CPA algorithm.name\":\"a \\\"quoted\\\", name\"}\n");
+  }
+
+  @Test
+  public void testJsonSpecialValues() throws IOException {
+    StatisticsSnapshot special = new StatisticsSnapshot(0);
+    special.beginSection("");
+    special.put("nan", Double.NaN);
+    special.put("text", "line\nbreak");
+    StringBuilder sb = new StringBuilder();
+    StatisticsSnapshotWriter.writeJson(special, sb);
+    assertThat(sb.toString()).isEqualTo("{\"time\":0,\"nan\":null,\"text\":\"line\\u000abreak\"}\n");
+  }
+
+  @Test
+  public void testCsv() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    StatisticsSnapshotWriter.writeCsv(snapshot, sb);
+    assertThat(sb.toString()).isEqualTo("1500,reachedSet.size,42\n"
+        + "1500,CPA algorithm.ratio,0.5\n"
+        + "1500,CPA algorithm.finished,false\n"
+        + "1500,CPA algorithm.name,\"a \"\"quoted\"\", name\"\n");
+  }
+}